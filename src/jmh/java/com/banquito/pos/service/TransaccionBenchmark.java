@@ -0,0 +1,153 @@
+package com.banquito.pos.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.controller.dto.TransaccionDTO;
+import com.banquito.pos.controller.mapper.TransaccionMapper;
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Costo de CPU y asignación de memoria por pago en las etapas que no esperan E/S:
+ * validación, verificación de la tarjeta (Luhn y tabla de BIN), mapeo DTO/modelo, armado
+ * de la solicitud al Payment Gateway, generación del código de transacción y serialización
+ * JSON de la solicitud. Solo compila con el
+ * perfil {@code benchmark} y se ejecuta con el profiler de GC:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="validar -prof gc -f 2"
+ * </pre>
+ *
+ * La columna gc.alloc.rate.norm es la cantidad de bytes asignados por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+public class TransaccionBenchmark {
+
+    private final TransaccionMapper mapper = Mappers.getMapper(TransaccionMapper.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    
+    private SecuenciaCodigoTransaccion generador;
+    private ValidadorTarjeta validadorTarjeta;
+    private ConfiguracionPos configuracion;
+    private TransaccionDTO dto;
+    private Transaccion transaccion;
+    private TransaccionRequestDTO solicitud;
+    
+    @Setup
+    public void preparar() {
+        SecuenciaTransaccionService secuenciaService = new SecuenciaTransaccionService(null, null) {
+            private long siguiente;
+            
+            @Override
+            public String asignarPrefijo(String codigoPos) {
+                return GeneradorCodigoTransaccion.prefijoPreferido(codigoPos);
+            }
+            
+            @Override
+            public long reservarBloque(String prefijo, long cantidad) {
+                long inicio = this.siguiente;
+                this.siguiente += cantidad;
+                return inicio;
+            }
+            
+            @Override
+            public CompletableFuture<Long> reservarBloqueAnticipado(String prefijo, long cantidad) {
+                return CompletableFuture.completedFuture(reservarBloque(prefijo, cantidad));
+            }
+        };
+        this.generador = new SecuenciaCodigoTransaccion(secuenciaService, 1000);
+        this.validadorTarjeta = new ValidadorTarjeta(new ClassPathResource("tarjetas/bines.csv"),
+                new SimpleMeterRegistry());
+        
+        this.configuracion = new ConfiguracionPos("VERIFONE", "POS001");
+        this.configuracion.setDireccionMac("AA:BB:CC:DD:EE:FF");
+        this.configuracion.setCodigoComercio("COM001");
+        
+        this.dto = new TransaccionDTO();
+        this.dto.setMarca("VISA");
+        this.dto.setModalidad("DIF");
+        this.dto.setDetalle("Compra en tienda");
+        this.dto.setMonto(new BigDecimal("125.40"));
+        this.dto.setMoneda("USD");
+        this.dto.setNumeroTarjeta("4111111111111111");
+        this.dto.setNombreTitular("Juan Perez");
+        this.dto.setPlazo(6);
+        this.dto.setCvv("123");
+        this.dto.setFechaExpiracion("12/28");
+        
+        this.transaccion = this.mapper.toModel(this.dto);
+        this.transaccion.setCodTransaccion("POS0000001");
+        this.transaccion.setCodigoUnicoTransaccion("4d7f1c0e-8a4b-4a59-9a53-2f1f6b0c9e11");
+        this.transaccion.setFecha(LocalDateTime.now());
+        this.transaccion.setEstado("ENV");
+        this.transaccion.setEstadoRecibo("PEN");
+        TransaccionService.validarTransaccion(this.transaccion);
+        
+        this.solicitud = TransaccionService.construirSolicitud(this.transaccion, this.configuracion, "123", "12/28");
+    }
+    
+    @Benchmark
+    public Transaccion validarTransaccion() {
+        TransaccionService.validarTransaccion(this.transaccion);
+        return this.transaccion;
+    }
+    
+    @Benchmark
+    public Transaccion validarTarjeta() {
+        this.validadorTarjeta.validar(this.transaccion);
+        return this.transaccion;
+    }
+    
+    @Benchmark
+    public Transaccion mapearAModelo() {
+        return this.mapper.toModel(this.dto);
+    }
+    
+    @Benchmark
+    public TransaccionDTO mapearADTO() {
+        return this.mapper.toDTO(this.transaccion);
+    }
+    
+    @Benchmark
+    public TransaccionRequestDTO construirSolicitud() {
+        return TransaccionService.construirSolicitud(this.transaccion, this.configuracion, "123", "12/28");
+    }
+    
+    @Benchmark
+    public String generarCodigoTransaccion() {
+        return this.generador.siguiente(this.configuracion.getCodigoPos());
+    }
+    
+    @Benchmark
+    public byte[] serializarSolicitud() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.solicitud);
+    }
+}
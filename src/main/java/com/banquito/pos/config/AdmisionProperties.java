@@ -0,0 +1,122 @@
+package com.banquito.pos.config;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propiedades pos.admision.*. Los límites por defecto se aplican a cada terminal y a cada
+ * comercio; un terminal o comercio puede tener el suyo, por ejemplo
+ * pos.admision.terminales.POS001.tasa=5, y lo que no indique se toma del límite por defecto.
+ * <p>
+ * Las propiedades se leen completas en un {@link Limites} inmutable que se publica en un
+ * campo volatile y se vuelve a leer cuando POST /actuator/refresh cambia alguna clave
+ * pos.admision.*: quitar un límite propio lo elimina, y un pago nunca combina la tasa de
+ * una versión con la ráfaga de otra.
+ */
+@Component
+public class AdmisionProperties {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmisionProperties.class);
+    
+    static final String PREFIJO = "pos.admision";
+    
+    private static final Limite TERMINAL = new Limite(20, 40);
+    private static final Limite COMERCIO = new Limite(100, 200);
+    
+    private final Environment environment;
+    private volatile Limites limites;
+    
+    public AdmisionProperties(Environment environment) {
+        this.environment = environment;
+        this.limites = leer(environment);
+    }
+    
+    public Limites vigentes() {
+        return this.limites;
+    }
+    
+    @EventListener
+    public void recargar(EnvironmentChangeEvent evento) {
+        if (evento.getKeys().stream().anyMatch(clave -> clave.startsWith(PREFIJO + "."))) {
+            this.limites = leer(this.environment);
+            log.info("Límites de admisión recargados: {}", this.limites);
+        }
+    }
+    
+    static Limites leer(Environment environment) {
+        return Binder.get(environment).bindOrCreate(PREFIJO, Leidas.class).resolver();
+    }
+    
+    public record Limites(boolean habilitado, Limite terminal, Limite comercio,
+            Map<String, Limite> terminales, Map<String, Limite> comercios) {
+        
+        public Limite limiteTerminal(String codigoPos) {
+            return this.terminales.getOrDefault(codigoPos, this.terminal);
+        }
+        
+        public Limite limiteComercio(String codigoComercio) {
+            return this.comercios.getOrDefault(codigoComercio, this.comercio);
+        }
+    }
+    
+    /**
+     * @param tasa pagos por segundo sostenidos; cero o negativo deja la clave sin límite
+     * @param rafaga pagos que se admiten seguidos después de un período sin actividad
+     */
+    public record Limite(double tasa, int rafaga) {
+        
+        public boolean isIlimitado() {
+            return this.tasa <= 0;
+        }
+        
+        public long intervaloNanos() {
+            return Math.max((long) (1_000_000_000L / this.tasa), 1);
+        }
+        
+        public long toleranciaNanos() {
+            return intervaloNanos() * Math.max(this.rafaga, 1);
+        }
+    }
+    
+    /**
+     * Propiedades tal como vienen del Environment; los valores ausentes son null.
+     */
+    record Leidas(@DefaultValue("true") boolean habilitado, LimiteLeido terminal, LimiteLeido comercio,
+            Map<String, LimiteLeido> terminales, Map<String, LimiteLeido> comercios) {
+        
+        Limites resolver() {
+            Limite porTerminal = LimiteLeido.completar(this.terminal, TERMINAL);
+            Limite porComercio = LimiteLeido.completar(this.comercio, COMERCIO);
+            return new Limites(this.habilitado, porTerminal, porComercio,
+                    completar(this.terminales, porTerminal), completar(this.comercios, porComercio));
+        }
+        
+        private static Map<String, Limite> completar(Map<String, LimiteLeido> propios, Limite base) {
+            if (propios == null) {
+                return Map.of();
+            }
+            return propios.entrySet().stream().collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                    entrada -> LimiteLeido.completar(entrada.getValue(), base)));
+        }
+    }
+    
+    record LimiteLeido(Double tasa, Integer rafaga) {
+        
+        static Limite completar(LimiteLeido leido, Limite base) {
+            if (leido == null) {
+                return base;
+            }
+            return new Limite(leido.tasa != null ? leido.tasa : base.tasa(),
+                    leido.rafaga != null ? leido.rafaga : base.rafaga());
+        }
+    }
+}
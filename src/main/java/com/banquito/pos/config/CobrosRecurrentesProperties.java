@@ -0,0 +1,34 @@
+package com.banquito.pos.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Propiedades pos.recurrentes.*. En cada intervalo se cobran como máximo {@code lote}
+ * suscripciones vencidas, de a {@code paralelismo} a la vez, de modo que muchas
+ * suscripciones con la misma fecha de cobro se reparten en el tiempo.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pos.recurrentes")
+public class CobrosRecurrentesProperties {
+
+    private boolean habilitado = true;
+    
+    private int lote = 10;
+    
+    private int paralelismo = 4;
+    
+    /** Anticipación con la que se cargan en memoria los cobros próximos. */
+    private long horizonteMinutos = 10;
+    
+    /** Máximo de cobros próximos en memoria. */
+    private int capacidad = 5000;
+    
+    private long reintentoHoras = 24;
+    
+    /** Cobros fallidos consecutivos tras los que la suscripción se suspende. */
+    private int maximoFallos = 3;
+}
@@ -28,7 +28,7 @@ public class CorsConfig {
         ));
         
         // Permitir todos los headers y métodos
-        config.setAllowedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Authorization", "X-Request-ID"));
+        config.setAllowedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Authorization", "X-Request-ID", "Idempotency-Key"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         
         // Configuración para solicitudes preflight
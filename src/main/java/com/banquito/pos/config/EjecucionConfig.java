@@ -0,0 +1,59 @@
+package com.banquito.pos.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EjecucionConfig {
+
+    @Bean(name = "pagosExecutor")
+    public ThreadPoolTaskExecutor pagosExecutor(
+            @Value("${pos.pagos.asincrono.hilos:8}") int hilos,
+            @Value("${pos.pagos.asincrono.capacidad:200}") int capacidad) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pos-pago-");
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidad);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean(name = "lotesExecutor")
+    public ThreadPoolTaskExecutor lotesExecutor(
+            @Value("${pos.pagos.lote.hilos:16}") int hilos,
+            @Value("${pos.pagos.lote.capacidad:64}") int capacidad) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pos-lote-");
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidad);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Cobros recurrentes: un lote de la agenda a la vez, con pos.recurrentes.paralelismo
+     * cobros simultáneos; la cola admite el lote completo.
+     */
+    @Bean(name = "cobrosExecutor")
+    public ThreadPoolTaskExecutor cobrosExecutor(
+            @Value("${pos.recurrentes.paralelismo:4}") int hilos,
+            @Value("${pos.recurrentes.lote:10}") int capacidad) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pos-cobro-");
+        executor.setCorePoolSize(Math.max(hilos, 1));
+        executor.setMaxPoolSize(Math.max(hilos, 1));
+        executor.setQueueCapacity(capacidad);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
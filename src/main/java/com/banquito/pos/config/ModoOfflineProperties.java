@@ -0,0 +1,43 @@
+package com.banquito.pos.config;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Propiedades pos.offline.*. Los montos máximos se declaran por marca y moneda, por ejemplo
+ * pos.offline.limites.VISA.USD=150.00; una combinación sin límite no se atiende fuera de línea.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pos.offline")
+public class ModoOfflineProperties {
+
+    private boolean habilitado = true;
+    
+    /**
+     * Clave AES de 128 o 256 bits en Base64 con la que se cifran las solicitudes encoladas
+     * y los datos de tarjeta de las suscripciones.
+     */
+    private String clave;
+    
+    private Map<String, Map<String, BigDecimal>> limites = new HashMap<>();
+    
+    private int lote = 50;
+    
+    private long esperaInicialMs = 5000;
+    
+    private long esperaMaximaMs = 300000;
+    
+    private long vigenciaHoras = 24;
+    
+    public BigDecimal limite(String marca, String moneda) {
+        Map<String, BigDecimal> porMoneda = this.limites.get(marca);
+        return porMoneda != null ? porMoneda.get(moneda) : null;
+    }
+}
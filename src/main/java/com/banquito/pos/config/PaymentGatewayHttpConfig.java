@@ -0,0 +1,69 @@
+package com.banquito.pos.config;
+
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Publica el estado del pool de conexiones HTTP del Payment Gateway (Apache HttpClient 5,
+ * configurado con las propiedades spring.cloud.openfeign.httpclient.*). Las conexiones
+ * pendientes mayores a cero indican que el pool está saturado.
+ */
+@Configuration
+public class PaymentGatewayHttpConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentGatewayHttpConfig.class);
+    
+    private final ObjectProvider<HttpClientConnectionManager> connectionManager;
+    private final MeterRegistry registry;
+    
+    public PaymentGatewayHttpConfig(ObjectProvider<HttpClientConnectionManager> connectionManager, 
+            MeterRegistry registry) {
+        this.connectionManager = connectionManager;
+        this.registry = registry;
+    }
+    
+    /**
+     * Un pago no es idempotente: el reintento automático de HttpClient 5 ante un 503
+     * reenviaría el mismo cargo. Los fallos se devuelven al servicio, que decide.
+     */
+    @Bean
+    public HttpClientBuilderCustomizer sinReintentosAutomaticos() {
+        return builder -> builder.disableAutomaticRetries();
+    }
+    
+    @PostConstruct
+    public void registrarMetricas() {
+        HttpClientConnectionManager manager = this.connectionManager.getIfAvailable();
+        if (!(manager instanceof ConnPoolControl<?> pool)) {
+            log.warn("El cliente del Payment Gateway no usa un pool de conexiones, no se publican sus métricas");
+            return;
+        }
+        
+        Gauge.builder("pos.gateway.http.conexiones", pool, p -> p.getTotalStats().getLeased())
+                .tag("estado", "en-uso")
+                .description("Conexiones HTTP al Payment Gateway")
+                .register(this.registry);
+        Gauge.builder("pos.gateway.http.conexiones", pool, p -> p.getTotalStats().getAvailable())
+                .tag("estado", "disponibles")
+                .description("Conexiones HTTP al Payment Gateway")
+                .register(this.registry);
+        Gauge.builder("pos.gateway.http.conexiones", pool, p -> p.getTotalStats().getPending())
+                .tag("estado", "pendientes")
+                .description("Conexiones HTTP al Payment Gateway")
+                .register(this.registry);
+        Gauge.builder("pos.gateway.http.conexiones", pool, p -> p.getTotalStats().getMax())
+                .tag("estado", "maximo")
+                .description("Conexiones HTTP al Payment Gateway")
+                .register(this.registry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.banquito.pos.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Modo concurrente de SQLite: journal WAL, un pool de escritura con una única conexión
+ * (las escrituras de la aplicación además pasan por {@code ColaEscrituraSqlite}) y un
+ * pool de conexiones de solo lectura para las transacciones {@code readOnly}. El escritor
+ * usa synchronous=FULL: en WAL con NORMAL un corte de energía puede deshacer commits que ya
+ * se confirmaron al cliente; la cola de escritura agrupa los commits y reparte el fsync.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pos.sqlite.modo-concurrente", havingValue = "true", matchIfMissing = true)
+public class SqliteConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteConfig.class);
+    
+    private static final String ESCRITURA = "escritura";
+    private static final String LECTURA = "lectura";
+    
+    @Value("${spring.datasource.url}")
+    private String url;
+    
+    @Value("${pos.sqlite.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+    
+    @Bean(name = "escrituraDataSource")
+    public HikariDataSource escrituraDataSource() {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        sqliteConfig.setSynchronous(SQLiteConfig.SynchronousMode.FULL);
+        sqliteConfig.setBusyTimeout(this.busyTimeoutMs);
+        
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("sqlite-escritura");
+        config.setDataSource(crearSqliteDataSource(sqliteConfig));
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        log.info("SQLite en modo WAL con un único escritor: {}", this.url);
+        return new HikariDataSource(config);
+    }
+    
+    @Bean(name = "lecturaDataSource")
+    public HikariDataSource lecturaDataSource(@Value("${pos.sqlite.pool-lectura:4}") int poolLectura) {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setBusyTimeout(this.busyTimeoutMs);
+        
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("sqlite-lectura");
+        config.setDataSource(crearSqliteDataSource(sqliteConfig));
+        config.setConnectionInitSql("PRAGMA query_only = 1");
+        config.setMaximumPoolSize(poolLectura);
+        config.setMinimumIdle(0);
+        return new HikariDataSource(config);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("escrituraDataSource") DataSource escritura,
+            @Qualifier("lecturaDataSource") DataSource lectura) {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? LECTURA : ESCRITURA;
+            }
+        };
+        routing.setTargetDataSources(Map.of(ESCRITURA, escritura, LECTURA, lectura));
+        routing.setDefaultTargetDataSource(escritura);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+    
+    private SQLiteDataSource crearSqliteDataSource(SQLiteConfig sqliteConfig) {
+        SQLiteDataSource dataSource = new SQLiteDataSource(sqliteConfig);
+        dataSource.setUrl(this.url);
+        return dataSource;
+    }
+}
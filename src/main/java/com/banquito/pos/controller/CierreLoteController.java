@@ -0,0 +1,126 @@
+package com.banquito.pos.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banquito.pos.controller.dto.CierreLoteDTO;
+import com.banquito.pos.controller.mapper.CierreLoteMapper;
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.service.CierreLoteService;
+import com.banquito.pos.service.ConfiguracionPosService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/cierres")
+@RequiredArgsConstructor
+@Tag(name = "Cierre de lote", description = "API para el cierre de lote del terminal POS")
+public class CierreLoteController {
+
+    private static final Logger log = LoggerFactory.getLogger(CierreLoteController.class);
+    
+    private final CierreLoteService service;
+    private final ConfiguracionPosService configuracionPosService;
+    private final CierreLoteMapper mapper;
+    
+    @GetMapping("/actual")
+    @Operation(summary = "Consultar lote abierto", 
+               description = "Obtiene los totales acumulados por el terminal desde su último cierre")
+    @ApiResponse(responseCode = "200", description = "Totales del lote abierto")
+    @ApiResponse(responseCode = "400", description = "Terminal POS no identificado")
+    @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    public ResponseEntity<CierreLoteDTO> consultarLoteAbierto(
+            @Parameter(description = "Código del terminal POS; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
+        try {
+            String terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac).getCodigoPos();
+            return ResponseEntity.ok(this.mapper.toDTO(this.service.consultarLoteAbierto(terminal)));
+        } catch (ValidationException e) {
+            log.error("Terminal POS no identificado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            log.error("Terminal POS no encontrado: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PostMapping
+    @Operation(summary = "Cerrar lote", 
+               description = "Registra los totales del lote abierto como un cierre y comienza un lote nuevo")
+    @ApiResponse(responseCode = "201", description = "Lote cerrado correctamente")
+    @ApiResponse(responseCode = "400", description = "Terminal POS no identificado")
+    @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    public ResponseEntity<CierreLoteDTO> cerrarLote(
+            @Parameter(description = "Código del terminal POS; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
+        try {
+            String terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac).getCodigoPos();
+            log.info("Cerrando lote del terminal POS {}", terminal);
+            return ResponseEntity.status(HttpStatus.CREATED).body(this.mapper.toDTO(this.service.cerrarLote(terminal)));
+        } catch (ValidationException e) {
+            log.error("Terminal POS no identificado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            log.error("Terminal POS no encontrado: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping
+    @Operation(summary = "Listar cierres", 
+               description = "Obtiene los últimos cierres de lote del terminal, del más reciente al más antiguo")
+    @ApiResponse(responseCode = "200", description = "Cierres de lote")
+    @ApiResponse(responseCode = "400", description = "Terminal POS no identificado")
+    @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    public ResponseEntity<List<CierreLoteDTO>> listarCierres(@RequestParam(defaultValue = "20") int limite,
+            @Parameter(description = "Código del terminal POS; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
+        try {
+            String terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac).getCodigoPos();
+            return ResponseEntity.ok(this.service.listarCierres(terminal, limite).stream()
+                    .map(this.mapper::toDTO).toList());
+        } catch (ValidationException e) {
+            log.error("Terminal POS no identificado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            log.error("Terminal POS no encontrado: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{codCierre}")
+    @Operation(summary = "Obtener cierre", 
+               description = "Obtiene un cierre de lote con sus totales")
+    @ApiResponse(responseCode = "200", description = "Cierre de lote")
+    @ApiResponse(responseCode = "404", description = "Cierre no encontrado")
+    public ResponseEntity<CierreLoteDTO> obtenerCierre(@PathVariable Integer codCierre) {
+        try {
+            return ResponseEntity.ok(this.mapper.toDTO(this.service.obtenerCierre(codCierre)));
+        } catch (NotFoundException e) {
+            log.error("Cierre de lote no encontrado: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -6,16 +6,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.banquito.pos.controller.dto.ConfiguracionPosDTO;
 import com.banquito.pos.controller.mapper.ConfiguracionPosMapper;
 import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
 import com.banquito.pos.model.ConfiguracionPos;
 import com.banquito.pos.service.ConfiguracionPosService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -34,14 +37,23 @@ public class ConfiguracionPosController {
     
     @GetMapping
     @Operation(summary = "Obtener configuración actual", 
-               description = "Obtiene la configuración actual del terminal POS")
+               description = "Obtiene la configuración del terminal POS indicado en las cabeceras, o la del "
+                       + "terminal local si no se indica ninguno")
     @ApiResponse(responseCode = "200", description = "Configuración obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Terminal POS no identificado")
     @ApiResponse(responseCode = "404", description = "Terminal POS no configurado")
-    public ResponseEntity<ConfiguracionPosDTO> getConfiguracion() {
+    public ResponseEntity<ConfiguracionPosDTO> getConfiguracion(
+            @Parameter(description = "Código del terminal POS")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
         try {
             log.info("Obteniendo configuración actual del terminal POS");
-            ConfiguracionPos configuracion = this.service.obtenerConfiguracionLocal();
+            ConfiguracionPos configuracion = this.service.resolverTerminal(codigoPos, direccionMac);
             return ResponseEntity.ok(this.mapper.toDTO(configuracion));
+        } catch (ValidationException e) {
+            log.error("Terminal POS no identificado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (NotFoundException e) {
             log.error("Terminal POS no configurado: {}", e.getMessage());
             return ResponseEntity.notFound().build();
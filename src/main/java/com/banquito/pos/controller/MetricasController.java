@@ -0,0 +1,37 @@
+package com.banquito.pos.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banquito.pos.controller.dto.VentasEnVivoDTO;
+import com.banquito.pos.controller.mapper.VentasEnVivoMapper;
+import com.banquito.pos.service.VentasEnVivoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/metricas")
+@RequiredArgsConstructor
+@Tag(name = "Métricas", description = "API de métricas de ventas del terminal POS")
+public class MetricasController {
+
+    private final VentasEnVivoService ventasService;
+    private final VentasEnVivoMapper mapper;
+    
+    @GetMapping("/ventas")
+    @Operation(summary = "Ventas del día", 
+               description = "Obtiene las ventas autorizadas y rechazadas del día por marca, modalidad y hora. "
+                       + "Se calcula en memoria, sin consultar la base de datos")
+    @ApiResponse(responseCode = "200", description = "Ventas del día en curso")
+    public ResponseEntity<VentasEnVivoDTO> consultarVentas() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(this.mapper.toDTO(this.ventasService.consultar()));
+    }
+}
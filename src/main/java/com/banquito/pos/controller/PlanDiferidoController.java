@@ -0,0 +1,90 @@
+package com.banquito.pos.controller;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banquito.pos.controller.dto.PlanDiferidoDTO;
+import com.banquito.pos.controller.mapper.PlanDiferidoMapper;
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.PlanDiferido;
+import com.banquito.pos.service.PlanDiferidoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/diferidos")
+@RequiredArgsConstructor
+@Tag(name = "Diferidos", description = "API de los planes de cuotas de los pagos diferidos")
+public class PlanDiferidoController {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanDiferidoController.class);
+    
+    private final PlanDiferidoService service;
+    private final PlanDiferidoMapper mapper;
+    
+    @GetMapping("/{codPlan}")
+    @Operation(summary = "Obtener plan diferido", 
+               description = "Obtiene un plan de cuotas con su calendario de vencimientos")
+    @ApiResponse(responseCode = "200", description = "Plan diferido")
+    @ApiResponse(responseCode = "404", description = "Plan no encontrado")
+    public ResponseEntity<PlanDiferidoDTO> obtenerPlan(@PathVariable String codPlan) {
+        try {
+            PlanDiferido plan = this.service.obtener(codPlan);
+            return ResponseEntity.ok(this.mapper.toDTO(plan, this.service.cuotas(codPlan)));
+        } catch (NotFoundException e) {
+            log.error("Plan diferido no encontrado: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/cuotas")
+    @Operation(summary = "Cuotas por vencer", 
+               description = "Lista las cuotas que vencen entre desde (por defecto hoy) y hasta, ambas incluidas, "
+                       + "en orden de vencimiento, opcionalmente de un comercio")
+    @ApiResponse(responseCode = "200", description = "Cuotas por vencer")
+    @ApiResponse(responseCode = "400", description = "Rango de fechas inválido")
+    public ResponseEntity<?> listarCuotas(
+            @RequestParam(required = false) String codigoComercio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "100") int limite) {
+        try {
+            return ResponseEntity.ok(this.mapper.toCuotasDTO(
+                    this.service.cuotasPorVencer(codigoComercio, desde, hasta, limite)));
+        } catch (ValidationException e) {
+            log.error("Consulta de cuotas inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/cuotas/resumen")
+    @Operation(summary = "Cuentas por cobrar por mes", 
+               description = "Suma las cuotas que vencen entre desde (por defecto hoy) y hasta por mes de "
+                       + "vencimiento y moneda, opcionalmente de un comercio")
+    @ApiResponse(responseCode = "200", description = "Cuotas por cobrar por mes y moneda")
+    @ApiResponse(responseCode = "400", description = "Rango de fechas inválido")
+    public ResponseEntity<?> resumirCuotas(
+            @RequestParam(required = false) String codigoComercio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(this.mapper.toResumenDTO(this.service.resumen(codigoComercio, desde, hasta)));
+        } catch (ValidationException e) {
+            log.error("Resumen de cuotas inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
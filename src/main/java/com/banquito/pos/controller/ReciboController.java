@@ -0,0 +1,69 @@
+package com.banquito.pos.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.service.ReciboService;
+import com.banquito.pos.service.ReciboService.Recibo;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/recibos")
+@RequiredArgsConstructor
+@Tag(name = "Recibos", description = "API de recibos de las transacciones")
+public class ReciboController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReciboController.class);
+    
+    private static final MediaType TEXTO = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    
+    private final ReciboService service;
+    
+    @GetMapping("/{codTransaccion}")
+    @Operation(summary = "Obtener recibo", 
+               description = "Obtiene el recibo de una transacción AUT o REC para reimprimirlo, en texto plano "
+                       + "(formato=texto) o en comandos ESC/POS para impresoras térmicas (formato=escpos)")
+    @ApiResponse(responseCode = "200", description = "Recibo")
+    @ApiResponse(responseCode = "400", description = "Formato no soportado o transacción sin resultado")
+    @ApiResponse(responseCode = "404", description = "Transacción no encontrada")
+    public ResponseEntity<?> obtenerRecibo(@PathVariable String codTransaccion,
+            @RequestParam(defaultValue = "texto") String formato) {
+        String formatoRecibo = formato.toLowerCase(Locale.ROOT);
+        if (!"texto".equals(formatoRecibo) && !"escpos".equals(formatoRecibo)) {
+            log.error("Formato de recibo no soportado: {}", formato);
+            return ResponseEntity.badRequest().body("Formato de recibo no soportado: " + formato);
+        }
+        try {
+            Recibo recibo = this.service.obtener(codTransaccion);
+            if ("escpos".equals(formatoRecibo)) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("Content-Disposition", "attachment; filename=\"" + codTransaccion + ".bin\"")
+                        .body(recibo.escPos());
+            }
+            return ResponseEntity.ok().contentType(TEXTO).body(recibo.texto());
+        } catch (NotFoundException e) {
+            log.error("Transacción no encontrada: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (ValidationException e) {
+            log.error("Recibo no disponible: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
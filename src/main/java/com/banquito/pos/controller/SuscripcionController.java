@@ -0,0 +1,60 @@
+package com.banquito.pos.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.banquito.pos.controller.dto.SuscripcionDTO;
+import com.banquito.pos.controller.mapper.SuscripcionMapper;
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.service.SuscripcionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/suscripciones")
+@RequiredArgsConstructor
+@Tag(name = "Suscripciones", description = "API de las suscripciones creadas por pagos recurrentes")
+public class SuscripcionController {
+
+    private static final Logger log = LoggerFactory.getLogger(SuscripcionController.class);
+    
+    private final SuscripcionService service;
+    private final SuscripcionMapper mapper;
+    
+    @GetMapping("/{codSuscripcion}")
+    @Operation(summary = "Obtener suscripción", 
+               description = "Obtiene el estado y el próximo cobro de una suscripción")
+    @ApiResponse(responseCode = "200", description = "Suscripción")
+    @ApiResponse(responseCode = "404", description = "Suscripción no encontrada")
+    public ResponseEntity<SuscripcionDTO> obtenerSuscripcion(@PathVariable String codSuscripcion) {
+        try {
+            return ResponseEntity.ok(this.mapper.toDTO(this.service.obtener(codSuscripcion)));
+        } catch (NotFoundException e) {
+            log.error("Suscripción no encontrada: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @DeleteMapping("/{codSuscripcion}")
+    @Operation(summary = "Cancelar suscripción", 
+               description = "Cancela la suscripción; no se realizan más cobros")
+    @ApiResponse(responseCode = "200", description = "Suscripción cancelada")
+    @ApiResponse(responseCode = "404", description = "Suscripción no encontrada")
+    public ResponseEntity<SuscripcionDTO> cancelarSuscripcion(@PathVariable String codSuscripcion) {
+        try {
+            return ResponseEntity.ok(this.mapper.toDTO(this.service.cancelar(codSuscripcion)));
+        } catch (NotFoundException e) {
+            log.error("Suscripción no encontrada: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
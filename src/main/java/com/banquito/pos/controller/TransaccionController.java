@@ -2,26 +2,70 @@ package com.banquito.pos.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.banquito.pos.controller.dto.EstadoTransaccionDTO;
+import com.banquito.pos.controller.dto.PaginaTransaccionesDTO;
+import com.banquito.pos.controller.dto.ResultadoLoteDTO;
 import com.banquito.pos.controller.dto.TransaccionDTO;
 import com.banquito.pos.controller.mapper.TransaccionMapper;
+import com.banquito.pos.exception.AdmisionRechazadaException;
+import com.banquito.pos.exception.ClaveIdempotenciaReutilizadaException;
 import com.banquito.pos.exception.CommunicationException;
+import com.banquito.pos.exception.LoteNoAdmisibleException;
 import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.SaturacionException;
 import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.ConfiguracionPos;
 import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.service.AdmisionService;
+import com.banquito.pos.service.ConfiguracionPosService;
+import com.banquito.pos.service.ConsultaTransaccionService;
+import com.banquito.pos.service.ExportacionTransaccionService;
+import com.banquito.pos.service.ExportacionTransaccionService.Exportacion;
+import com.banquito.pos.service.ExportacionTransaccionService.Formato;
+import com.banquito.pos.service.ConsultaTransaccionService.Filtro;
+import com.banquito.pos.service.ConsultaTransaccionService.Pagina;
+import com.banquito.pos.service.IdempotenciaService;
+import com.banquito.pos.service.TransaccionAsincronaService;
+import com.banquito.pos.service.TransaccionLoteService;
+import com.banquito.pos.service.TransaccionLoteService.ResultadoLote;
+import com.banquito.pos.service.TransaccionLoteService.SolicitudLote;
 import com.banquito.pos.service.TransaccionService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
 @RestController
 @RequestMapping("/api/v1/transacciones")
 @RequiredArgsConstructor
@@ -30,63 +74,87 @@ public class TransaccionController {
 
     private static final Logger log = LoggerFactory.getLogger(TransaccionController.class);
     
+    private static final String CLAVE_IDEMPOTENCIA_VALIDA = "^[A-Za-z0-9_-]{8,64}$";
+    private static final long MAXIMA_ESPERA_MS = 30000;
+    private static final long TIEMPO_MAXIMO_LOTE_MS = 600000;
+    
     private final TransaccionService service;
+    private final ConfiguracionPosService configuracionPosService;
+    private final AdmisionService admisionService;
+    private final IdempotenciaService idempotenciaService;
+    private final TransaccionAsincronaService asincronaService;
+    private final TransaccionLoteService loteService;
+    private final ConsultaTransaccionService consultaService;
+    private final ExportacionTransaccionService exportacionService;
     private final TransaccionMapper mapper;
+    private final Validator validator;
     
     @PostMapping
     @Operation(summary = "Procesar transacción", 
                description = "Procesa una transacción en el terminal POS (simple o recurrente según los parámetros)")
     @ApiResponse(responseCode = "200", description = "Transacción autorizada correctamente")
+    @ApiResponse(responseCode = "202", description = "Payment Gateway no disponible, transacción aceptada fuera de línea")
     @ApiResponse(responseCode = "400", description = "Transacción rechazada o datos inválidos")
     @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    @ApiResponse(responseCode = "422", description = "La clave de idempotencia ya fue usada con otros datos de pago")
+    @ApiResponse(responseCode = "429", description = "Límite de pagos del terminal o del comercio excedido; "
+            + "la cabecera Retry-After indica cuándo reintentar")
     @ApiResponse(responseCode = "500", description = "Error de comunicación con el Payment Gateway")
-    public ResponseEntity<?> procesarTransaccion(@Valid @RequestBody TransaccionDTO transaccionDTO) {
+    public ResponseEntity<?> procesarTransaccion(@Valid @RequestBody TransaccionDTO transaccionDTO,
+            @Parameter(description = "Clave del cliente para reintentar el pago sin duplicar el cobro (8 a 64 caracteres)")
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+            @Parameter(description = "Código del terminal POS que origina la petición; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
         try {
             log.info("Procesando transacción en terminal POS");
             
-            transaccionDTO.setTipo("PAG");
-            
-            if (transaccionDTO.getModalidad() != null) {
-                if (!"SIM".equals(transaccionDTO.getModalidad()) && 
-                    !"REC".equals(transaccionDTO.getModalidad()) && 
-                    !"DIF".equals(transaccionDTO.getModalidad())) {
-                    transaccionDTO.setModalidad("SIM");
-                }
-            } else {
-                transaccionDTO.setModalidad("SIM");
+            if (claveIdempotencia != null && !claveIdempotencia.matches(CLAVE_IDEMPOTENCIA_VALIDA)) {
+                return ResponseEntity.badRequest().body("La cabecera Idempotency-Key debe tener de 8 a 64 caracteres alfanuméricos, '-' o '_'");
             }
             
-            if ("DIF".equals(transaccionDTO.getModalidad()) && 
-                (transaccionDTO.getPlazo() == null || transaccionDTO.getPlazo() <= 0)) {
-                log.error("Transacción diferida requiere un plazo válido");
-                return ResponseEntity.badRequest().body("La transacción diferida requiere un plazo válido");
+            String error = normalizarSolicitud(transaccionDTO);
+            if (error != null) {
+                return ResponseEntity.badRequest().body(error);
             }
             
-            if ("REC".equals(transaccionDTO.getModalidad()) && 
-                (transaccionDTO.getFrecuenciaDias() == null || transaccionDTO.getFrecuenciaDias() <= 0)) {
-                log.error("Transacción recurrente requiere una frecuencia válida");
-                return ResponseEntity.badRequest().body("La transacción recurrente requiere una frecuencia válida");
-            }
             String cvv = transaccionDTO.getCvv();
             String fechaExpiracion = transaccionDTO.getFechaExpiracion();
             
+            ConfiguracionPos terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac);
+            this.admisionService.admitir(terminal);
+            
             Transaccion transaccion = this.mapper.toModel(transaccionDTO);
-            Transaccion transaccionProcesada = this.service.procesarTransaccion(transaccion, cvv, fechaExpiracion);
+            transaccion.setCodigoPos(terminal.getCodigoPos());
+            Transaccion transaccionProcesada = claveIdempotencia != null
+                    ? this.idempotenciaService.procesarTransaccion(claveIdempotencia, transaccion, cvv, fechaExpiracion)
+                    : this.service.procesarTransaccion(transaccion, cvv, fechaExpiracion);
             
             if ("REC".equals(transaccionProcesada.getEstado())) {
                 log.info("Transacción rechazada: {}", transaccionProcesada.getDetalle());
                 return ResponseEntity.status(400).body("Pago rechazado");
             }
             
+            if ("ENV".equals(transaccionProcesada.getEstado())) {
+                log.info("Transacción aceptada fuera de línea: {}", transaccionProcesada.getCodTransaccion());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(this.mapper.toEstadoDTO(transaccionProcesada));
+            }
+            
             log.info("Transacción autorizada: {}", transaccionProcesada.getCodTransaccion());
             return ResponseEntity.ok(this.mapper.toDTO(transaccionProcesada));
-            
+        
         } catch (ValidationException e) {
             log.error("Error de validación: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Pago rechazado");
         } catch (NotFoundException e) {
             log.error("Terminal POS no encontrado: {}", e.getMessage());
             return ResponseEntity.status(404).body("Pago rechazado");
+        } catch (AdmisionRechazadaException e) {
+            return demasiadasSolicitudes(e);
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            log.error("Clave de idempotencia reutilizada: {}", e.getMessage());
+            return ResponseEntity.unprocessableEntity().body("La clave de idempotencia ya fue usada con otros datos de pago");
         } catch (CommunicationException e) {
             log.error("Error de comunicación con el Payment Gateway: {}", e.getMessage());
             return ResponseEntity.status(400).body("Pago rechazado");
@@ -95,4 +163,287 @@ public class TransaccionController {
             return ResponseEntity.status(500).body("Pago rechazado");
         }
     }
-} 
\ No newline at end of file
+    
+    @PostMapping("/asincronas")
+    @Operation(summary = "Enviar transacción asíncrona", 
+               description = "Registra la transacción en estado ENV y la envía al Payment Gateway en segundo plano")
+    @ApiResponse(responseCode = "202", description = "Transacción aceptada, consultar su estado con el código único")
+    @ApiResponse(responseCode = "400", description = "Datos inválidos")
+    @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    @ApiResponse(responseCode = "429", description = "Límite de pagos del terminal o del comercio excedido; "
+            + "la cabecera Retry-After indica cuándo reintentar")
+    @ApiResponse(responseCode = "503", description = "Capacidad de procesamiento asíncrono agotada")
+    public ResponseEntity<?> enviarTransaccion(@Valid @RequestBody TransaccionDTO transaccionDTO,
+            @Parameter(description = "Código del terminal POS que origina la petición; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
+        try {
+            log.info("Recibiendo transacción asíncrona en terminal POS");
+            
+            String error = normalizarSolicitud(transaccionDTO);
+            if (error != null) {
+                return ResponseEntity.badRequest().body(error);
+            }
+            
+            ConfiguracionPos terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac);
+            this.admisionService.admitir(terminal);
+            
+            Transaccion transaccion = this.mapper.toModel(transaccionDTO);
+            transaccion.setCodigoPos(terminal.getCodigoPos());
+            Transaccion transaccionEnviada = this.asincronaService.enviar(
+                    transaccion, transaccionDTO.getCvv(), transaccionDTO.getFechaExpiracion());
+            
+            log.info("Transacción aceptada: {}", transaccionEnviada.getCodigoUnicoTransaccion());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(this.mapper.toEstadoDTO(transaccionEnviada));
+        
+        } catch (ValidationException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Pago rechazado");
+        } catch (NotFoundException e) {
+            log.error("Terminal POS no encontrado: {}", e.getMessage());
+            return ResponseEntity.status(404).body("Pago rechazado");
+        } catch (AdmisionRechazadaException e) {
+            return demasiadasSolicitudes(e);
+        } catch (SaturacionException e) {
+            log.error("Terminal POS saturado: {}", e.getMessage());
+            return ResponseEntity.status(503).body("Pago no aceptado, intente nuevamente");
+        } catch (Exception e) {
+            log.error("Error inesperado: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Pago rechazado");
+        }
+    }
+    
+    @PostMapping(value = "/lote", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Procesar lote de transacciones", 
+               description = "Valida todas las transacciones, las registra en estado ENV en una sola operación y "
+                       + "las envía al Payment Gateway en paralelo. Los resultados se devuelven en NDJSON a medida "
+                       + "que se completan, identificados por su índice en el lote")
+    @ApiResponse(responseCode = "200", description = "Resultados por transacción")
+    @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande, o terminal no identificado")
+    @ApiResponse(responseCode = "404", description = "Terminal POS no encontrado")
+    @ApiResponse(responseCode = "413", description = "El lote tiene más pagos que la ráfaga del terminal o del comercio")
+    @ApiResponse(responseCode = "429", description = "Límite de pagos del terminal o del comercio excedido; "
+            + "la cabecera Retry-After indica cuándo reintentar")
+    @ApiResponse(responseCode = "503", description = "Capacidad de procesamiento de lotes agotada")
+    public ResponseEntity<ResponseBodyEmitter> procesarLote(@RequestBody List<TransaccionDTO> transaccionesDTO,
+            @Parameter(description = "Código del terminal POS que origina la petición; sin cabeceras se usa el terminal local")
+            @RequestHeader(value = "X-Codigo-Pos", required = false) String codigoPos,
+            @Parameter(description = "Dirección MAC del terminal POS, alternativa a X-Codigo-Pos")
+            @RequestHeader(value = "X-Direccion-Mac", required = false) String direccionMac) {
+        log.info("Procesando lote de {} transacciones en terminal POS", transaccionesDTO.size());
+        
+        List<SolicitudLote> solicitudes = new ArrayList<>(transaccionesDTO.size());
+        for (int i = 0; i < transaccionesDTO.size(); i++) {
+            TransaccionDTO transaccionDTO = transaccionesDTO.get(i);
+            String error = validarSolicitudLote(transaccionDTO);
+            solicitudes.add(new SolicitudLote(i, error == null ? this.mapper.toModel(transaccionDTO) : null, 
+                    transaccionDTO.getCvv(), transaccionDTO.getFechaExpiracion(), error));
+        }
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(TIEMPO_MAXIMO_LOTE_MS);
+        try {
+            ConfiguracionPos terminal = this.configuracionPosService.resolverTerminal(codigoPos, direccionMac);
+            this.admisionService.admitir(terminal, solicitudes.size());
+            this.loteService.procesarLote(terminal.getCodigoPos(), solicitudes, resultado -> enviarResultado(emitter, resultado))
+                    .whenComplete((ignorado, error) -> {
+                        if (error != null) {
+                            log.error("Error procesando el lote: {}", error.getMessage());
+                            emitter.completeWithError(error);
+                        } else {
+                            emitter.complete();
+                        }
+                    });
+        } catch (ValidationException e) {
+            log.error("Lote inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            log.error("Terminal POS no encontrado: {}", e.getMessage());
+            return ResponseEntity.status(404).build();
+        } catch (LoteNoAdmisibleException e) {
+            log.warn("Lote no admitido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (AdmisionRechazadaException e) {
+            log.debug("Lote no admitido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getEsperaSegundos()))
+                    .build();
+        } catch (SaturacionException e) {
+            log.error("Terminal POS saturado: {}", e.getMessage());
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+    
+    @GetMapping
+    @Operation(summary = "Consultar transacciones", 
+               description = "Lista las transacciones de la más reciente a la más antigua, filtradas por rango de "
+                       + "fechas [desde, hasta), estado, marca y modalidad. Para la página siguiente se envía el "
+                       + "cursor devuelto en la respuesta anterior")
+    @ApiResponse(responseCode = "200", description = "Página de transacciones")
+    @ApiResponse(responseCode = "400", description = "Filtros o cursor inválidos")
+    public ResponseEntity<?> consultarTransacciones(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String modalidad,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ConsultaTransaccionService.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina pagina = this.consultaService.consultar(
+                    new Filtro(desde, hasta, estado, marca, modalidad), cursor, limite);
+            
+            PaginaTransaccionesDTO paginaDTO = new PaginaTransaccionesDTO();
+            paginaDTO.setTransacciones(pagina.transacciones().stream().map(this.mapper::toDTO).toList());
+            paginaDTO.setSiguienteCursor(pagina.siguienteCursor());
+            return ResponseEntity.ok(paginaDTO);
+        } catch (ValidationException e) {
+            log.error("Consulta de transacciones inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/exportacion")
+    @Operation(summary = "Exportar transacciones", 
+               description = "Exporta las transacciones en CSV o NDJSON ordenadas por fecha ascendente, leyendo y "
+                       + "escribiendo fila por fila. Una exportación interrumpida se reanuda con despuesDe igual al "
+                       + "último codTransaccion recibido. Con gzip=true la respuesta es un archivo comprimido")
+    @ApiResponse(responseCode = "200", description = "Archivo de exportación")
+    @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    public void exportarTransacciones(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String despuesDe,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        Formato formatoExportacion;
+        Exportacion exportacion;
+        try {
+            formatoExportacion = Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.error("Formato de exportación no soportado: {}", formato);
+            response.sendError(400, "Formato de exportación no soportado: " + formato);
+            return;
+        }
+        try {
+            exportacion = this.exportacionService.preparar(desde, hasta, despuesDe);
+        } catch (ValidationException e) {
+            log.error("Exportación inválida: {}", e.getMessage());
+            response.sendError(400, e.getMessage());
+            return;
+        }
+        
+        String extension = formatoExportacion == Formato.CSV ? "csv" : "ndjson";
+        String archivo = "transacciones." + extension + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" 
+                : formatoExportacion == Formato.CSV ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + archivo + "\"");
+        
+        OutputStream salida = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream comprimido = new GZIPOutputStream(salida, 64 * 1024)) {
+                this.exportacionService.exportar(exportacion, formatoExportacion, comprimido);
+            }
+        } else {
+            this.exportacionService.exportar(exportacion, formatoExportacion, salida);
+        }
+    }
+    
+    @GetMapping("/{codigoUnicoTransaccion}/estado")
+    @Operation(summary = "Consultar estado de transacción", 
+               description = "Obtiene el estado actual (ENV, AUT o REC). Con esperaMs mayor a cero espera "
+                       + "hasta ese tiempo a que una transacción en curso termine")
+    @ApiResponse(responseCode = "200", description = "Estado de la transacción")
+    @ApiResponse(responseCode = "404", description = "Transacción no encontrada")
+    public DeferredResult<ResponseEntity<EstadoTransaccionDTO>> consultarEstado(
+            @PathVariable String codigoUnicoTransaccion,
+            @RequestParam(defaultValue = "0") long esperaMs) {
+        long espera = Math.min(Math.max(esperaMs, 0), MAXIMA_ESPERA_MS);
+        DeferredResult<ResponseEntity<EstadoTransaccionDTO>> respuesta = 
+                new DeferredResult<>(espera > 0 ? espera : null);
+        try {
+            if (espera == 0) {
+                respuesta.setResult(ResponseEntity.ok(this.mapper.toEstadoDTO(
+                        this.asincronaService.consultarEstado(codigoUnicoTransaccion))));
+                return respuesta;
+            }
+            
+            respuesta.onTimeout(() -> respuesta.setResult(ResponseEntity.ok(this.mapper.toEstadoDTO(
+                    this.asincronaService.consultarEstado(codigoUnicoTransaccion)))));
+            this.asincronaService.esperarResultado(codigoUnicoTransaccion).whenComplete((transaccion, error) -> {
+                if (error != null) {
+                    log.error("Error esperando la transacción {}: {}", codigoUnicoTransaccion, error.getMessage());
+                    respuesta.setResult(ResponseEntity.status(500).build());
+                } else {
+                    respuesta.setResult(ResponseEntity.ok(this.mapper.toEstadoDTO(transaccion)));
+                }
+            });
+        } catch (NotFoundException e) {
+            log.error("Transacción no encontrada: {}", e.getMessage());
+            respuesta.setResult(ResponseEntity.notFound().build());
+        }
+        return respuesta;
+    }
+    
+    private ResponseEntity<?> demasiadasSolicitudes(AdmisionRechazadaException e) {
+        // Un terminal desbordado genera muchos rechazos; se cuentan en pos.admision.rechazos
+        log.debug("Pago no admitido: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getEsperaSegundos()))
+                .body("Pago no aceptado, reintente en " + e.getEsperaMs() + " ms");
+    }
+    
+    private String validarSolicitudLote(TransaccionDTO transaccionDTO) {
+        Set<ConstraintViolation<TransaccionDTO>> violaciones = this.validator.validate(transaccionDTO);
+        if (!violaciones.isEmpty()) {
+            return violaciones.iterator().next().getMessage();
+        }
+        return normalizarSolicitud(transaccionDTO);
+    }
+    
+    private void enviarResultado(ResponseBodyEmitter emitter, ResultadoLote resultado) {
+        ResultadoLoteDTO resultadoDTO = resultado.transaccion() != null 
+                ? this.mapper.toResultadoLoteDTO(resultado.transaccion()) 
+                : new ResultadoLoteDTO();
+        resultadoDTO.setIndice(resultado.indice());
+        resultadoDTO.setError(resultado.error());
+        
+        synchronized (emitter) {
+            try {
+                emitter.send(resultadoDTO, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            } catch (IOException | IllegalStateException e) {
+                log.warn("No se pudo enviar el resultado {} del lote: {}", resultado.indice(), e.getMessage());
+            }
+        }
+    }
+    
+    private String normalizarSolicitud(TransaccionDTO transaccionDTO) {
+        transaccionDTO.setTipo("PAG");
+        
+        if (transaccionDTO.getModalidad() != null) {
+            if (!"SIM".equals(transaccionDTO.getModalidad()) && 
+                !"REC".equals(transaccionDTO.getModalidad()) && 
+                !"DIF".equals(transaccionDTO.getModalidad())) {
+                transaccionDTO.setModalidad("SIM");
+            }
+        } else {
+            transaccionDTO.setModalidad("SIM");
+        }
+        
+        if ("DIF".equals(transaccionDTO.getModalidad()) && 
+            (transaccionDTO.getPlazo() == null || transaccionDTO.getPlazo() <= 0)) {
+            log.error("Transacción diferida requiere un plazo válido");
+            return "La transacción diferida requiere un plazo válido";
+        }
+        
+        if ("REC".equals(transaccionDTO.getModalidad()) && 
+            (transaccionDTO.getFrecuenciaDias() == null || transaccionDTO.getFrecuenciaDias() <= 0)) {
+            log.error("Transacción recurrente requiere una frecuencia válida");
+            return "La transacción recurrente requiere una frecuencia válida";
+        }
+        return null;
+    }
+}
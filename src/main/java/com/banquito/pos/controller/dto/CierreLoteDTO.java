@@ -0,0 +1,32 @@
+package com.banquito.pos.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Cierre de lote de un terminal POS, o el lote abierto si no tiene código ni fecha de cierre")
+public class CierreLoteDTO {
+    
+    @Schema(description = "Código del cierre", example = "15")
+    private Integer codCierre;
+    
+    @Schema(description = "Código del terminal POS", example = "POS001")
+    private String codigoPos;
+    
+    @Schema(description = "Inicio del lote (cierre anterior)", example = "2023-01-01T00:00:00")
+    private LocalDateTime fechaInicio;
+    
+    @Schema(description = "Fecha del cierre", example = "2023-01-01T23:59:00")
+    private LocalDateTime fechaCierre;
+    
+    @Schema(description = "Número de transacciones AUT y REC del lote", example = "57")
+    private Long totalTransacciones;
+    
+    @Schema(description = "Totales por marca, modalidad, moneda y estado")
+    private List<TotalCierreDTO> totales;
+}
@@ -0,0 +1,35 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Cuota de un pago diferido")
+public class CuotaDiferidaDTO {
+    
+    @Schema(description = "Código del plan", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String codPlan;
+    
+    @Schema(description = "Número de la cuota, desde 1", example = "1")
+    private Integer numeroCuota;
+    
+    @Schema(description = "Código del comercio", example = "COM001")
+    private String codigoComercio;
+    
+    @Schema(description = "Fecha de vencimiento", example = "2023-02-01")
+    private LocalDate fechaVencimiento;
+    
+    @Schema(description = "Mes de vencimiento (AAAA-MM)", example = "2023-02")
+    private String periodo;
+    
+    @Schema(description = "Monto de la cuota", example = "33.33")
+    private BigDecimal monto;
+    
+    @Schema(description = "Moneda", example = "USD")
+    private String moneda;
+}
@@ -0,0 +1,28 @@
+package com.banquito.pos.controller.dto;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Estado actual de una transacción enviada al POS")
+public class EstadoTransaccionDTO {
+    
+    @Schema(description = "Código único de la transacción", example = "8a7b6c5d-4e3f-2g1h-0i9j-8k7l6m5n4o3p")
+    private String codigoUnicoTransaccion;
+    
+    @Schema(description = "Código del último registro de la transacción", example = "0010000A1B")
+    private String codTransaccion;
+    
+    @Schema(description = "Estado de la transacción: ENV (Enviada), AUT (Autorizada), REC (Rechazada)", example = "AUT")
+    private String estado;
+    
+    @Schema(description = "Detalle del resultado", example = "Transacción autorizada")
+    private String detalle;
+    
+    @Schema(description = "Fecha del último cambio de estado", example = "2023-01-01T10:30:00")
+    private LocalDateTime fecha;
+}
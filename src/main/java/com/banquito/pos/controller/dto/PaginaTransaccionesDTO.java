@@ -0,0 +1,20 @@
+package com.banquito.pos.controller.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Página de transacciones ordenadas de la más reciente a la más antigua")
+public class PaginaTransaccionesDTO {
+    
+    @Schema(description = "Transacciones de la página")
+    private List<TransaccionDTO> transacciones;
+    
+    @Schema(description = "Cursor para obtener la página siguiente; nulo si no hay más resultados", 
+            example = "MjAyNi0xMC0xOFQxOTo1MzoxOC4zODR8MDAxMDAwMDAwMQ")
+    private String siguienteCursor;
+}
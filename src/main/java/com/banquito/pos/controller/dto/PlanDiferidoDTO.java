@@ -0,0 +1,42 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Plan de cuotas de un pago diferido")
+public class PlanDiferidoDTO {
+    
+    @Schema(description = "Código del plan (código único del pago diferido)", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String codPlan;
+    
+    @Schema(description = "Código de la transacción autorizada", example = "TRX0000123")
+    private String codTransaccion;
+    
+    @Schema(description = "Código del comercio", example = "COM001")
+    private String codigoComercio;
+    
+    @Schema(description = "Marca de la tarjeta", example = "VISA")
+    private String marca;
+    
+    @Schema(description = "Monto total del pago", example = "100.00")
+    private BigDecimal monto;
+    
+    @Schema(description = "Moneda", example = "USD")
+    private String moneda;
+    
+    @Schema(description = "Número de cuotas", example = "3")
+    private Integer plazo;
+    
+    @Schema(description = "Fecha de autorización del pago", example = "2023-01-01T10:15:30")
+    private LocalDateTime fechaAutorizacion;
+    
+    @Schema(description = "Cuotas del plan en orden")
+    private List<CuotaDiferidaDTO> cuotas;
+}
@@ -0,0 +1,29 @@
+package com.banquito.pos.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Resultado de una transacción dentro de un lote")
+public class ResultadoLoteDTO {
+    
+    @Schema(description = "Posición de la transacción en el lote enviado", example = "0")
+    private Integer indice;
+    
+    @Schema(description = "Código único de la transacción", example = "8a7b6c5d-4e3f-2g1h-0i9j-8k7l6m5n4o3p")
+    private String codigoUnicoTransaccion;
+    
+    @Schema(description = "Código del registro de resultado", example = "0010000A1B")
+    private String codTransaccion;
+    
+    @Schema(description = "Estado de la transacción: AUT (Autorizada), REC (Rechazada)", example = "AUT")
+    private String estado;
+    
+    @Schema(description = "Detalle del resultado", example = "Transacción autorizada")
+    private String detalle;
+    
+    @Schema(description = "Motivo por el que la transacción no fue procesada", example = "El monto debe ser mayor a 0")
+    private String error;
+}
@@ -0,0 +1,25 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Cuotas por cobrar de un mes y moneda")
+public class ResumenCuotasDTO {
+    
+    @Schema(description = "Mes de vencimiento (AAAA-MM)", example = "2023-02")
+    private String periodo;
+    
+    @Schema(description = "Moneda", example = "USD")
+    private String moneda;
+    
+    @Schema(description = "Cantidad de cuotas", example = "42")
+    private Long cantidad;
+    
+    @Schema(description = "Monto por cobrar", example = "1399.86")
+    private BigDecimal monto;
+}
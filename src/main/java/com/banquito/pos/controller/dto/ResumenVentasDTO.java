@@ -0,0 +1,25 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Cantidad y monto de transacciones autorizadas y rechazadas")
+public class ResumenVentasDTO {
+    
+    @Schema(description = "Transacciones autorizadas", example = "120")
+    private Long cantidadAutorizadas;
+    
+    @Schema(description = "Monto autorizado", example = "15320.50")
+    private BigDecimal montoAutorizado;
+    
+    @Schema(description = "Transacciones rechazadas", example = "4")
+    private Long cantidadRechazadas;
+    
+    @Schema(description = "Monto rechazado", example = "410.00")
+    private BigDecimal montoRechazado;
+}
@@ -0,0 +1,47 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Suscripción creada por un pago recurrente")
+public class SuscripcionDTO {
+    
+    @Schema(description = "Código de la suscripción (código único del pago que la creó)", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String codSuscripcion;
+    
+    @Schema(description = "Marca de la tarjeta", example = "VISA")
+    private String marca;
+    
+    @Schema(description = "Monto de cada cobro", example = "9.99")
+    private BigDecimal monto;
+    
+    @Schema(description = "Moneda", example = "USD")
+    private String moneda;
+    
+    @Schema(description = "Días entre cobros", example = "30")
+    private Integer frecuenciaDias;
+    
+    @Schema(description = "Fecha del pago que creó la suscripción", example = "2023-01-01T10:15:30")
+    private LocalDateTime fechaCreacion;
+    
+    @Schema(description = "Fecha del próximo cobro", example = "2023-01-31T10:15:30")
+    private LocalDateTime proximoCobro;
+    
+    @Schema(description = "Fecha del último cobro exitoso", example = "2023-01-01T10:15:30")
+    private LocalDateTime ultimoCobro;
+    
+    @Schema(description = "Cobros exitosos, incluido el pago original", example = "1")
+    private Integer cobros;
+    
+    @Schema(description = "Cobros fallidos consecutivos", example = "0")
+    private Integer fallos;
+    
+    @Schema(description = "Estado: ACT (activa), SUS (suspendida por cobros fallidos), CAN (cancelada)", example = "ACT")
+    private String estado;
+}
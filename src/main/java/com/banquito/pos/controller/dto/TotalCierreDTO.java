@@ -0,0 +1,31 @@
+package com.banquito.pos.controller.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Total de un lote para una combinación de marca, modalidad, moneda y estado")
+public class TotalCierreDTO {
+    
+    @Schema(description = "Marca de la tarjeta", example = "VISA")
+    private String marca;
+    
+    @Schema(description = "Modalidad de pago", example = "SIM")
+    private String modalidad;
+    
+    @Schema(description = "Moneda", example = "USD")
+    private String moneda;
+    
+    @Schema(description = "Estado del resultado: AUT (Autorizada) o REC (Rechazada)", example = "AUT")
+    private String estado;
+    
+    @Schema(description = "Número de transacciones", example = "42")
+    private Long cantidad;
+    
+    @Schema(description = "Suma de los montos", example = "5271.00")
+    private BigDecimal monto;
+}
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -28,10 +29,9 @@ public class TransaccionDTO {
     @Schema(description = "Tipo de transacción: PAG (Pago)", example = "PAG")
     private String tipo;
     
-    @NotBlank(message = "La marca de la tarjeta es requerida")
     @Size(max = 4, message = "La marca no puede exceder los 4 caracteres")
     @Pattern(regexp = "VISA|MAST|AMEX|DISC", message = "La marca debe ser VISA, MAST (Mastercard), AMEX (American Express) o DISC (Discover)")
-    @Schema(description = "Marca de la tarjeta: VISA, MAST (Mastercard), AMEX (American Express), DISC (Discover)", example = "VISA")
+    @Schema(description = "Marca de la tarjeta: VISA, MAST (Mastercard), AMEX (American Express), DISC (Discover). Si se omite, se toma del BIN del número de tarjeta", example = "VISA")
     private String marca;
     
     @NotBlank(message = "La modalidad es requerida")
@@ -68,7 +68,7 @@ public class TransaccionDTO {
     @Schema(description = "Moneda de la transacción: USD, EUR, MXN", example = "USD")
     private String moneda;
     
-    @Pattern(regexp = "^[0-9]{16}$", message = "El número de tarjeta debe tener 16 dígitos")
+    @Pattern(regexp = "^[0-9]{13,19}$", message = "El número de tarjeta debe tener entre 13 y 19 dígitos")
     @Schema(description = "Número de tarjeta (enmascarado)", example = "************1234")
     private String numeroTarjeta;
     
@@ -80,7 +80,8 @@ public class TransaccionDTO {
     private Integer frecuenciaDias;
     
     @Min(value = 1, message = "El plazo debe ser mayor a cero")
-    @Schema(description = "Número de meses para pagos diferidos (para modalidad DIF)", example = "12")
+    @Max(value = 48, message = "El plazo no puede superar 48 meses")
+    @Schema(description = "Número de meses para pagos diferidos (para modalidad DIF), hasta 48", example = "12")
     private Integer plazo;
     
     @Pattern(regexp = "^[0-9]{3,4}$", message = "El CVV debe tener 3 o 4 dígitos")
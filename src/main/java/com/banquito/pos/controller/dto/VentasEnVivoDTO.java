@@ -0,0 +1,30 @@
+package com.banquito.pos.controller.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Ventas del día en curso del terminal POS")
+public class VentasEnVivoDTO {
+    
+    @Schema(description = "Día de las ventas", example = "2023-01-01")
+    private LocalDate fecha;
+    
+    @Schema(description = "Totales del día")
+    private ResumenVentasDTO total;
+    
+    @Schema(description = "Totales por marca de tarjeta")
+    private Map<String, ResumenVentasDTO> porMarca;
+    
+    @Schema(description = "Totales por modalidad de pago")
+    private Map<String, ResumenVentasDTO> porModalidad;
+    
+    @Schema(description = "Totales por hora del día; la posición en la lista es la hora (0 a 23)")
+    private List<ResumenVentasDTO> porHora;
+}
@@ -0,0 +1,32 @@
+package com.banquito.pos.controller.mapper;
+
+import java.util.List;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+import com.banquito.pos.controller.dto.CierreLoteDTO;
+import com.banquito.pos.controller.dto.TotalCierreDTO;
+import com.banquito.pos.model.CierreLote;
+import com.banquito.pos.model.CierreLoteDetalle;
+import com.banquito.pos.service.CierreLoteService.Cierre;
+
+@Mapper(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.IGNORE
+)
+public interface CierreLoteMapper {
+    
+    CierreLoteDTO toDTO(CierreLote model);
+    
+    TotalCierreDTO toDTO(CierreLoteDetalle model);
+    
+    List<TotalCierreDTO> toDTO(List<CierreLoteDetalle> models);
+    
+    default CierreLoteDTO toDTO(Cierre cierre) {
+        CierreLoteDTO dto = toDTO(cierre.cierre());
+        dto.setTotales(toDTO(cierre.detalles()));
+        return dto;
+    }
+}
@@ -0,0 +1,31 @@
+package com.banquito.pos.controller.mapper;
+
+import java.util.List;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+import com.banquito.pos.controller.dto.CuotaDiferidaDTO;
+import com.banquito.pos.controller.dto.PlanDiferidoDTO;
+import com.banquito.pos.controller.dto.ResumenCuotasDTO;
+import com.banquito.pos.model.CuotaDiferida;
+import com.banquito.pos.model.PlanDiferido;
+import com.banquito.pos.service.PlanDiferidoService.ResumenCuotas;
+
+@Mapper(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.IGNORE
+)
+public interface PlanDiferidoMapper {
+    
+    PlanDiferidoDTO toDTO(PlanDiferido model, List<CuotaDiferida> cuotas);
+    
+    CuotaDiferidaDTO toDTO(CuotaDiferida model);
+    
+    List<CuotaDiferidaDTO> toCuotasDTO(List<CuotaDiferida> cuotas);
+    
+    ResumenCuotasDTO toDTO(ResumenCuotas resumen);
+    
+    List<ResumenCuotasDTO> toResumenDTO(List<ResumenCuotas> resumen);
+}
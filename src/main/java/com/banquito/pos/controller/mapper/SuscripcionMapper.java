@@ -0,0 +1,17 @@
+package com.banquito.pos.controller.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+import com.banquito.pos.controller.dto.SuscripcionDTO;
+import com.banquito.pos.model.Suscripcion;
+
+@Mapper(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.IGNORE
+)
+public interface SuscripcionMapper {
+    
+    SuscripcionDTO toDTO(Suscripcion model);
+}
@@ -1,9 +1,12 @@
 package com.banquito.pos.controller.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 import org.mapstruct.ReportingPolicy;
 
+import com.banquito.pos.controller.dto.EstadoTransaccionDTO;
+import com.banquito.pos.controller.dto.ResultadoLoteDTO;
 import com.banquito.pos.controller.dto.TransaccionDTO;
 import com.banquito.pos.model.Transaccion;
 
@@ -15,5 +18,10 @@ public interface TransaccionMapper {
     
     TransaccionDTO toDTO(Transaccion model);
     
+    @Mapping(target = "codigoUnicoTransaccion", ignore = true)
     Transaccion toModel(TransaccionDTO dto);
+    
+    EstadoTransaccionDTO toEstadoDTO(Transaccion model);
+    
+    ResultadoLoteDTO toResultadoLoteDTO(Transaccion model);
 } 
\ No newline at end of file
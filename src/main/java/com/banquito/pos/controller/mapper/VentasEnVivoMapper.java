@@ -0,0 +1,21 @@
+package com.banquito.pos.controller.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+import com.banquito.pos.controller.dto.ResumenVentasDTO;
+import com.banquito.pos.controller.dto.VentasEnVivoDTO;
+import com.banquito.pos.service.VentasEnVivoService.Resumen;
+import com.banquito.pos.service.VentasEnVivoService.Ventas;
+
+@Mapper(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.IGNORE
+)
+public interface VentasEnVivoMapper {
+    
+    VentasEnVivoDTO toDTO(Ventas ventas);
+    
+    ResumenVentasDTO toDTO(Resumen resumen);
+}
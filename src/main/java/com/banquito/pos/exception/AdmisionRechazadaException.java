@@ -0,0 +1,34 @@
+package com.banquito.pos.exception;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdmisionRechazadaException extends RuntimeException {
+    
+    private final String ambito;
+    private final String clave;
+    private final long esperaNanos;
+    
+    public AdmisionRechazadaException(String ambito, String clave, long esperaNanos) {
+        super();
+        this.ambito = ambito;
+        this.clave = clave;
+        this.esperaNanos = esperaNanos;
+    }
+    
+    public long getEsperaMs() {
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(this.esperaNanos + 999_999), 1);
+    }
+    
+    /**
+     * Valor de la cabecera Retry-After, que solo admite segundos enteros.
+     */
+    public long getEsperaSegundos() {
+        return Math.max(TimeUnit.NANOSECONDS.toSeconds(this.esperaNanos + 999_999_999), 1);
+    }
+    
+    @Override
+    public String getMessage() {
+        return "Límite de pagos excedido para el " + this.ambito + " " + this.clave
+                + ", reintentar en " + getEsperaMs() + " ms";
+    }
+}
@@ -0,0 +1,16 @@
+package com.banquito.pos.exception;
+
+public class ClaveIdempotenciaReutilizadaException extends RuntimeException {
+    
+    private final String clave;
+    
+    public ClaveIdempotenciaReutilizadaException(String clave) {
+        super();
+        this.clave = clave;
+    }
+    
+    @Override
+    public String getMessage() {
+        return "La clave de idempotencia " + this.clave + " ya fue usada con otra solicitud";
+    }
+}
@@ -0,0 +1,27 @@
+package com.banquito.pos.exception;
+
+public class LoteNoAdmisibleException extends RuntimeException {
+    
+    private final String ambito;
+    private final String clave;
+    private final int pagos;
+    private final int rafaga;
+    
+    public LoteNoAdmisibleException(String ambito, String clave, int pagos, int rafaga) {
+        super();
+        this.ambito = ambito;
+        this.clave = clave;
+        this.pagos = pagos;
+        this.rafaga = rafaga;
+    }
+    
+    public int getRafaga() {
+        return this.rafaga;
+    }
+    
+    @Override
+    public String getMessage() {
+        return "El lote de " + this.pagos + " pagos excede la ráfaga de " + this.rafaga
+                + " pagos del " + this.ambito + " " + this.clave;
+    }
+}
@@ -0,0 +1,16 @@
+package com.banquito.pos.exception;
+
+public class SaturacionException extends RuntimeException {
+    
+    private final String recurso;
+    
+    public SaturacionException(String recurso) {
+        super();
+        this.recurso = recurso;
+    }
+    
+    @Override
+    public String getMessage() {
+        return "Capacidad agotada para: " + this.recurso;
+    }
+}
@@ -0,0 +1,59 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_CIERRE_LOTE")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class CierreLote implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "COD_CIERRE", nullable = false)
+    private Integer codCierre;
+
+    @Column(name = "CODIGO_POS", length = 10)
+    private String codigoPos;
+
+    @Column(name = "FECHA_INICIO", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "FECHA_CIERRE", nullable = false)
+    private LocalDateTime fechaCierre;
+
+    @Column(name = "TOTAL_TRANSACCIONES", nullable = false)
+    private Long totalTransacciones;
+
+    public CierreLote(Integer codCierre) {
+        this.codCierre = codCierre;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CierreLote that = (CierreLote) o;
+        return Objects.equals(codCierre, that.codCierre);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codCierre);
+    }
+}
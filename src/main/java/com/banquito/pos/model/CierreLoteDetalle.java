@@ -0,0 +1,68 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_CIERRE_LOTE_DETALLE")
+@IdClass(CierreLoteDetallePK.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class CierreLoteDetalle implements Serializable {
+
+    @Id
+    @Column(name = "COD_CIERRE", nullable = false)
+    private Integer codCierre;
+
+    @Id
+    @Column(name = "MARCA", length = 4, nullable = false)
+    private String marca;
+
+    @Id
+    @Column(name = "MODALIDAD", length = 3, nullable = false)
+    private String modalidad;
+
+    @Id
+    @Column(name = "MONEDA", length = 3, nullable = false)
+    private String moneda;
+
+    @Id
+    @Column(name = "ESTADO", length = 3, nullable = false)
+    private String estado;
+
+    @Column(name = "CANTIDAD", nullable = false)
+    private Long cantidad;
+
+    @Column(name = "MONTO", precision = 20, scale = 2, nullable = false)
+    private BigDecimal monto;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CierreLoteDetalle that = (CierreLoteDetalle) o;
+        return Objects.equals(codCierre, that.codCierre) && 
+               Objects.equals(marca, that.marca) && 
+               Objects.equals(modalidad, that.modalidad) && 
+               Objects.equals(moneda, that.moneda) && 
+               Objects.equals(estado, that.estado);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codCierre, marca, modalidad, moneda, estado);
+    }
+}
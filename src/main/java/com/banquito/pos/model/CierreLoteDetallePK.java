@@ -0,0 +1,39 @@
+package com.banquito.pos.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CierreLoteDetallePK implements Serializable {
+    
+    private Integer codCierre;
+    private String marca;
+    private String modalidad;
+    private String moneda;
+    private String estado;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CierreLoteDetallePK that = (CierreLoteDetallePK) o;
+        return Objects.equals(codCierre, that.codCierre) && 
+               Objects.equals(marca, that.marca) && 
+               Objects.equals(modalidad, that.modalidad) && 
+               Objects.equals(moneda, that.moneda) && 
+               Objects.equals(estado, that.estado);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codCierre, marca, modalidad, moneda, estado);
+    }
+}
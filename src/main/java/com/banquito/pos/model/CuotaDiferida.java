@@ -0,0 +1,68 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_CUOTA_DIFERIDA")
+@IdClass(CuotaDiferidaPK.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class CuotaDiferida implements Serializable {
+
+    @Id
+    @Column(name = "COD_PLAN", length = 64, nullable = false)
+    private String codPlan;
+
+    @Id
+    @Column(name = "NUMERO_CUOTA", nullable = false)
+    private Integer numeroCuota;
+
+    @Column(name = "CODIGO_COMERCIO", length = 10, nullable = false)
+    private String codigoComercio;
+
+    @Column(name = "FECHA_VENCIMIENTO", nullable = false)
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "PERIODO", length = 7, nullable = false)
+    private String periodo;
+
+    @Column(name = "MONTO", precision = 20, scale = 2, nullable = false)
+    private BigDecimal monto;
+
+    @Column(name = "MONEDA", length = 3, nullable = false)
+    private String moneda;
+
+    public CuotaDiferida(String codPlan, Integer numeroCuota) {
+        this.codPlan = codPlan;
+        this.numeroCuota = numeroCuota;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CuotaDiferida that = (CuotaDiferida) o;
+        return Objects.equals(codPlan, that.codPlan) && 
+               Objects.equals(numeroCuota, that.numeroCuota);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codPlan, numeroCuota);
+    }
+}
@@ -0,0 +1,33 @@
+package com.banquito.pos.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CuotaDiferidaPK implements Serializable {
+    
+    private String codPlan;
+    private Integer numeroCuota;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CuotaDiferidaPK that = (CuotaDiferidaPK) o;
+        return Objects.equals(codPlan, that.codPlan) && 
+               Objects.equals(numeroCuota, that.numeroCuota);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codPlan, numeroCuota);
+    }
+}
@@ -0,0 +1,66 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_PLAN_DIFERIDO")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class PlanDiferido implements Serializable {
+
+    @Id
+    @Column(name = "COD_PLAN", length = 64, nullable = false)
+    private String codPlan;
+
+    @Column(name = "COD_TRANSACCION", length = 10, nullable = false)
+    private String codTransaccion;
+
+    @Column(name = "CODIGO_COMERCIO", length = 10, nullable = false)
+    private String codigoComercio;
+
+    @Column(name = "MARCA", length = 4, nullable = false)
+    private String marca;
+
+    @Column(name = "MONTO", precision = 20, scale = 2, nullable = false)
+    private BigDecimal monto;
+
+    @Column(name = "MONEDA", length = 3, nullable = false)
+    private String moneda;
+
+    @Column(name = "PLAZO", nullable = false)
+    private Integer plazo;
+
+    @Column(name = "FECHA_AUTORIZACION", nullable = false)
+    private LocalDateTime fechaAutorizacion;
+
+    public PlanDiferido(String codPlan) {
+        this.codPlan = codPlan;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PlanDiferido that = (PlanDiferido) o;
+        return Objects.equals(codPlan, that.codPlan);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codPlan);
+    }
+}
@@ -0,0 +1,51 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_SECUENCIA_TRANSACCION")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SecuenciaTransaccion implements Serializable {
+
+    @Id
+    @Column(name = "PREFIJO", length = 3, nullable = false)
+    private String prefijo;
+
+    @Column(name = "CODIGO_POS", length = 10)
+    private String codigoPos;
+
+    @Column(name = "SIGUIENTE", nullable = false)
+    private Long siguiente;
+
+    public SecuenciaTransaccion(String prefijo, String codigoPos, Long siguiente) {
+        this.prefijo = prefijo;
+        this.codigoPos = codigoPos;
+        this.siguiente = siguiente;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SecuenciaTransaccion that = (SecuenciaTransaccion) o;
+        return Objects.equals(prefijo, that.prefijo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(prefijo);
+    }
+}
@@ -0,0 +1,78 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_SUSCRIPCION")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "solicitud")
+public class Suscripcion implements Serializable {
+
+    @Id
+    @Column(name = "COD_SUSCRIPCION", length = 64, nullable = false)
+    private String codSuscripcion;
+
+    @Column(name = "MARCA", length = 4, nullable = false)
+    private String marca;
+
+    @Column(name = "MONTO", precision = 20, scale = 2, nullable = false)
+    private BigDecimal monto;
+
+    @Column(name = "MONEDA", length = 3, nullable = false)
+    private String moneda;
+
+    @Column(name = "FRECUENCIA_DIAS", nullable = false)
+    private Integer frecuenciaDias;
+
+    @Column(name = "FECHA_CREACION", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "PROXIMO_COBRO", nullable = false)
+    private LocalDateTime proximoCobro;
+
+    @Column(name = "ULTIMO_COBRO")
+    private LocalDateTime ultimoCobro;
+
+    @Column(name = "COBROS", nullable = false)
+    private Integer cobros;
+
+    @Column(name = "FALLOS", nullable = false)
+    private Integer fallos;
+
+    @Column(name = "ESTADO", length = 3, nullable = false)
+    private String estado;
+
+    @Column(name = "SOLICITUD", length = 4000, nullable = false)
+    private String solicitud;
+
+    public Suscripcion(String codSuscripcion) {
+        this.codSuscripcion = codSuscripcion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Suscripcion that = (Suscripcion) o;
+        return Objects.equals(codSuscripcion, that.codSuscripcion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codSuscripcion);
+    }
+}
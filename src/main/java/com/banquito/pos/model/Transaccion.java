@@ -56,6 +56,12 @@ public class Transaccion implements Serializable {
 
     @Column(name = "MONEDA", length = 3, nullable = false)
     private String moneda;
+
+    @Column(name = "CODIGO_POS", length = 10)
+    private String codigoPos;
+
+    @Column(name = "HUELLA_SOLICITUD", length = 64)
+    private String huellaSolicitud;
     
     @Transient
     private Integer plazo;
@@ -71,6 +77,9 @@ public class Transaccion implements Serializable {
     
     @Transient
     private Integer frecuenciaDias;
+    
+    @Transient
+    private String codSuscripcion;
 
     public Transaccion(String codTransaccion) {
         this.codTransaccion = codTransaccion;
@@ -0,0 +1,64 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Estados por los que pasó una transacción (ENV y luego AUT o REC), uno por fila y sin
+ * modificaciones posteriores.
+ */
+@Entity
+@Table(name = "POS_TRANSACCION_HISTORIAL")
+@IdClass(TransaccionHistorialPK.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class TransaccionHistorial implements Serializable {
+
+    @Id
+    @Column(name = "COD_TRANSACCION", length = 10, nullable = false)
+    private String codTransaccion;
+
+    @Id
+    @Column(name = "ESTADO", length = 3, nullable = false)
+    private String estado;
+
+    @Column(name = "FECHA", nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "DETALLE", length = 50)
+    private String detalle;
+
+    public TransaccionHistorial(String codTransaccion, String estado, LocalDateTime fecha, String detalle) {
+        this.codTransaccion = codTransaccion;
+        this.estado = estado;
+        this.fecha = fecha;
+        this.detalle = detalle;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransaccionHistorial that = (TransaccionHistorial) o;
+        return Objects.equals(codTransaccion, that.codTransaccion) && 
+               Objects.equals(estado, that.estado);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codTransaccion, estado);
+    }
+}
@@ -0,0 +1,33 @@
+package com.banquito.pos.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransaccionHistorialPK implements Serializable {
+    
+    private String codTransaccion;
+    private String estado;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransaccionHistorialPK that = (TransaccionHistorialPK) o;
+        return Objects.equals(codTransaccion, that.codTransaccion) && 
+               Objects.equals(estado, that.estado);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codTransaccion, estado);
+    }
+}
@@ -0,0 +1,59 @@
+package com.banquito.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "POS_TRANSACCION_OFFLINE")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "solicitud")
+public class TransaccionOffline implements Serializable {
+
+    @Id
+    @Column(name = "COD_TRANSACCION", length = 10, nullable = false)
+    private String codTransaccion;
+
+    @Column(name = "CODIGO_UNICO_TRANSACCION", length = 64, nullable = false)
+    private String codigoUnicoTransaccion;
+
+    @Column(name = "FECHA", nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "SOLICITUD", length = 4000, nullable = false)
+    private String solicitud;
+
+    @Column(name = "INTENTOS", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "ULTIMO_ERROR", length = 200)
+    private String ultimoError;
+
+    public TransaccionOffline(String codTransaccion) {
+        this.codTransaccion = codTransaccion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransaccionOffline that = (TransaccionOffline) o;
+        return Objects.equals(codTransaccion, that.codTransaccion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(codTransaccion);
+    }
+}
@@ -0,0 +1,15 @@
+package com.banquito.pos.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.CierreLoteDetalle;
+import com.banquito.pos.model.CierreLoteDetallePK;
+
+@Repository
+public interface CierreLoteDetalleRepository extends JpaRepository<CierreLoteDetalle, CierreLoteDetallePK> {
+    
+    List<CierreLoteDetalle> findByCodCierre(Integer codCierre);
+}
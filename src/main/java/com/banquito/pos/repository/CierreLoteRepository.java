@@ -0,0 +1,20 @@
+package com.banquito.pos.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.CierreLote;
+
+@Repository
+public interface CierreLoteRepository extends JpaRepository<CierreLote, Integer> {
+    
+    List<CierreLote> findByCodigoPosOrderByFechaCierreDesc(String codigoPos, Pageable pageable);
+    
+    @Query("SELECT c.codigoPos, MAX(c.fechaCierre) FROM CierreLote c "
+            + "WHERE c.codigoPos IS NOT NULL GROUP BY c.codigoPos")
+    List<Object[]> findUltimosCierres();
+}
@@ -0,0 +1,274 @@
+package com.banquito.pos.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Serializa las escrituras en un único hilo escritor. SQLite admite un solo escritor a la
+ * vez, por lo que encolar las escrituras evita que los hilos de las peticiones compitan
+ * por el bloqueo de la base de datos y terminen con SQLITE_BUSY.
+ * <p>
+ * El escritor agrupa las operaciones que llegan dentro de una ventana corta y las confirma
+ * en una sola transacción (group commit); cada llamador recibe su resultado solo después
+ * del commit. Si el lote falla, sus operaciones se reintentan de forma individual para que
+ * el error afecte únicamente a la operación que lo provocó. Las operaciones fallidas se
+ * cuentan en pos.persistencia.errores según sean bloqueos de SQLite o claves duplicadas.
+ */
+@Component
+public class ColaEscrituraSqlite {
+
+    private static final Logger log = LoggerFactory.getLogger(ColaEscrituraSqlite.class);
+    
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Escritura<?>> cola;
+    private final boolean habilitada;
+    private final long esperaEncoladoMs;
+    private final long ventanaNanos;
+    private final int maximoLote;
+    private final DistributionSummary tamanoLote;
+    private final MeterRegistry registry;
+    private final Thread escritor;
+    
+    private volatile boolean activa = true;
+    
+    public ColaEscrituraSqlite(PlatformTransactionManager transactionManager, MeterRegistry registry,
+            @Value("${pos.sqlite.modo-concurrente:true}") boolean habilitada,
+            @Value("${pos.sqlite.cola-escritura.capacidad:10000}") int capacidad,
+            @Value("${pos.sqlite.cola-escritura.espera-encolado-ms:5000}") long esperaEncoladoMs,
+            @Value("${pos.sqlite.cola-escritura.ventana-ms:2}") long ventanaMs,
+            @Value("${pos.sqlite.cola-escritura.maximo-lote:128}") int maximoLote) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.habilitada = habilitada;
+        this.esperaEncoladoMs = esperaEncoladoMs;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        this.maximoLote = maximoLote;
+        this.tamanoLote = DistributionSummary.builder("pos.sqlite.escritura.lote")
+                .description("Operaciones confirmadas por cada transacción del escritor SQLite")
+                .register(registry);
+        this.registry = registry;
+        this.escritor = new Thread(this::procesar, "sqlite-escritor");
+        this.escritor.setDaemon(true);
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        if (this.habilitada) {
+            this.escritor.start();
+        }
+    }
+    
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        this.activa = false;
+        if (this.escritor.isAlive()) {
+            this.escritor.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+    
+    public <T> T ejecutar(Supplier<T> operacion) {
+        try {
+            return ejecutarEnEscritor(operacion);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread() != this.escritor) {
+                registrarError(e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Encola la operación sin esperar su commit: el futuro se completa después del commit.
+     * Si la cola está llena el futuro falla de inmediato en lugar de bloquear al llamador.
+     */
+    public <T> CompletableFuture<T> encolar(Supplier<T> operacion) {
+        if (!this.habilitada || Thread.currentThread() == this.escritor) {
+            try {
+                return CompletableFuture.completedFuture(ejecutar(operacion));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        
+        Escritura<T> escritura = new Escritura<>(operacion);
+        if (!this.activa || !this.cola.offer(escritura)) {
+            IllegalStateException error = new IllegalStateException("La cola de escritura SQLite no acepta más operaciones");
+            registrarError(error);
+            return CompletableFuture.failedFuture(error);
+        }
+        return escritura.resultado.whenComplete((resultado, error) -> {
+            if (error instanceof RuntimeException runtime) {
+                registrarError(runtime);
+            }
+        });
+    }
+    
+    private <T> T ejecutarEnEscritor(Supplier<T> operacion) {
+        if (!this.habilitada || Thread.currentThread() == this.escritor) {
+            return this.transactionTemplate.execute(status -> operacion.get());
+        }
+        
+        Escritura<T> escritura = new Escritura<>(operacion);
+        try {
+            if (!this.activa || !this.cola.offer(escritura, this.esperaEncoladoMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("La cola de escritura SQLite no acepta más operaciones");
+            }
+            return escritura.resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la escritura en SQLite", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    private void registrarError(RuntimeException error) {
+        Counter.builder("pos.persistencia.errores")
+                .tag("tipo", tipoError(error))
+                .description("Escrituras en SQLite que fallaron, por tipo de error")
+                .register(this.registry)
+                .increment();
+    }
+    
+    private static String tipoError(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLiteException sqlite) {
+                SQLiteErrorCode codigo = sqlite.getResultCode();
+                if (codigo.name().startsWith("SQLITE_BUSY") || codigo.name().startsWith("SQLITE_LOCKED")) {
+                    return "bloqueo";
+                }
+                if (codigo == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE 
+                        || codigo == SQLiteErrorCode.SQLITE_CONSTRAINT_PRIMARYKEY) {
+                    return "duplicado";
+                }
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        if (error instanceof PessimisticLockingFailureException) {
+            return "bloqueo";
+        }
+        if (error instanceof DataIntegrityViolationException) {
+            return "integridad";
+        }
+        return "otro";
+    }
+    
+    private void procesar() {
+        List<Escritura<?>> lote = new ArrayList<>(this.maximoLote);
+        while (this.activa || !this.cola.isEmpty()) {
+            try {
+                Escritura<?> primera = this.cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                completarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lote.forEach(escritura -> escritura.fallar(new IllegalStateException("Escritor SQLite interrumpido")));
+                return;
+            }
+            confirmar(lote);
+            lote.clear();
+        }
+        log.info("Hilo escritor de SQLite detenido");
+    }
+    
+    private void completarLote(List<Escritura<?>> lote) throws InterruptedException {
+        long limite = System.nanoTime() + this.ventanaNanos;
+        while (lote.size() < this.maximoLote) {
+            Escritura<?> siguiente = this.cola.poll();
+            if (siguiente == null) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    return;
+                }
+                siguiente = this.cola.poll(restante, TimeUnit.NANOSECONDS);
+                if (siguiente == null) {
+                    return;
+                }
+            }
+            lote.add(siguiente);
+        }
+    }
+    
+    private void confirmar(List<Escritura<?>> lote) {
+        this.tamanoLote.record(lote.size());
+        try {
+            List<Object> resultados = this.transactionTemplate.execute(status -> {
+                List<Object> parciales = new ArrayList<>(lote.size());
+                for (Escritura<?> escritura : lote) {
+                    parciales.add(escritura.operacion.get());
+                }
+                return parciales;
+            });
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).completar(resultados.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                lote.get(0).fallar(e);
+                return;
+            }
+            log.warn("Falló el lote de {} escrituras, reintentando individualmente: {}", lote.size(), e.getMessage());
+            for (Escritura<?> escritura : lote) {
+                escritura.ejecutarSola(this.transactionTemplate);
+            }
+        }
+    }
+    
+    private static final class Escritura<T> {
+        
+        private final Supplier<T> operacion;
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        
+        Escritura(Supplier<T> operacion) {
+            this.operacion = operacion;
+        }
+        
+        @SuppressWarnings("unchecked")
+        void completar(Object valor) {
+            this.resultado.complete((T) valor);
+        }
+        
+        void fallar(RuntimeException e) {
+            this.resultado.completeExceptionally(e);
+        }
+        
+        void ejecutarSola(TransactionTemplate transactionTemplate) {
+            try {
+                this.resultado.complete(transactionTemplate.execute(status -> this.operacion.get()));
+            } catch (RuntimeException e) {
+                this.resultado.completeExceptionally(e);
+            }
+        }
+    }
+}
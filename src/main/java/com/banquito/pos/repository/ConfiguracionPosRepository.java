@@ -13,5 +13,5 @@ public interface ConfiguracionPosRepository extends JpaRepository<ConfiguracionP
     
     ConfiguracionPos findByDireccionMac(String direccionMac);
     
-    ConfiguracionPos findByCodigoComercio(String codigoComercio);
+    ConfiguracionPos findFirstByCodigoComercioOrderByCodigoPosAsc(String codigoComercio);
 } 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.banquito.pos.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.CuotaDiferida;
+import com.banquito.pos.model.CuotaDiferidaPK;
+
+@Repository
+public interface CuotaDiferidaRepository extends JpaRepository<CuotaDiferida, CuotaDiferidaPK> {
+    
+    List<CuotaDiferida> findByCodPlanOrderByNumeroCuota(String codPlan);
+    
+    List<CuotaDiferida> findByFechaVencimientoBetweenOrderByFechaVencimientoAscCodPlanAscNumeroCuotaAsc(
+            LocalDate desde, LocalDate hasta, Pageable pageable);
+    
+    List<CuotaDiferida> findByCodigoComercioAndFechaVencimientoBetweenOrderByFechaVencimientoAscCodPlanAscNumeroCuotaAsc(
+            String codigoComercio, LocalDate desde, LocalDate hasta, Pageable pageable);
+    
+    /**
+     * Cuotas por vencer agrupadas por mes de vencimiento y moneda, con el monto en centavos
+     * enteros; el período (AAAA-MM) se guarda al crear el plan para no calcularlo aquí.
+     */
+    @Query(value = "SELECT PERIODO, MONEDA, COUNT(*), SUM(CAST(ROUND(MONTO * 100) AS INTEGER)) "
+            + "FROM POS_CUOTA_DIFERIDA WHERE FECHA_VENCIMIENTO BETWEEN :desde AND :hasta "
+            + "GROUP BY PERIODO, MONEDA ORDER BY PERIODO, MONEDA", nativeQuery = true)
+    List<Object[]> totalizarPorPeriodo(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+    
+    @Query(value = "SELECT PERIODO, MONEDA, COUNT(*), SUM(CAST(ROUND(MONTO * 100) AS INTEGER)) "
+            + "FROM POS_CUOTA_DIFERIDA WHERE CODIGO_COMERCIO = :codigoComercio "
+            + "AND FECHA_VENCIMIENTO BETWEEN :desde AND :hasta "
+            + "GROUP BY PERIODO, MONEDA ORDER BY PERIODO, MONEDA", nativeQuery = true)
+    List<Object[]> totalizarPorPeriodo(@Param("codigoComercio") String codigoComercio, 
+            @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
@@ -0,0 +1,10 @@
+package com.banquito.pos.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.PlanDiferido;
+
+@Repository
+public interface PlanDiferidoRepository extends JpaRepository<PlanDiferido, String> {
+}
@@ -0,0 +1,28 @@
+package com.banquito.pos.repository;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.SecuenciaTransaccion;
+
+@Repository
+public interface SecuenciaTransaccionRepository extends JpaRepository<SecuenciaTransaccion, String> {
+    
+    Optional<SecuenciaTransaccion> findByCodigoPos(String codigoPos);
+    
+    @Query("SELECT s.prefijo FROM SecuenciaTransaccion s")
+    Set<String> findPrefijos();
+    
+    @Query("SELECT s.siguiente FROM SecuenciaTransaccion s WHERE s.prefijo = :prefijo")
+    Optional<Long> findSiguiente(@Param("prefijo") String prefijo);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SecuenciaTransaccion s SET s.siguiente = s.siguiente + :cantidad WHERE s.prefijo = :prefijo")
+    int incrementar(@Param("prefijo") String prefijo, @Param("cantidad") long cantidad);
+}
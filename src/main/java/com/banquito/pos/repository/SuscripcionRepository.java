@@ -0,0 +1,28 @@
+package com.banquito.pos.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.Suscripcion;
+
+@Repository
+public interface SuscripcionRepository extends JpaRepository<Suscripcion, String> {
+    
+    /**
+     * Suscripciones activas con cobro hasta {@code hasta}, posteriores en orden
+     * (PROXIMO_COBRO, COD_SUSCRIPCION) a la última cargada. La condición redundante
+     * {@code proximoCobro >= :fecha} permite recorrer IDX_SUSCRIPCION_COBRO como un rango.
+     */
+    @Query("SELECT s FROM Suscripcion s WHERE s.estado = 'ACT' AND s.proximoCobro <= :hasta "
+            + "AND s.proximoCobro >= :fecha "
+            + "AND (s.proximoCobro > :fecha OR (s.proximoCobro = :fecha AND s.codSuscripcion > :codigo)) "
+            + "ORDER BY s.proximoCobro, s.codSuscripcion")
+    List<Suscripcion> findSiguientes(@Param("hasta") LocalDateTime hasta, @Param("fecha") LocalDateTime fecha,
+            @Param("codigo") String codigo, Pageable pageable);
+}
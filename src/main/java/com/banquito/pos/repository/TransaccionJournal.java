@@ -0,0 +1,77 @@
+package com.banquito.pos.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.model.TransaccionHistorial;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Punto único de escritura de POS_TRANSACCION. Las operaciones pasan por
+ * {@link ColaEscrituraSqlite}, que confirma en una misma transacción las escrituras
+ * concurrentes de varias peticiones; los métodos retornan solo después del commit.
+ * <p>
+ * Cada pago es una sola fila que se inserta en ENV y pasa a AUT o REC con un UPDATE
+ * condicionado al estado ENV, de modo que solo el primer resultado se aplica. Cada
+ * estado se agrega a POS_TRANSACCION_HISTORIAL en la misma transacción.
+ */
+@Component
+public class TransaccionJournal {
+    
+    private final ColaEscrituraSqlite colaEscritura;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public TransaccionJournal(ColaEscrituraSqlite colaEscritura) {
+        this.colaEscritura = colaEscritura;
+    }
+    
+    public Transaccion insertar(Transaccion transaccion) {
+        return this.colaEscritura.ejecutar(() -> {
+            persistir(transaccion);
+            return transaccion;
+        });
+    }
+    
+    public List<Transaccion> insertarTodas(List<Transaccion> transacciones) {
+        return this.colaEscritura.ejecutar(() -> {
+            transacciones.forEach(this::persistir);
+            return transacciones;
+        });
+    }
+    
+    /**
+     * Pasa la transacción de ENV a {@code estado}; retorna false si ya tenía un resultado,
+     * en cuyo caso no se modifica.
+     */
+    public boolean registrarResultado(String codTransaccion, String estado, String detalle) {
+        return this.colaEscritura.ejecutar(() -> {
+            int actualizadas = this.entityManager.createQuery("UPDATE Transaccion t "
+                    + "SET t.estado = :estado, t.detalle = :detalle "
+                    + "WHERE t.codTransaccion = :codTransaccion AND t.estado = 'ENV'")
+                    .setParameter("estado", estado)
+                    .setParameter("detalle", detalle)
+                    .setParameter("codTransaccion", codTransaccion)
+                    .executeUpdate();
+            if (actualizadas == 0) {
+                return false;
+            }
+            this.entityManager.persist(new TransaccionHistorial(codTransaccion, estado,
+                    LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), detalle));
+            return true;
+        });
+    }
+    
+    private void persistir(Transaccion transaccion) {
+        this.entityManager.persist(transaccion);
+        this.entityManager.persist(new TransaccionHistorial(transaccion.getCodTransaccion(),
+                transaccion.getEstado(), transaccion.getFecha(), transaccion.getDetalle()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.banquito.pos.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.banquito.pos.model.TransaccionOffline;
+
+@Repository
+public interface TransaccionOfflineRepository extends JpaRepository<TransaccionOffline, String> {
+    
+    List<TransaccionOffline> findAllByOrderByFechaAscCodTransaccionAsc(Pageable pageable);
+}
@@ -2,14 +2,20 @@ package com.banquito.pos.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.banquito.pos.model.Transaccion;
 
 @Repository
-public interface TransaccionRepository extends JpaRepository<Transaccion, String> {
+public interface TransaccionRepository extends JpaRepository<Transaccion, String>, 
+        JpaSpecificationExecutor<Transaccion> {
     
     List<Transaccion> findByFechaBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     
@@ -19,5 +25,44 @@ public interface TransaccionRepository extends JpaRepository<Transaccion, String
     
     List<Transaccion> findByModalidad(String modalidad);
     
-    List<Transaccion> findByCodigoUnicoTransaccion(String codigoUnicoTransaccion);
-} 
\ No newline at end of file
+    Optional<Transaccion> findByCodigoUnicoTransaccion(String codigoUnicoTransaccion);
+    
+    Optional<Transaccion> findFirstByCodigoPosOrderByFechaAsc(String codigoPos);
+    
+    @Query("SELECT t FROM Transaccion t WHERE t.estado = 'ENV' AND t.fecha < :fechaLimite "
+            + "AND NOT EXISTS (SELECT o FROM TransaccionOffline o WHERE o.codTransaccion = t.codTransaccion) "
+            + "ORDER BY t.fecha")
+    List<Transaccion> findEnviadasSinResultado(@Param("fechaLimite") LocalDateTime fechaLimite);
+    
+    /**
+     * Totales de resultados AUT/REC del lote abierto de cada terminal, es decir, registrados
+     * desde su último cierre, agrupados como en el cierre de lote. Cada resultado se asigna
+     * por la fecha de su fila en POS_TRANSACCION_HISTORIAL, la misma que decide a qué lote
+     * suma en memoria, y no por la fecha de envío: un pago offline conciliado después de un
+     * cierre pertenece al lote siguiente. El CROSS JOIN fija en SQLite el orden de recorrido:
+     * por cada terminal se lee IDX_HISTORIAL_ESTADO_FECHA desde esa fecha. El monto se suma
+     * en centavos enteros para no acumular errores de punto flotante.
+     */
+    @Query(value = "SELECT t.CODIGO_POS, t.MARCA, t.MODALIDAD, t.MONEDA, t.ESTADO, COUNT(*), "
+            + "SUM(CAST(ROUND(t.MONTO * 100) AS INTEGER)) "
+            + "FROM (SELECT p.CODIGO_POS, COALESCE((SELECT MAX(c.FECHA_CIERRE) FROM POS_CIERRE_LOTE c "
+            + "WHERE c.CODIGO_POS = p.CODIGO_POS), 0) AS DESDE FROM POS_CONFIGURACION p) l "
+            + "CROSS JOIN POS_TRANSACCION_HISTORIAL h ON h.ESTADO IN ('AUT', 'REC') AND h.FECHA >= l.DESDE "
+            + "JOIN POS_TRANSACCION t ON t.COD_TRANSACCION = h.COD_TRANSACCION AND t.ESTADO = h.ESTADO "
+            + "WHERE t.CODIGO_POS = l.CODIGO_POS "
+            + "GROUP BY t.CODIGO_POS, t.MARCA, t.MODALIDAD, t.MONEDA, t.ESTADO", nativeQuery = true)
+    List<Object[]> totalizarLotesAbiertos();
+    
+    @Query("SELECT t.marca, t.modalidad, t.estado, t.fecha, t.monto FROM Transaccion t "
+            + "WHERE t.estado IN ('AUT', 'REC') AND t.fecha >= :desde")
+    List<Object[]> findResultadosDesde(@Param("desde") LocalDateTime desde);
+    
+    /**
+     * Marca como impresos los recibos de un lote de transacciones en un solo UPDATE; las
+     * que ya estaban impresas no cambian.
+     */
+    @Modifying
+    @Query("UPDATE Transaccion t SET t.estadoRecibo = 'IMP' "
+            + "WHERE t.codTransaccion IN :codigos AND t.estadoRecibo = 'PEN'")
+    int marcarRecibosImpresos(@Param("codigos") List<String> codigos);
+}
@@ -0,0 +1,177 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.config.AdmisionProperties;
+import com.banquito.pos.config.AdmisionProperties.Limite;
+import com.banquito.pos.config.AdmisionProperties.Limites;
+import com.banquito.pos.exception.AdmisionRechazadaException;
+import com.banquito.pos.exception.LoteNoAdmisibleException;
+import com.banquito.pos.model.ConfiguracionPos;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control de admisión de pagos por terminal y por comercio, antes de registrar el pago y
+ * de ocupar capacidad del Payment Gateway. Cada terminal y cada comercio tiene una cubeta
+ * de tokens implementada como GCRA: el estado es un único AtomicLong con el instante teórico
+ * de la siguiente llegada, que se avanza con compareAndSet, sin candados ni hilos de
+ * recarga. Los límites vigentes se leen de {@link AdmisionProperties} una vez por pago, por
+ * lo que los recargados con /actuator/refresh se aplican sin reiniciar las cubetas.
+ */
+@Service
+public class AdmisionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmisionService.class);
+    
+    static final String TERMINAL = "terminal";
+    static final String COMERCIO = "comercio";
+    
+    private final AdmisionProperties propiedades;
+    private final Map<String, Cubeta> terminales = new ConcurrentHashMap<>();
+    private final Map<String, Cubeta> comercios = new ConcurrentHashMap<>();
+    private final Counter admitidos;
+    private final Counter rechazosTerminal;
+    private final Counter rechazosComercio;
+    
+    public AdmisionService(AdmisionProperties propiedades, MeterRegistry registry) {
+        this.propiedades = propiedades;
+        this.admitidos = Counter.builder("pos.admision.admitidos")
+                .description("Pagos admitidos por el control de admisión")
+                .register(registry);
+        this.rechazosTerminal = rechazos(registry, TERMINAL);
+        this.rechazosComercio = rechazos(registry, COMERCIO);
+        Gauge.builder("pos.admision.cubetas", this.terminales, Map::size)
+                .tag("ambito", TERMINAL)
+                .description("Terminales con cubeta de admisión")
+                .register(registry);
+        Gauge.builder("pos.admision.cubetas", this.comercios, Map::size)
+                .tag("ambito", COMERCIO)
+                .description("Comercios con cubeta de admisión")
+                .register(registry);
+    }
+    
+    /**
+     * Toma un token del terminal y otro de su comercio, o lanza
+     * {@link AdmisionRechazadaException} con el tiempo que falta para que haya uno. Si el
+     * comercio rechaza, el token del terminal se devuelve.
+     */
+    public void admitir(ConfiguracionPos terminal) {
+        admitir(terminal, 1);
+    }
+    
+    /**
+     * Admite un lote de {@code pagos} pagos, con un token por pago en cada cubeta. Un lote más
+     * grande que la ráfaga del terminal o del comercio no se admitiría nunca, así que se
+     * rechaza con {@link LoteNoAdmisibleException} en lugar de pedir que se reintente.
+     */
+    public void admitir(ConfiguracionPos terminal, int pagos) {
+        Limites limites = this.propiedades.vigentes();
+        if (!limites.habilitado()) {
+            return;
+        }
+        
+        int tokens = Math.max(pagos, 1);
+        String codigoPos = terminal.getCodigoPos();
+        String codigoComercio = terminal.getCodigoComercio();
+        Limite limiteTerminal = limites.limiteTerminal(codigoPos);
+        Limite limiteComercio = limites.limiteComercio(codigoComercio);
+        validarLote(TERMINAL, codigoPos, limiteTerminal, tokens, this.rechazosTerminal);
+        validarLote(COMERCIO, codigoComercio, limiteComercio, tokens, this.rechazosComercio);
+        
+        long ahora = System.nanoTime();
+        Cubeta cubetaTerminal = cubeta(this.terminales, codigoPos, limiteTerminal, ahora);
+        long espera = tomar(cubetaTerminal, limiteTerminal, tokens, ahora);
+        if (espera > 0) {
+            this.rechazosTerminal.increment();
+            throw rechazo(TERMINAL, codigoPos, espera);
+        }
+        
+        espera = tomar(cubeta(this.comercios, codigoComercio, limiteComercio, ahora), limiteComercio, tokens, ahora);
+        if (espera > 0) {
+            if (cubetaTerminal != null) {
+                cubetaTerminal.devolver(limiteTerminal, tokens);
+            }
+            this.rechazosComercio.increment();
+            throw rechazo(COMERCIO, codigoComercio, espera);
+        }
+        this.admitidos.increment(pagos);
+    }
+    
+    private static Cubeta cubeta(Map<String, Cubeta> cubetas, String clave, Limite limite, long ahora) {
+        if (limite.isIlimitado()) {
+            return null;
+        }
+        return cubetas.computeIfAbsent(clave, c -> new Cubeta(ahora));
+    }
+    
+    private static void validarLote(String ambito, String clave, Limite limite, int pagos, Counter rechazos) {
+        int rafaga = Math.max(limite.rafaga(), 1);
+        if (!limite.isIlimitado() && pagos > rafaga) {
+            rechazos.increment();
+            throw new LoteNoAdmisibleException(ambito, clave, pagos, rafaga);
+        }
+    }
+    
+    private static long tomar(Cubeta cubeta, Limite limite, int tokens, long ahora) {
+        return cubeta == null ? 0 : cubeta.tomar(limite, tokens, ahora);
+    }
+    
+    private static AdmisionRechazadaException rechazo(String ambito, String clave, long esperaNanos) {
+        log.debug("Límite de admisión excedido para el {} {}, espera {} ns", ambito, clave, esperaNanos);
+        return new AdmisionRechazadaException(ambito, clave, esperaNanos);
+    }
+    
+    private static Counter rechazos(MeterRegistry registry, String ambito) {
+        return Counter.builder("pos.admision.rechazos")
+                .tag("ambito", ambito)
+                .description("Pagos rechazados con 429 por exceder el límite de admisión")
+                .register(registry);
+    }
+    
+    /**
+     * Cubeta GCRA. {@code llegada} es el instante teórico de la siguiente llegada: cada token
+     * lo adelanta un intervalo (1 / tasa) y se rechaza si quedaría más de una ráfaga de
+     * intervalos por delante del reloj. Las comparaciones restan instantes porque
+     * System.nanoTime puede ser negativo.
+     */
+    static final class Cubeta {
+        
+        private final AtomicLong llegada;
+        
+        Cubeta(long ahora) {
+            this.llegada = new AtomicLong(ahora);
+        }
+        
+        /**
+         * Retorna 0 si se tomaron los tokens, o los nanosegundos que faltan para que los haya.
+         */
+        long tomar(Limite limite, int tokens, long ahora) {
+            long intervalo = limite.intervaloNanos() * tokens;
+            long tolerancia = limite.toleranciaNanos();
+            while (true) {
+                long actual = this.llegada.get();
+                long siguiente = (actual - ahora > 0 ? actual : ahora) + intervalo;
+                long exceso = siguiente - ahora - tolerancia;
+                if (exceso > 0) {
+                    return exceso;
+                }
+                if (this.llegada.compareAndSet(actual, siguiente)) {
+                    return 0;
+                }
+            }
+        }
+        
+        void devolver(Limite limite, int tokens) {
+            this.llegada.addAndGet(-limite.intervaloNanos() * tokens);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.banquito.pos.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Montículo con los próximos cobros de las suscripciones, cargado de la base por tramos a
+ * medida que se acercan. El cursor es la última posición (PROXIMO_COBRO, COD_SUSCRIPCION)
+ * leída: toda suscripción activa anterior al cursor está en el montículo o cobrándose, y
+ * las posteriores se leen en la siguiente carga. Las entradas pueden quedar obsoletas
+ * (suscripción cancelada o reprogramada); quien las retira debe validarlas contra la base.
+ */
+final class AgendaCobros {
+    
+    static final Cobro INICIO = new Cobro(LocalDateTime.of(1970, 1, 1, 0, 0), "");
+    private static final String ULTIMO_CODIGO = "\uFFFF";
+    
+    private final PriorityQueue<Cobro> cobros = new PriorityQueue<>();
+    private Cobro cursor = INICIO;
+    
+    record Cobro(LocalDateTime fecha, String codSuscripcion) implements Comparable<Cobro> {
+        
+        private static final Comparator<Cobro> ORDEN = Comparator.comparing(Cobro::fecha)
+                .thenComparing(Cobro::codSuscripcion);
+        
+        @Override
+        public int compareTo(Cobro otro) {
+            return ORDEN.compare(this, otro);
+        }
+    }
+    
+    @FunctionalInterface
+    interface Cargador {
+        List<Cobro> cargar(LocalDateTime hasta, Cobro despuesDe, int limite);
+    }
+    
+    /**
+     * Agrega un cobro nuevo o reprogramado si cae dentro del tramo ya cargado; si no, se
+     * leerá de la base cuando el cursor lo alcance.
+     */
+    synchronized void agregar(Cobro cobro) {
+        if (cobro.compareTo(this.cursor) <= 0) {
+            this.cobros.add(cobro);
+        }
+    }
+    
+    /**
+     * Lee de la base los cobros hasta {@code hasta} sin superar la capacidad. Se ejecuta con
+     * el bloqueo tomado para que un cobro agregado durante la lectura no quede fuera.
+     */
+    synchronized void cargar(LocalDateTime hasta, int capacidad, Cargador cargador) {
+        int espacio = capacidad - this.cobros.size();
+        if (espacio <= 0 || this.cursor.fecha().isAfter(hasta)) {
+            return;
+        }
+        List<Cobro> nuevos = cargador.cargar(hasta, this.cursor, espacio);
+        this.cobros.addAll(nuevos);
+        if (nuevos.size() < espacio) {
+            this.cursor = new Cobro(hasta, ULTIMO_CODIGO);
+        } else {
+            this.cursor = nuevos.get(nuevos.size() - 1);
+        }
+    }
+    
+    synchronized List<Cobro> vencidos(LocalDateTime ahora, int maximo) {
+        List<Cobro> vencidos = new ArrayList<>(Math.min(maximo, this.cobros.size()));
+        while (vencidos.size() < maximo && !this.cobros.isEmpty() && !this.cobros.peek().fecha().isAfter(ahora)) {
+            vencidos.add(this.cobros.poll());
+        }
+        return vencidos;
+    }
+    
+    synchronized int tamano() {
+        return this.cobros.size();
+    }
+}
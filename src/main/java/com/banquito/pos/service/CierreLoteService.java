@@ -0,0 +1,220 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.model.CierreLote;
+import com.banquito.pos.model.CierreLoteDetalle;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.CierreLoteDetalleRepository;
+import com.banquito.pos.repository.CierreLoteRepository;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cierre de lote por terminal. Cada terminal tiene su propio lote abierto, con sus totales
+ * y su candado de cierre, de modo que los pagos y cierres de un terminal no esperan a los
+ * de otro. Los totales se actualizan al registrarse cada resultado AUT/REC, por lo que
+ * cerrar no recorre POS_TRANSACCION; solo al arrancar se recalculan a partir de los
+ * resultados registrados después del último cierre de cada terminal, después de
+ * schema.sql, que asigna al terminal local las filas anteriores. En ambos casos un
+ * resultado pertenece al lote abierto cuando se registró: ver {@link #registrando}.
+ */
+@Service
+@DependsOnDatabaseInitialization
+public class CierreLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(CierreLoteService.class);
+    
+    private final CierreLoteRepository repository;
+    private final CierreLoteDetalleRepository detalleRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final ColaEscrituraSqlite colaEscritura;
+    private final Map<String, LoteAbierto> lotes = new ConcurrentHashMap<>();
+    
+    public record Cierre(CierreLote cierre, List<CierreLoteDetalle> detalles) {
+    }
+    
+    private static final class LoteAbierto {
+        private final TotalesLote totales = new TotalesLote();
+        private volatile LocalDateTime inicio;
+        
+        LoteAbierto(LocalDateTime inicio) {
+            this.inicio = inicio;
+        }
+    }
+    
+    public CierreLoteService(CierreLoteRepository repository, CierreLoteDetalleRepository detalleRepository,
+            TransaccionRepository transaccionRepository, ColaEscrituraSqlite colaEscritura) {
+        this.repository = repository;
+        this.detalleRepository = detalleRepository;
+        this.transaccionRepository = transaccionRepository;
+        this.colaEscritura = colaEscritura;
+    }
+    
+    @PostConstruct
+    public void reconstruirTotales() {
+        for (Object[] fila : this.repository.findUltimosCierres()) {
+            this.lotes.put((String) fila[0], new LoteAbierto((LocalDateTime) fila[1]));
+        }
+        
+        Map<String, List<TotalesLote.Total>> recuperados = new HashMap<>();
+        for (Object[] fila : this.transaccionRepository.totalizarLotesAbiertos()) {
+            recuperados.computeIfAbsent((String) fila[0], codigoPos -> new ArrayList<>()).add(new TotalesLote.Total(
+                    new TotalesLote.Clave((String) fila[1], (String) fila[2], (String) fila[3], (String) fila[4]),
+                    ((Number) fila[5]).longValue(), ((Number) fila[6]).longValue()));
+        }
+        recuperados.forEach((codigoPos, totales) -> {
+            LoteAbierto lote = this.lotes.computeIfAbsent(codigoPos, c -> new LoteAbierto(
+                    this.transaccionRepository.findFirstByCodigoPosOrderByFechaAsc(c)
+                            .map(Transaccion::getFecha)
+                            .orElseGet(CierreLoteService::ahora)));
+            lote.totales.restaurar(totales);
+        });
+        log.info("Lotes abiertos reconstruidos para {} terminales, {} con totales pendientes", 
+                this.lotes.size(), recuperados.size());
+    }
+    
+    @EventListener
+    public void registrarResultado(TransaccionFinalizadaEvent evento) {
+        Transaccion resultado = evento.resultado();
+        if (!"AUT".equals(resultado.getEstado()) && !"REC".equals(resultado.getEstado())) {
+            return;
+        }
+        if (resultado.getCodigoPos() == null) {
+            log.warn("La transacción {} no tiene terminal, no se suma a ningún lote", resultado.getCodTransaccion());
+            return;
+        }
+        lote(resultado.getCodigoPos()).totales.sumar(
+                new TotalesLote.Clave(resultado.getMarca(), resultado.getModalidad(), 
+                        resultado.getMoneda(), resultado.getEstado()),
+                1, resultado.getMonto().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue());
+    }
+    
+    /**
+     * Registra un resultado del terminal, desde la fila de POS_TRANSACCION_HISTORIAL hasta
+     * la publicación de {@link TransaccionFinalizadaEvent}, sin que su lote se cierre en
+     * medio: el cierre espera a los registros en curso y su fecha es posterior a la de todos
+     * ellos, así que un resultado suma en memoria al mismo lote al que lo asigna la
+     * reconstrucción por fecha.
+     */
+    public <T> T registrando(String codigoPos, Supplier<T> registro) {
+        if (codigoPos == null) {
+            return registro.get();
+        }
+        return lote(codigoPos).totales.registrando(registro);
+    }
+    
+    public Cierre consultarLoteAbierto(String codigoPos) {
+        LoteAbierto lote = lote(codigoPos);
+        CierreLote cierre = new CierreLote();
+        cierre.setCodigoPos(codigoPos);
+        cierre.setFechaInicio(lote.inicio);
+        return armar(cierre, lote.totales.consultar());
+    }
+    
+    public Cierre cerrarLote(String codigoPos) {
+        LoteAbierto lote = lote(codigoPos);
+        synchronized (lote) {
+            TotalesLote.Reinicio reinicio = lote.totales.reiniciar(CierreLoteService::milisegundoSiguiente);
+            LocalDateTime fechaCierre = reinicio.fecha();
+            List<TotalesLote.Total> cerrados = reinicio.totales();
+            
+            CierreLote cierre = new CierreLote();
+            cierre.setCodigoPos(codigoPos);
+            cierre.setFechaInicio(lote.inicio);
+            cierre.setFechaCierre(fechaCierre);
+            Cierre resultado = armar(cierre, cerrados);
+            
+            try {
+                this.colaEscritura.ejecutar(() -> {
+                    this.repository.save(cierre);
+                    resultado.detalles().forEach(detalle -> detalle.setCodCierre(cierre.getCodCierre()));
+                    return this.detalleRepository.saveAll(resultado.detalles());
+                });
+            } catch (RuntimeException e) {
+                log.error("No se pudo registrar el cierre de lote del POS {}, los totales vuelven al lote abierto: {}", 
+                        codigoPos, e.getMessage());
+                lote.totales.restaurar(cerrados);
+                throw e;
+            }
+            
+            lote.inicio = fechaCierre;
+            log.info("Lote {} del POS {} cerrado con {} transacciones", 
+                    cierre.getCodCierre(), codigoPos, cierre.getTotalTransacciones());
+            return resultado;
+        }
+    }
+    
+    /**
+     * El lote de un terminal sin cierres ni transacciones empieza con su primer pago.
+     */
+    private LoteAbierto lote(String codigoPos) {
+        return this.lotes.computeIfAbsent(codigoPos, c -> new LoteAbierto(ahora()));
+    }
+    
+    private static LocalDateTime ahora() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+    
+    /**
+     * SQLite guarda las fechas en milisegundos: el cierre toma el milisegundo siguiente al
+     * actual para que ningún resultado ya sumado tenga su misma fecha, y así el lote
+     * reconstruido empieza en el mismo instante.
+     */
+    private static LocalDateTime milisegundoSiguiente() {
+        LocalDateTime actual = ahora();
+        LocalDateTime siguiente = ahora();
+        while (!siguiente.isAfter(actual)) {
+            Thread.onSpinWait();
+            siguiente = ahora();
+        }
+        return siguiente;
+    }
+    
+    public List<CierreLote> listarCierres(String codigoPos, int limite) {
+        return this.repository.findByCodigoPosOrderByFechaCierreDesc(codigoPos, 
+                PageRequest.of(0, Math.min(Math.max(limite, 1), 100)));
+    }
+    
+    public Cierre obtenerCierre(Integer codCierre) {
+        CierreLote cierre = this.repository.findById(codCierre)
+                .orElseThrow(() -> new NotFoundException(String.valueOf(codCierre), "CierreLote"));
+        return new Cierre(cierre, this.detalleRepository.findByCodCierre(codCierre));
+    }
+    
+    private static Cierre armar(CierreLote cierre, List<TotalesLote.Total> totales) {
+        List<CierreLoteDetalle> detalles = new ArrayList<>(totales.size());
+        long totalTransacciones = 0;
+        for (TotalesLote.Total total : totales) {
+            CierreLoteDetalle detalle = new CierreLoteDetalle();
+            detalle.setMarca(total.clave().marca());
+            detalle.setModalidad(total.clave().modalidad());
+            detalle.setMoneda(total.clave().moneda());
+            detalle.setEstado(total.clave().estado());
+            detalle.setCantidad(total.cantidad());
+            detalle.setMonto(total.monto());
+            detalles.add(detalle);
+            totalTransacciones += total.cantidad();
+        }
+        cierre.setTotalTransacciones(totalTransacciones);
+        return new Cierre(cierre, detalles);
+    }
+}
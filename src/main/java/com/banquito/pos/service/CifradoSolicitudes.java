@@ -0,0 +1,98 @@
+package com.banquito.pos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cifrado AES-GCM de las solicitudes al Payment Gateway que se guardan en la base (cola
+ * offline y suscripciones). El CVV nunca se almacena: se elimina antes de cifrar. El
+ * identificador del registro se usa como dato asociado, de modo que una solicitud cifrada
+ * no puede copiarse a otro registro. La clave es pos.offline.clave.
+ */
+@Component
+public class CifradoSolicitudes {
+
+    private static final String ALGORITMO = "AES/GCM/NoPadding";
+    private static final int LONGITUD_IV = 12;
+    private static final int LONGITUD_TAG = 128;
+    
+    private final ObjectMapper objectMapper;
+    private final SecretKey clave;
+    private final SecureRandom random = new SecureRandom();
+    
+    public CifradoSolicitudes(ObjectMapper objectMapper, @Value("${pos.offline.clave:}") String clave) {
+        this.objectMapper = objectMapper;
+        this.clave = leerClave(clave);
+    }
+    
+    public boolean isDisponible() {
+        return this.clave != null;
+    }
+    
+    public String cifrar(TransaccionRequestDTO request, String asociado) {
+        try {
+            byte[] iv = new byte[LONGITUD_IV];
+            this.random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(ALGORITMO);
+            cipher.init(Cipher.ENCRYPT_MODE, this.clave, new GCMParameterSpec(LONGITUD_TAG, iv));
+            cipher.updateAAD(asociado.getBytes(StandardCharsets.UTF_8));
+            byte[] cifrado = cipher.doFinal(this.objectMapper.writeValueAsBytes(sinDatosSensibles(request)));
+            
+            return Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + cifrado.length).put(iv).put(cifrado).array());
+        } catch (GeneralSecurityException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo cifrar la solicitud " + asociado, e);
+        }
+    }
+    
+    public TransaccionRequestDTO descifrar(String solicitud, String asociado) {
+        try {
+            byte[] datos = Base64.getDecoder().decode(solicitud);
+            Cipher cipher = Cipher.getInstance(ALGORITMO);
+            cipher.init(Cipher.DECRYPT_MODE, this.clave, new GCMParameterSpec(LONGITUD_TAG, datos, 0, LONGITUD_IV));
+            cipher.updateAAD(asociado.getBytes(StandardCharsets.UTF_8));
+            byte[] plano = cipher.doFinal(datos, LONGITUD_IV, datos.length - LONGITUD_IV);
+            
+            return this.objectMapper.readValue(plano, TransaccionRequestDTO.class);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("No se pudo descifrar la solicitud " + asociado, e);
+        }
+    }
+    
+    private TransaccionRequestDTO sinDatosSensibles(TransaccionRequestDTO request) {
+        TransaccionRequestDTO copia = this.objectMapper.convertValue(request, TransaccionRequestDTO.class);
+        copia.setCodigoSeguridad(null);
+        return copia;
+    }
+    
+    private static SecretKey leerClave(String clave) {
+        if (clave == null || clave.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getDecoder().decode(clave.trim());
+            if (bytes.length != 16 && bytes.length != 32) {
+                return null;
+            }
+            return new SecretKeySpec(bytes, "AES");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.config.CobrosRecurrentesProperties;
+import com.banquito.pos.model.Suscripcion;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.service.AgendaCobros.Cobro;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ejecuta los cobros vencidos de las suscripciones por el mismo camino que un pago con
+ * Idempotency-Key. En cada intervalo se toma a lo sumo un lote de la agenda, de modo que
+ * miles de suscripciones con la misma fecha de cobro se cobran a un ritmo acotado en lugar
+ * de saturar al Payment Gateway y a SQLite. El lote se cobra en cobrosExecutor y la tarea
+ * programada no lo espera, así que el hilo del planificador queda libre; mientras un lote
+ * no termina no se toma otro. La clave de idempotencia se deriva de la suscripción, el
+ * número de cobro y el intento: si la aplicación se detiene o la reprogramación falla
+ * entre el cobro y la reprogramación, el reintento recibe el resultado ya registrado en
+ * vez de cobrar dos veces.
+ */
+@Service
+public class CobroRecurrenteService {
+
+    private static final Logger log = LoggerFactory.getLogger(CobroRecurrenteService.class);
+    
+    private final SuscripcionService suscripcionService;
+    private final IdempotenciaService idempotenciaService;
+    private final ThreadPoolTaskExecutor executor;
+    private final CobrosRecurrentesProperties propiedades;
+    private final MeterRegistry registry;
+    private final AtomicBoolean cobrando = new AtomicBoolean();
+    
+    public CobroRecurrenteService(SuscripcionService suscripcionService, IdempotenciaService idempotenciaService,
+            @Qualifier("cobrosExecutor") ThreadPoolTaskExecutor executor, CobrosRecurrentesProperties propiedades,
+            MeterRegistry registry) {
+        this.suscripcionService = suscripcionService;
+        this.idempotenciaService = idempotenciaService;
+        this.executor = executor;
+        this.propiedades = propiedades;
+        this.registry = registry;
+    }
+    
+    @Scheduled(initialDelayString = "${pos.recurrentes.retraso-inicial-ms:15000}",
+               fixedDelayString = "${pos.recurrentes.intervalo-ms:1000}")
+    public void cobrarVencidas() {
+        if (!this.propiedades.isHabilitado() || !this.suscripcionService.isHabilitado()
+                || !this.cobrando.compareAndSet(false, true)) {
+            return;
+        }
+        
+        List<CompletableFuture<Suscripcion>> cobros;
+        List<Cobro> retirados;
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            this.suscripcionService.cargarAgenda(ahora.plusMinutes(this.propiedades.getHorizonteMinutos()),
+                    this.propiedades.getCapacidad());
+            List<Suscripcion> vencidas = this.suscripcionService.vencidas(ahora, this.propiedades.getLote());
+            if (vencidas.isEmpty()) {
+                this.cobrando.set(false);
+                return;
+            }
+            
+            log.info("Cobrando {} suscripciones vencidas", vencidas.size());
+            retirados = vencidas.stream().map(SuscripcionService::cobro).toList();
+            cobros = new ArrayList<>(vencidas.size());
+            for (int i = 0; i < vencidas.size(); i++) {
+                Suscripcion suscripcion = vencidas.get(i);
+                try {
+                    cobros.add(CompletableFuture.supplyAsync(() -> cobrar(suscripcion), this.executor));
+                } catch (RejectedExecutionException e) {
+                    log.warn("No se aceptaron {} cobros, vuelven a la agenda", vencidas.size() - i);
+                    this.suscripcionService.devolverAgenda(retirados.subList(i, retirados.size()));
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            this.cobrando.set(false);
+            throw e;
+        }
+        
+        List<Cobro> enviados = retirados.subList(0, cobros.size());
+        CompletableFuture.allOf(cobros.toArray(CompletableFuture[]::new))
+                .whenComplete((sinValor, error) -> reprogramar(cobros, enviados));
+    }
+    
+    /**
+     * Si el resultado del lote no se puede guardar, sus cobros vuelven a la agenda con la
+     * fecha que tenían: el siguiente intento usa la misma clave de idempotencia y recibe el
+     * resultado ya registrado.
+     */
+    private void reprogramar(List<CompletableFuture<Suscripcion>> cobros, List<Cobro> retirados) {
+        try {
+            this.suscripcionService.reprogramar(cobros.stream().map(CompletableFuture::join).toList());
+        } catch (RuntimeException e) {
+            log.error("No se pudo reprogramar un lote de {} cobros, vuelven a la agenda: {}",
+                    retirados.size(), e.getMessage(), e);
+            this.suscripcionService.devolverAgenda(retirados);
+        } finally {
+            this.cobrando.set(false);
+        }
+    }
+    
+    private Suscripcion cobrar(Suscripcion suscripcion) {
+        String clave = UUID.nameUUIDFromBytes((suscripcion.getCodSuscripcion() + "|" + (suscripcion.getCobros() + 1)
+                + "|" + suscripcion.getFallos()).getBytes(StandardCharsets.UTF_8)).toString();
+        String estado;
+        try {
+            TransaccionRequestDTO solicitud = this.suscripcionService.solicitud(suscripcion);
+            
+            Transaccion transaccion = new Transaccion();
+            transaccion.setMarca(suscripcion.getMarca());
+            transaccion.setModalidad("REC");
+            transaccion.setMonto(suscripcion.getMonto());
+            transaccion.setMoneda(suscripcion.getMoneda());
+            transaccion.setDetalle(solicitud.getReferencia());
+            transaccion.setNumeroTarjeta(solicitud.getNumeroTarjeta());
+            transaccion.setNombreTitular(solicitud.getNombreTitular());
+            transaccion.setRecurrente(true);
+            transaccion.setFrecuenciaDias(suscripcion.getFrecuenciaDias());
+            transaccion.setCodSuscripcion(suscripcion.getCodSuscripcion());
+            transaccion.setCodigoPos(solicitud.getCodigoPOS());
+            
+            estado = this.idempotenciaService.procesarTransaccion(clave, transaccion, null, 
+                    solicitud.getFechaExpiracion()).getEstado();
+        } catch (RuntimeException e) {
+            log.warn("Falló el cobro de la suscripción {}: {}", suscripcion.getCodSuscripcion(), e.getMessage());
+            estado = "REC";
+        }
+        
+        LocalDateTime ahora = LocalDateTime.now();
+        if ("REC".equals(estado)) {
+            suscripcion.setFallos(suscripcion.getFallos() + 1);
+            if (suscripcion.getFallos() >= this.propiedades.getMaximoFallos()) {
+                suscripcion.setEstado(SuscripcionService.SUSPENDIDA);
+                estado = SuscripcionService.SUSPENDIDA;
+                log.warn("Suscripción {} suspendida tras {} cobros fallidos", 
+                        suscripcion.getCodSuscripcion(), suscripcion.getFallos());
+            } else {
+                suscripcion.setProximoCobro(ahora.plusHours(this.propiedades.getReintentoHoras())
+                        .truncatedTo(ChronoUnit.MILLIS));
+            }
+        } else {
+            suscripcion.setCobros(suscripcion.getCobros() + 1);
+            suscripcion.setFallos(0);
+            suscripcion.setUltimoCobro(ahora);
+            suscripcion.setProximoCobro(siguienteCobro(suscripcion, ahora));
+        }
+        
+        Counter.builder("pos.recurrentes.cobros")
+                .tag("resultado", estado)
+                .description("Cobros de suscripciones ejecutados")
+                .register(this.registry)
+                .increment();
+        return suscripcion;
+    }
+    
+    /**
+     * El siguiente período se cuenta desde la fecha programada y no desde el cobro, para
+     * no desplazar el calendario; los períodos que vencieron mientras la aplicación estuvo
+     * detenida no se cobran en ráfaga, se pasa al primero futuro.
+     */
+    private static LocalDateTime siguienteCobro(Suscripcion suscripcion, LocalDateTime ahora) {
+        LocalDateTime siguiente = suscripcion.getProximoCobro().plusDays(suscripcion.getFrecuenciaDias());
+        while (!siguiente.isAfter(ahora)) {
+            siguiente = siguiente.plusDays(suscripcion.getFrecuenciaDias());
+        }
+        return siguiente.truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,207 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.repository.ConfiguracionPosRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Índices en memoria de POS_CONFIGURACION, recargados al iniciar y después de cada cambio de
+ * configuración. Una clave que no está en el índice se consulta en la base de datos y, si
+ * tampoco existe ahí, se recuerda como ausente durante pos.configuracion.cache.ttl-ausentes-ms,
+ * para que las cabeceras X-Codigo-Pos o X-Direccion-Mac desconocidas no lleguen a SQLite en
+ * cada solicitud. Recargar los índices olvida las claves ausentes.
+ */
+@Component
+public class ConfiguracionPosCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfiguracionPosCache.class);
+    
+    private static final int MAXIMO_AUSENTES = 10_000;
+    
+    private static final String LOCAL = "local";
+    
+    private final ConfiguracionPosRepository repository;
+    private final long ttlAusentesNanos;
+    private final Counter aciertos;
+    private final Counter ausentes;
+    private final Counter fallos;
+    
+    private volatile Indices indices = Indices.VACIO;
+    private final Map<String, Long> clavesAusentes = new ConcurrentHashMap<>();
+    
+    public ConfiguracionPosCache(ConfiguracionPosRepository repository, MeterRegistry registry,
+            @Value("${pos.configuracion.cache.ttl-ausentes-ms:5000}") long ttlAusentesMs) {
+        this.repository = repository;
+        this.ttlAusentesNanos = TimeUnit.MILLISECONDS.toNanos(ttlAusentesMs);
+        this.aciertos = Counter.builder("pos.configuracion.cache")
+                .tag("resultado", "acierto")
+                .description("Consultas de configuración POS resueltas en memoria")
+                .register(registry);
+        this.ausentes = Counter.builder("pos.configuracion.cache")
+                .tag("resultado", "ausente")
+                .description("Consultas de terminales desconocidos resueltas en memoria")
+                .register(registry);
+        this.fallos = Counter.builder("pos.configuracion.cache")
+                .tag("resultado", "fallo")
+                .description("Consultas de configuración POS que requirieron acceso a la base de datos")
+                .register(registry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        List<ConfiguracionPos> configuraciones = this.repository.findAll();
+        this.indices = Indices.de(configuraciones);
+        this.clavesAusentes.clear();
+        log.info("Caché de configuración POS cargada con {} terminales", configuraciones.size());
+    }
+    
+    public void recargarDespuesDeCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recargar();
+                }
+            });
+        } else {
+            recargar();
+        }
+    }
+    
+    public Optional<ConfiguracionPos> obtenerLocal() {
+        ConfiguracionPos local = this.indices.local();
+        if (local != null) {
+            this.aciertos.increment();
+            return Optional.of(local);
+        }
+        if (recordadaAusente(LOCAL)) {
+            return Optional.empty();
+        }
+        this.fallos.increment();
+        recargar();
+        local = this.indices.local();
+        if (local == null) {
+            recordarAusente(LOCAL);
+        }
+        return Optional.ofNullable(local);
+    }
+    
+    public Optional<ConfiguracionPos> findByCodigoPos(String codigoPos) {
+        return buscar(this.indices.porCodigoPos(), "pos:", codigoPos, this.repository::findByCodigoPos);
+    }
+    
+    public Optional<ConfiguracionPos> findByDireccionMac(String direccionMac) {
+        return buscar(this.indices.porDireccionMac(), "mac:", direccionMac, this.repository::findByDireccionMac);
+    }
+    
+    public Optional<ConfiguracionPos> findByCodigoComercio(String codigoComercio) {
+        return buscar(this.indices.porCodigoComercio(), "comercio:", codigoComercio,
+                this.repository::findFirstByCodigoComercioOrderByCodigoPosAsc);
+    }
+    
+    private Optional<ConfiguracionPos> buscar(Map<String, ConfiguracionPos> indice, String tipo, String clave,
+            Function<String, ConfiguracionPos> consulta) {
+        if (clave == null) {
+            return Optional.empty();
+        }
+        ConfiguracionPos configuracion = indice.get(clave);
+        if (configuracion != null) {
+            this.aciertos.increment();
+            return Optional.of(configuracion);
+        }
+        if (recordadaAusente(tipo + clave)) {
+            return Optional.empty();
+        }
+        
+        this.fallos.increment();
+        configuracion = consulta.apply(clave);
+        if (configuracion != null) {
+            log.info("Configuración POS {} no estaba en caché, recargando", clave);
+            recargar();
+        } else {
+            recordarAusente(tipo + clave);
+        }
+        return Optional.ofNullable(configuracion);
+    }
+    
+    private boolean recordadaAusente(String clave) {
+        Long vence = this.clavesAusentes.get(clave);
+        if (vence != null && System.nanoTime() - vence < 0) {
+            this.ausentes.increment();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Con más de {@link #MAXIMO_AUSENTES} claves se descartan las vencidas y, si no alcanza,
+     * todas: un cliente que envía cabeceras al azar no hace crecer el mapa sin límite.
+     */
+    private void recordarAusente(String clave) {
+        long ahora = System.nanoTime();
+        if (this.clavesAusentes.size() >= MAXIMO_AUSENTES) {
+            this.clavesAusentes.values().removeIf(vence -> ahora - vence >= 0);
+            if (this.clavesAusentes.size() >= MAXIMO_AUSENTES) {
+                this.clavesAusentes.clear();
+            }
+        }
+        this.clavesAusentes.put(clave, ahora + this.ttlAusentesNanos);
+    }
+    
+    private record Indices(
+            ConfiguracionPos local,
+            Map<String, ConfiguracionPos> porCodigoPos,
+            Map<String, ConfiguracionPos> porDireccionMac,
+            Map<String, ConfiguracionPos> porCodigoComercio) {
+        
+        static final Indices VACIO = new Indices(null, Map.of(), Map.of(), Map.of());
+        
+        /**
+         * El terminal local es el primero que se activó, no el primero que devuelve la
+         * consulta, para que sea el mismo en cada recarga y en cada arranque. Un comercio con
+         * varios terminales se indexa con el de menor código, el mismo que la consulta a la
+         * base de datos.
+         */
+        static Indices de(List<ConfiguracionPos> configuraciones) {
+            ConfiguracionPos local = configuraciones.stream()
+                    .min(Comparator.comparing(ConfiguracionPos::getFechaActivacion, 
+                                    Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(ConfiguracionPos::getCodigoPos))
+                    .orElse(null);
+            Map<String, ConfiguracionPos> porCodigoPos = new HashMap<>();
+            Map<String, ConfiguracionPos> porDireccionMac = new HashMap<>();
+            Map<String, ConfiguracionPos> porCodigoComercio = new HashMap<>();
+            for (ConfiguracionPos configuracion : configuraciones) {
+                porCodigoPos.putIfAbsent(configuracion.getCodigoPos(), configuracion);
+                porDireccionMac.putIfAbsent(configuracion.getDireccionMac(), configuracion);
+                porCodigoComercio.merge(configuracion.getCodigoComercio(), configuracion,
+                        (actual, otra) -> actual.getCodigoPos().compareTo(otra.getCodigoPos()) <= 0 ? actual : otra);
+            }
+            return new Indices(
+                    local,
+                    Map.copyOf(porCodigoPos),
+                    Map.copyOf(porDireccionMac),
+                    Map.copyOf(porCodigoComercio));
+        }
+    }
+}
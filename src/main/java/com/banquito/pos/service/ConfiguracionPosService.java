@@ -2,6 +2,7 @@ package com.banquito.pos.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,7 +15,6 @@ import com.banquito.pos.repository.ConfiguracionPosRepository;
 import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -23,37 +23,65 @@ public class ConfiguracionPosService {
     private static final Logger log = LoggerFactory.getLogger(ConfiguracionPosService.class);
     
     private final ConfiguracionPosRepository repository;
+    private final ConfiguracionPosCache cache;
+    
+    @Value("${pos.terminales.cabecera-obligatoria:false}")
+    private boolean cabeceraObligatoria;
     
     public ConfiguracionPos obtenerConfiguracionLocal() {
-        log.info("Obteniendo configuración local del terminal POS");
-        List<ConfiguracionPos> configuraciones = this.repository.findAll();
-        
-        if (configuraciones.isEmpty()) {
-            log.error("No se encontró ninguna configuración para el terminal POS");
-            throw new NotFoundException("N/A", "ConfiguracionPos");
+        return this.cache.obtenerLocal()
+                .orElseThrow(() -> {
+                    log.error("No se encontró ninguna configuración para el terminal POS");
+                    return new NotFoundException("N/A", "ConfiguracionPos");
+                });
+    }
+    
+    /**
+     * Terminal que atiende una petición, identificado por su código o por su dirección MAC
+     * (cabeceras X-Codigo-Pos y X-Direccion-Mac). Sin cabeceras se usa el terminal local,
+     * salvo que pos.terminales.cabecera-obligatoria exija identificar cada petición.
+     */
+    public ConfiguracionPos resolverTerminal(String codigoPos, String direccionMac) {
+        if (codigoPos != null && !codigoPos.isBlank()) {
+            ConfiguracionPos configuracion = findByCodigoPos(codigoPos);
+            if (direccionMac != null && !direccionMac.isBlank() 
+                    && !direccionMac.equalsIgnoreCase(configuracion.getDireccionMac())) {
+                log.error("La dirección MAC {} no corresponde al POS {}", direccionMac, codigoPos);
+                throw new ValidationException("La dirección MAC no corresponde al terminal " + codigoPos);
+            }
+            return configuracion;
         }
-        
-        return configuraciones.get(0);
+        if (direccionMac != null && !direccionMac.isBlank()) {
+            return findByDireccionMac(direccionMac);
+        }
+        if (this.cabeceraObligatoria) {
+            throw new ValidationException("La petición debe identificar el terminal con X-Codigo-Pos o X-Direccion-Mac");
+        }
+        return obtenerConfiguracionLocal();
     }
     
     public ConfiguracionPos findByCodigoPos(String codigoPos) {
-        log.info("Buscando configuración del POS con código: {}", codigoPos);
-        ConfiguracionPos configuracion = this.repository.findByCodigoPos(codigoPos);
-        if (configuracion == null) {
-            log.error("No se encontró configuración para el POS con código: {}", codigoPos);
-            throw new NotFoundException(codigoPos, "ConfiguracionPos.codigoPos");
-        }
-        return configuracion;
+        return this.cache.findByCodigoPos(codigoPos)
+                .orElseThrow(() -> {
+                    log.error("No se encontró configuración para el POS con código: {}", codigoPos);
+                    return new NotFoundException(codigoPos, "ConfiguracionPos.codigoPos");
+                });
     }
     
     public ConfiguracionPos findByDireccionMac(String direccionMac) {
-        log.info("Buscando configuración del POS con dirección MAC: {}", direccionMac);
-        ConfiguracionPos configuracion = this.repository.findByDireccionMac(direccionMac);
-        if (configuracion == null) {
-            log.error("No se encontró configuración para el POS con dirección MAC: {}", direccionMac);
-            throw new NotFoundException(direccionMac, "ConfiguracionPos.direccionMac");
-        }
-        return configuracion;
+        return this.cache.findByDireccionMac(direccionMac)
+                .orElseThrow(() -> {
+                    log.error("No se encontró configuración para el POS con dirección MAC: {}", direccionMac);
+                    return new NotFoundException(direccionMac, "ConfiguracionPos.direccionMac");
+                });
+    }
+    
+    public ConfiguracionPos findByCodigoComercio(String codigoComercio) {
+        return this.cache.findByCodigoComercio(codigoComercio)
+                .orElseThrow(() -> {
+                    log.error("No se encontró configuración para el comercio con código: {}", codigoComercio);
+                    return new NotFoundException(codigoComercio, "ConfiguracionPos.codigoComercio");
+                });
     }
     
     public ConfiguracionPos findById(String modelo, String codigoPos) {
@@ -80,7 +108,9 @@ public class ConfiguracionPosService {
         
         configuracion.setFechaActivacion(LocalDateTime.now());
         
-        return this.repository.save(configuracion);
+        ConfiguracionPos nuevaConfiguracion = this.repository.save(configuracion);
+        this.cache.recargarDespuesDeCommit();
+        return nuevaConfiguracion;
     }
     
     @Transactional
@@ -88,6 +118,8 @@ public class ConfiguracionPosService {
         log.info("Actualizando configuración para POS: {}", configuracion.getCodigoPos());
         this.findById(configuracion.getModelo(), configuracion.getCodigoPos());
         
-        return this.repository.save(configuracion);
+        ConfiguracionPos configuracionActualizada = this.repository.save(configuracion);
+        this.cache.recargarDespuesDeCommit();
+        return configuracionActualizada;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import jakarta.persistence.criteria.Predicate;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Consulta de transacciones paginada por cursor sobre (FECHA, COD_TRANSACCION), de la más
+ * reciente a la más antigua. Cada página continúa desde la última fila de la anterior, de
+ * modo que el costo no depende de cuántas páginas se hayan recorrido; los índices
+ * compuestos de schema.sql cubren el orden con y sin filtro de estado, marca o modalidad.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConsultaTransaccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultaTransaccionService.class);
+    
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+    
+    private static final Sort ORDEN = Sort.by(Sort.Direction.DESC, "fecha", "codTransaccion");
+    
+    private final TransaccionRepository repository;
+    
+    public record Filtro(LocalDateTime desde, LocalDateTime hasta, String estado, String marca, String modalidad) {
+    }
+    
+    public record Pagina(List<Transaccion> transacciones, String siguienteCursor) {
+    }
+    
+    public Pagina consultar(Filtro filtro, String cursor, int limite) {
+        if (filtro.desde() != null && filtro.hasta() != null && filtro.desde().isAfter(filtro.hasta())) {
+            throw new ValidationException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        int tamano = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        
+        Specification<Transaccion> especificacion = filtrar(filtro);
+        if (cursor != null && !cursor.isBlank()) {
+            especificacion = especificacion.and(despuesDe(cursor));
+        }
+        
+        List<Transaccion> filas = this.repository.findBy(especificacion, 
+                consulta -> consulta.sortBy(ORDEN).limit(tamano + 1).all());
+        
+        if (filas.size() <= tamano) {
+            return new Pagina(filas, null);
+        }
+        List<Transaccion> pagina = new ArrayList<>(filas.subList(0, tamano));
+        return new Pagina(pagina, codificarCursor(pagina.get(tamano - 1)));
+    }
+    
+    private Specification<Transaccion> filtrar(Filtro filtro) {
+        return (raiz, consulta, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            if (filtro.desde() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(raiz.get("fecha"), filtro.desde()));
+            }
+            if (filtro.hasta() != null) {
+                condiciones.add(cb.lessThan(raiz.get("fecha"), filtro.hasta()));
+            }
+            if (filtro.estado() != null) {
+                condiciones.add(cb.equal(raiz.get("estado"), filtro.estado()));
+            }
+            if (filtro.marca() != null) {
+                condiciones.add(cb.equal(raiz.get("marca"), filtro.marca()));
+            }
+            if (filtro.modalidad() != null) {
+                condiciones.add(cb.equal(raiz.get("modalidad"), filtro.modalidad()));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+    
+    private Specification<Transaccion> despuesDe(String cursor) {
+        String[] partes = decodificarCursor(cursor);
+        LocalDateTime fecha;
+        try {
+            fecha = LocalDateTime.parse(partes[0]);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Cursor de consulta inválido");
+        }
+        String codTransaccion = partes[1];
+        
+        // fecha <= :fecha es redundante, pero permite a SQLite acotar el rango del índice
+        return (raiz, consulta, cb) -> cb.and(
+                cb.lessThanOrEqualTo(raiz.get("fecha"), fecha),
+                cb.or(cb.lessThan(raiz.get("fecha"), fecha),
+                      cb.and(cb.equal(raiz.get("fecha"), fecha), 
+                             cb.lessThan(raiz.get("codTransaccion"), codTransaccion))));
+    }
+    
+    private static String codificarCursor(Transaccion ultima) {
+        String valor = ultima.getFecha() + "|" + ultima.getCodTransaccion();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", -1);
+            if (partes.length != 2 || partes[1].isEmpty()) {
+                throw new IllegalArgumentException(valor);
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            log.error("Cursor de consulta inválido: {}", cursor);
+            throw new ValidationException("Cursor de consulta inválido");
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banquito.pos.exception.ValidationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación completa de POS_TRANSACCION para conciliación. Las filas se leen con un
+ * cursor JDBC y se escriben una a una en la respuesta, sin acumularlas: la memoria usada
+ * es la del búfer de salida sin importar cuántas filas se exporten. El orden es
+ * (FECHA, COD_TRANSACCION) ascendente, y una exportación interrumpida se reanuda
+ * indicando el último código de transacción recibido. CODIGO_POS va al final para no mover
+ * las columnas anteriores.
+ * <p>
+ * En CSV, un campo que empieza con =, +, -, @, tabulador o retorno de carro se escribe
+ * precedido de un apóstrofo, para que una hoja de cálculo no lo interprete como fórmula.
+ */
+@Service
+public class ExportacionTransaccionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportacionTransaccionService.class);
+    
+    private static final int TAMANO_FETCH = 500;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    
+    private static final String[] COLUMNAS = {
+        "COD_TRANSACCION", "CODIGO_UNICO_TRANSACCION", "FECHA", "TIPO", "MARCA", "MODALIDAD",
+        "MONTO", "MONEDA", "ESTADO", "ESTADO_RECIBO", "DETALLE", "CODIGO_POS"
+    };
+    private static final String[] CAMPOS_JSON = {
+        "codTransaccion", "codigoUnicoTransaccion", "fecha", "tipo", "marca", "modalidad",
+        "monto", "moneda", "estado", "estadoRecibo", "detalle", "codigoPos"
+    };
+    private static final int COLUMNA_FECHA = 3;
+    private static final int COLUMNA_MONTO = 7;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final ObjectMapper objectMapper;
+    
+    public ExportacionTransaccionService(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(TAMANO_FETCH);
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    public enum Formato { CSV, NDJSON }
+    
+    public record Exportacion(LocalDateTime desde, LocalDateTime hasta,
+            LocalDateTime fechaAnterior, String codigoAnterior) {
+    }
+    
+    /**
+     * Valida los parámetros antes de escribir la respuesta; {@code despuesDe} es el último
+     * código de transacción recibido en una exportación anterior.
+     */
+    public Exportacion preparar(LocalDateTime desde, LocalDateTime hasta, String despuesDe) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new ValidationException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        if (despuesDe == null || despuesDe.isBlank()) {
+            return new Exportacion(desde, hasta, null, null);
+        }
+        
+        List<Timestamp> fechas = this.lectura.execute(status -> this.jdbcTemplate.queryForList(
+                "SELECT FECHA FROM POS_TRANSACCION WHERE COD_TRANSACCION = ?", Timestamp.class, despuesDe));
+        if (fechas == null || fechas.isEmpty()) {
+            throw new ValidationException("No existe la transacción " + despuesDe + " para reanudar la exportación");
+        }
+        return new Exportacion(desde, hasta, fechas.get(0).toLocalDateTime(), despuesDe);
+    }
+    
+    public long exportar(Exportacion exportacion, Formato formato, OutputStream salida) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNAS))
+                .append(" FROM POS_TRANSACCION WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        if (exportacion.desde() != null) {
+            sql.append(" AND FECHA >= ?");
+            parametros.add(Timestamp.valueOf(exportacion.desde()));
+        }
+        if (exportacion.hasta() != null) {
+            sql.append(" AND FECHA < ?");
+            parametros.add(Timestamp.valueOf(exportacion.hasta()));
+        }
+        if (exportacion.codigoAnterior() != null) {
+            Timestamp fechaAnterior = Timestamp.valueOf(exportacion.fechaAnterior());
+            sql.append(" AND FECHA >= ? AND (FECHA > ? OR (FECHA = ? AND COD_TRANSACCION > ?))");
+            parametros.add(fechaAnterior);
+            parametros.add(fechaAnterior);
+            parametros.add(fechaAnterior);
+            parametros.add(exportacion.codigoAnterior());
+        }
+        sql.append(" ORDER BY FECHA, COD_TRANSACCION");
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        try {
+            EscritorFilas escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+            escritor.iniciar();
+            this.lectura.executeWithoutResult(status ->
+                    this.jdbcTemplate.query(sql.toString(), escritor, parametros.toArray()));
+            escritor.finalizar();
+            writer.flush();
+            
+            log.info("Exportación {} completada con {} transacciones", formato, escritor.filas);
+            return escritor.filas;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private abstract static class EscritorFilas implements RowCallbackHandler {
+        
+        long filas;
+        
+        void iniciar() throws IOException {
+        }
+        
+        void finalizar() throws IOException {
+        }
+        
+        abstract void escribir(ResultSet rs) throws IOException, SQLException;
+        
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                escribir(rs);
+                this.filas++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        static String texto(ResultSet rs, int columna) throws SQLException {
+            if (columna == COLUMNA_FECHA) {
+                Timestamp fecha = rs.getTimestamp(columna);
+                return fecha != null ? fecha.toLocalDateTime().toString() : null;
+            }
+            if (columna == COLUMNA_MONTO) {
+                BigDecimal monto = rs.getBigDecimal(columna);
+                return monto != null ? monto.toPlainString() : null;
+            }
+            return rs.getString(columna);
+        }
+    }
+    
+    private static final class EscritorCsv extends EscritorFilas {
+        
+        private final Writer writer;
+        
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        void iniciar() throws IOException {
+            this.writer.write(String.join(",", COLUMNAS));
+            this.writer.write("\r\n");
+        }
+        
+        @Override
+        void escribir(ResultSet rs) throws IOException, SQLException {
+            for (int i = 1; i <= COLUMNAS.length; i++) {
+                if (i > 1) {
+                    this.writer.write(',');
+                }
+                String valor = texto(rs, i);
+                if (valor != null) {
+                    escribirCampo(valor);
+                }
+            }
+            this.writer.write("\r\n");
+        }
+        
+        private void escribirCampo(String valor) throws IOException {
+            if (!valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+                valor = "'" + valor;
+            }
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0
+                    && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                this.writer.write(valor);
+                return;
+            }
+            this.writer.write('"');
+            this.writer.write(valor.replace("\"", "\"\""));
+            this.writer.write('"');
+        }
+    }
+    
+    private final class EscritorNdjson extends EscritorFilas {
+        
+        private final JsonGenerator generator;
+        
+        EscritorNdjson(Writer writer) throws IOException {
+            this.generator = ExportacionTransaccionService.this.objectMapper.getFactory().createGenerator(writer);
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        
+        @Override
+        void escribir(ResultSet rs) throws IOException, SQLException {
+            this.generator.writeStartObject();
+            for (int i = 1; i <= COLUMNAS.length; i++) {
+                String valor = texto(rs, i);
+                String campo = CAMPOS_JSON[i - 1];
+                if (i == COLUMNA_MONTO && valor != null) {
+                    this.generator.writeFieldName(campo);
+                    this.generator.writeNumber(valor);
+                } else {
+                    this.generator.writeStringField(campo, valor);
+                }
+            }
+            this.generator.writeEndObject();
+        }
+        
+        @Override
+        void finalizar() throws IOException {
+            if (this.filas > 0) {
+                this.generator.writeRaw('\n');
+            }
+            this.generator.flush();
+        }
+    }
+
+}
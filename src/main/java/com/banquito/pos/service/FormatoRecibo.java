@@ -0,0 +1,137 @@
+package com.banquito.pos.service;
+
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+
+import java.io.ByteArrayOutputStream;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arma el comprobante de una transacción como una lista de líneas de ancho fijo y la
+ * convierte en texto plano o en comandos ESC/POS para impresoras térmicas de 80 mm. El
+ * número de tarjeta solo se muestra enmascarado.
+ */
+final class FormatoRecibo {
+    
+    static final int ANCHO = 42;
+    
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Charset CODIFICACION_ESCPOS = Charset.forName("windows-1252");
+    
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte[] INICIALIZAR = {ESC, '@'};
+    private static final byte[] TABLA_WPC1252 = {ESC, 't', 16};
+    private static final byte[] CENTRAR = {ESC, 'a', 1};
+    private static final byte[] IZQUIERDA = {ESC, 'a', 0};
+    private static final byte[] NEGRITA = {ESC, 'E', 1};
+    private static final byte[] SIN_NEGRITA = {ESC, 'E', 0};
+    private static final byte[] AVANZAR_Y_CORTAR = {GS, 'V', 66, 3};
+    
+    enum Estilo { NORMAL, TITULO, DESTACADO }
+    
+    record Linea(String texto, Estilo estilo) {
+    }
+    
+    private FormatoRecibo() {
+    }
+    
+    static List<Linea> lineas(Transaccion transaccion, ConfiguracionPos configuracion) {
+        List<Linea> lineas = new ArrayList<>();
+        lineas.add(new Linea("COMPROBANTE DE PAGO", Estilo.TITULO));
+        if (configuracion != null) {
+            lineas.add(normal(columnas("Comercio: " + configuracion.getCodigoComercio(),
+                    "POS: " + configuracion.getCodigoPos())));
+        }
+        lineas.add(separador());
+        lineas.add(normal("Fecha: " + transaccion.getFecha().format(FORMATO_FECHA)));
+        lineas.add(normal("Transaccion: " + transaccion.getCodTransaccion()));
+        lineas.add(normal("Ref: " + transaccion.getCodigoUnicoTransaccion()));
+        lineas.add(normal(columnas("Tipo: " + transaccion.getTipo(), modalidad(transaccion))));
+        lineas.add(normal("Tarjeta: " + transaccion.getMarca() + enmascarar(transaccion.getNumeroTarjeta())));
+        if (transaccion.getNombreTitular() != null) {
+            lineas.add(normal("Titular: " + transaccion.getNombreTitular()));
+        }
+        lineas.add(separador());
+        lineas.add(new Linea(columnas("TOTAL", transaccion.getMoneda() + " "
+                + transaccion.getMonto().setScale(2, RoundingMode.HALF_UP).toPlainString()), Estilo.DESTACADO));
+        lineas.add(new Linea("AUT".equals(transaccion.getEstado()) ? "APROBADA" : "RECHAZADA", Estilo.TITULO));
+        if (transaccion.getDetalle() != null) {
+            lineas.add(normal(transaccion.getDetalle()));
+        }
+        return lineas;
+    }
+    
+    static String texto(List<Linea> lineas) {
+        StringBuilder texto = new StringBuilder(lineas.size() * (ANCHO + 1));
+        for (Linea linea : lineas) {
+            String contenido = recortar(linea.texto());
+            if (linea.estilo() == Estilo.TITULO) {
+                texto.append(" ".repeat((ANCHO - contenido.length()) / 2));
+            }
+            texto.append(contenido).append('\n');
+        }
+        return texto.toString();
+    }
+    
+    static byte[] escPos(List<Linea> lineas) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(lineas.size() * (ANCHO + 8) + 16);
+        salida.writeBytes(INICIALIZAR);
+        salida.writeBytes(TABLA_WPC1252);
+        for (Linea linea : lineas) {
+            boolean titulo = linea.estilo() == Estilo.TITULO;
+            boolean negrita = linea.estilo() != Estilo.NORMAL;
+            if (titulo) {
+                salida.writeBytes(CENTRAR);
+            }
+            if (negrita) {
+                salida.writeBytes(NEGRITA);
+            }
+            salida.writeBytes(recortar(linea.texto()).getBytes(CODIFICACION_ESCPOS));
+            salida.write('\n');
+            if (negrita) {
+                salida.writeBytes(SIN_NEGRITA);
+            }
+            if (titulo) {
+                salida.writeBytes(IZQUIERDA);
+            }
+        }
+        salida.writeBytes(AVANZAR_Y_CORTAR);
+        return salida.toByteArray();
+    }
+    
+    private static Linea normal(String texto) {
+        return new Linea(texto, Estilo.NORMAL);
+    }
+    
+    private static Linea separador() {
+        return normal("-".repeat(ANCHO));
+    }
+    
+    private static String modalidad(Transaccion transaccion) {
+        if ("DIF".equals(transaccion.getModalidad()) && transaccion.getPlazo() != null) {
+            return "DIF " + transaccion.getPlazo() + " cuotas";
+        }
+        return transaccion.getModalidad();
+    }
+    
+    private static String enmascarar(String numeroTarjeta) {
+        if (numeroTarjeta == null || numeroTarjeta.length() < 4) {
+            return "";
+        }
+        return " **** " + numeroTarjeta.substring(numeroTarjeta.length() - 4);
+    }
+    
+    private static String columnas(String izquierda, String derecha) {
+        int espacios = ANCHO - izquierda.length() - derecha.length();
+        return espacios > 0 ? izquierda + " ".repeat(espacios) + derecha : izquierda + " " + derecha;
+    }
+    
+    private static String recortar(String texto) {
+        return texto.length() > ANCHO ? texto.substring(0, ANCHO) : texto;
+    }
+}
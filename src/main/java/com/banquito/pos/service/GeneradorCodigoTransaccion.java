@@ -0,0 +1,25 @@
+package com.banquito.pos.service;
+
+public interface GeneradorCodigoTransaccion {
+
+    int LONGITUD_PREFIJO = 3;
+    
+    String siguiente(String codigoPos);
+    
+    /**
+     * Los últimos 3 caracteres alfanuméricos del código del terminal, completados con 'T'.
+     * Dos terminales pueden tener el mismo; el prefijo que se usa lo asigna la secuencia.
+     */
+    static String prefijoPreferido(String codigoPos) {
+        char[] prefijo = {'T', 'T', 'T'};
+        String codigo = codigoPos.toUpperCase();
+        int posicion = LONGITUD_PREFIJO - 1;
+        for (int i = codigo.length() - 1; i >= 0 && posicion >= 0; i--) {
+            char c = codigo.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                prefijo[posicion--] = c;
+            }
+        }
+        return new String(prefijo);
+    }
+}
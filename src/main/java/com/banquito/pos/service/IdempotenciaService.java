@@ -0,0 +1,189 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.ClaveIdempotenciaReutilizadaException;
+import com.banquito.pos.exception.CommunicationException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.Transaccion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pagos idempotentes por clave del cliente (cabecera Idempotency-Key), que se usa como
+ * código único de la transacción. Un reintento con la misma clave recibe el resultado ya
+ * registrado, o espera al pago en curso, sin volver a llamar al Payment Gateway. Los
+ * resultados definitivos se guardan en un índice LRU acotado; fuera de él se consulta la
+ * base, donde un índice único sobre el código único impide enviar dos veces la misma clave.
+ * <p>
+ * Si el Payment Gateway no respondió, la transacción queda en ENV y un reintento con la
+ * misma clave la vuelve a enviar. Cada pago guarda la huella de su solicitud: un reintento
+ * con la misma clave y otros datos se rechaza con {@link ClaveIdempotenciaReutilizadaException}.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+    
+    private final TransaccionService transaccionService;
+    private final Map<String, Transaccion> resultados;
+    private final Map<String, CompletableFuture<Transaccion>> enCurso = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    
+    public IdempotenciaService(TransaccionService transaccionService, MeterRegistry registry,
+            @Value("${pos.idempotencia.capacidad:10000}") int capacidad) {
+        this.transaccionService = transaccionService;
+        this.registry = registry;
+        this.resultados = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Transaccion> eldest) {
+                return size() > capacidad;
+            }
+        };
+    }
+    
+    public Transaccion procesarTransaccion(String clave, Transaccion transaccion, String cvv,
+            String fechaExpiracion) {
+        transaccion.setHuellaSolicitud(huella(transaccion));
+        Transaccion conocida = buscarResultado(clave);
+        if (conocida != null) {
+            return verificar(clave, transaccion, duplicado("cache", clave, conocida));
+        }
+        
+        CompletableFuture<Transaccion> propio = new CompletableFuture<>();
+        CompletableFuture<Transaccion> existente = this.enCurso.putIfAbsent(clave, propio);
+        if (existente != null) {
+            return verificar(clave, transaccion, duplicado("en-curso", clave, esperar(existente)));
+        }
+        
+        try {
+            Optional<Transaccion> registrada = this.transaccionService.buscarEstado(clave);
+            Transaccion resultado;
+            if (registrada.isPresent()) {
+                Transaccion previa = verificar(clave, transaccion, registrada.get());
+                resultado = this.transaccionService.reenviable(previa)
+                        ? this.transaccionService.reenviar(previa, transaccion, cvv, fechaExpiracion)
+                        : duplicado("base", clave, previa);
+            } else {
+                transaccion.setCodigoUnicoTransaccion(clave);
+                resultado = this.transaccionService.procesarReintentable(transaccion, cvv, fechaExpiracion);
+            }
+            recordar(clave, resultado);
+            propio.complete(resultado);
+            return verificar(clave, transaccion, resultado);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("La clave de idempotencia {} ya fue registrada por otra solicitud", clave);
+            Transaccion resultado = duplicado("base", clave, this.transaccionService.consultarEstado(clave));
+            propio.complete(resultado);
+            return verificar(clave, transaccion, resultado);
+        } catch (CommunicationException e) {
+            this.transaccionService.buscarEstado(clave).ifPresent(rechazada -> recordar(clave, rechazada));
+            propio.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.enCurso.remove(clave, propio);
+        }
+    }
+    
+    private Transaccion buscarResultado(String clave) {
+        synchronized (this.resultados) {
+            return this.resultados.get(clave);
+        }
+    }
+    
+    /**
+     * Solo se recuerdan estados definitivos: un pago ENV aceptado fuera de línea o sin
+     * respuesta del Payment Gateway todavía puede cambiar y se vuelve a consultar en la base.
+     */
+    private void recordar(String clave, Transaccion resultado) {
+        if ("ENV".equals(resultado.getEstado())) {
+            return;
+        }
+        synchronized (this.resultados) {
+            this.resultados.put(clave, resultado);
+        }
+    }
+    
+    private Transaccion esperar(CompletableFuture<Transaccion> enCurso) {
+        try {
+            return enCurso.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Las claves son únicas en todo el servicio, pero un terminal solo recibe los pagos
+     * registrados a su nombre: la misma clave enviada desde otro terminal se rechaza. Un
+     * pago registrado sin huella, anterior a ella, no se compara.
+     */
+    private Transaccion verificar(String clave, Transaccion solicitada, Transaccion resultado) {
+        if (solicitada.getCodigoPos() != null && resultado.getCodigoPos() != null 
+                && !solicitada.getCodigoPos().equals(resultado.getCodigoPos())) {
+            log.error("La clave de idempotencia {} fue usada por el POS {} y no por {}", 
+                    clave, resultado.getCodigoPos(), solicitada.getCodigoPos());
+            throw new ValidationException("La clave de idempotencia ya fue usada por otro terminal");
+        }
+        if (resultado.getHuellaSolicitud() != null 
+                && !resultado.getHuellaSolicitud().equals(solicitada.getHuellaSolicitud())) {
+            log.error("La clave de idempotencia {} fue usada con otra solicitud", clave);
+            throw new ClaveIdempotenciaReutilizadaException(clave);
+        }
+        return resultado;
+    }
+    
+    /**
+     * SHA-256 de los datos del pago. De la tarjeta solo entran el BIN, los últimos cuatro
+     * dígitos y la longitud, que pueden guardarse sin cifrar.
+     */
+    static String huella(Transaccion transaccion) {
+        String tarjeta = transaccion.getNumeroTarjeta();
+        if (tarjeta != null && tarjeta.length() >= 10) {
+            tarjeta = tarjeta.substring(0, 6) + tarjeta.substring(tarjeta.length() - 4) + tarjeta.length();
+        }
+        String datos = String.join("|", 
+                transaccion.getMonto() != null ? transaccion.getMonto().stripTrailingZeros().toPlainString() : "",
+                transaccion.getMoneda(), transaccion.getMarca(), transaccion.getModalidad(),
+                Objects.toString(transaccion.getPlazo()), Objects.toString(transaccion.getRecurrente()),
+                Objects.toString(transaccion.getFrecuenciaDias()), transaccion.getNombreTitular(), tarjeta);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(datos.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    private Transaccion duplicado(String origen, String clave, Transaccion resultado) {
+        log.info("Solicitud duplicada con clave de idempotencia {}, estado {}", clave, resultado.getEstado());
+        Counter.builder("pos.idempotencia.duplicados")
+                .tag("origen", origen)
+                .description("Pagos repetidos resueltos sin llamar al Payment Gateway")
+                .register(this.registry)
+                .increment();
+        return resultado;
+    }
+}
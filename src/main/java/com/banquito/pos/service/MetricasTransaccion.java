@@ -0,0 +1,56 @@
+package com.banquito.pos.service;
+
+import org.springframework.stereotype.Component;
+
+import com.banquito.pos.model.Transaccion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Tiempos de cada etapa del pago (validación, registro ENV, llamada al Payment Gateway y
+ * registro del resultado) en el temporizador pos.transaccion.etapa, con histograma de
+ * percentiles para poder agregarlos entre instancias en Prometheus.
+ */
+@Component
+public class MetricasTransaccion {
+
+    static final String VALIDACION = "validacion";
+    static final String INSERCION_ENV = "insercion_env";
+    static final String GATEWAY = "gateway";
+    static final String INSERCION_RESULTADO = "insercion_resultado";
+    
+    static final String EXITO = "exito";
+    static final String ERROR = "error";
+    
+    private static final String SIN_VALOR = "ninguna";
+    
+    private final MeterRegistry registry;
+    
+    public MetricasTransaccion(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    Timer.Sample iniciar() {
+        return Timer.start(this.registry);
+    }
+    
+    void registrar(Timer.Sample muestra, String etapa, Transaccion transaccion, String resultado) {
+        muestra.stop(Timer.builder("pos.transaccion.etapa")
+                .description("Duración de cada etapa del procesamiento de un pago")
+                .tag("etapa", etapa)
+                .tag("marca", valor(transaccion.getMarca()))
+                .tag("modalidad", valor(transaccion.getModalidad()))
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(this.registry));
+    }
+    
+    private static String valor(String valor) {
+        return valor != null ? valor : SIN_VALOR;
+    }
+}
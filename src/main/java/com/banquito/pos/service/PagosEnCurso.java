@@ -0,0 +1,32 @@
+package com.banquito.pos.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pagos de este proceso cuyo registro ENV ya existe y que todavía no tienen resultado:
+ * esperan en la cola de un executor o al Payment Gateway, sea cual sea la vía por la que
+ * llegaron (síncrona, asíncrona, lote o cobro recurrente). La recuperación de pendientes no
+ * les asigna un resultado aunque superen la antigüedad de recuperación, porque lo
+ * registrará quien los envía. Tras un reinicio el registro está vacío y los ENV anteriores
+ * se recuperan.
+ */
+@Component
+public class PagosEnCurso {
+    
+    private final Set<String> codigos = ConcurrentHashMap.newKeySet();
+    
+    public void registrar(String codTransaccion) {
+        this.codigos.add(codTransaccion);
+    }
+    
+    public void liberar(String codTransaccion) {
+        this.codigos.remove(codTransaccion);
+    }
+    
+    public boolean contiene(String codTransaccion) {
+        return this.codigos.contains(codTransaccion);
+    }
+}
@@ -0,0 +1,102 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.PaymentGatewayClient;
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.client.dto.TransaccionResponseDTO;
+
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Llamadas al Payment Gateway protegidas por un circuit breaker (por tasa de errores y de
+ * llamadas lentas) y un bulkhead de concurrencia, configurados en las propiedades
+ * resilience4j.*.instances.paymentGateway. Mientras el circuito está abierto las llamadas
+ * fallan de inmediato con {@code CallNotPermittedException}; si el bulkhead está lleno,
+ * con {@code BulkheadFullException}. Se publican las llamadas en curso y las fallas de
+ * Feign clasificadas por causa.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentGatewayService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentGatewayService.class);
+    
+    static final String PAYMENT_GATEWAY = "paymentGateway";
+    
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    
+    @PostConstruct
+    public void registrarEventos() {
+        Gauge.builder("pos.gateway.llamadas.en-curso", this.enCurso, AtomicInteger::get)
+                .description("Llamadas al Payment Gateway esperando respuesta")
+                .register(this.meterRegistry);
+        this.circuitBreakerRegistry.circuitBreaker(PAYMENT_GATEWAY).getEventPublisher()
+                .onStateTransition(evento -> {
+                    log.warn("Circuito del Payment Gateway: {} -> {}", 
+                            evento.getStateTransition().getFromState(), evento.getStateTransition().getToState());
+                    this.meterRegistry.counter("pos.gateway.circuito.transiciones",
+                            "desde", evento.getStateTransition().getFromState().name(),
+                            "hacia", evento.getStateTransition().getToState().name())
+                            .increment();
+                });
+    }
+    
+    @CircuitBreaker(name = PAYMENT_GATEWAY)
+    @Bulkhead(name = PAYMENT_GATEWAY)
+    public TransaccionResponseDTO procesarTransaccion(TransaccionRequestDTO request) {
+        String requestId = request.getCodigoUnicoTransaccion() != null 
+                ? request.getCodigoUnicoTransaccion() : UUID.randomUUID().toString();
+        this.enCurso.incrementAndGet();
+        try {
+            return this.paymentGatewayClient.procesarTransaccion(requestId, request);
+        } catch (FeignException e) {
+            Counter.builder("pos.gateway.errores")
+                    .tag("causa", causa(e))
+                    .description("Fallas de las llamadas al Payment Gateway por causa")
+                    .register(this.meterRegistry)
+                    .increment();
+            throw e;
+        } finally {
+            this.enCurso.decrementAndGet();
+        }
+    }
+    
+    private static String causa(FeignException error) {
+        if (error instanceof FeignException.FeignClientException) {
+            return "http_4xx";
+        }
+        if (error instanceof FeignException.FeignServerException) {
+            return "http_5xx";
+        }
+        if (error instanceof RetryableException) {
+            if (error.getCause() instanceof SocketTimeoutException) {
+                return "timeout";
+            }
+            if (error.getCause() instanceof ConnectException) {
+                return "conexion";
+            }
+            return "io";
+        }
+        return "otro";
+    }
+}
@@ -0,0 +1,183 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.CuotaDiferida;
+import com.banquito.pos.model.PlanDiferido;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.CuotaDiferidaRepository;
+import com.banquito.pos.repository.PlanDiferidoRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planes de los pagos diferidos (modalidad DIF) autorizados. El calendario de cuotas se
+ * calcula una sola vez al autorizar el pago y se guarda una fila por cuota, con su fecha
+ * de vencimiento y su período; las consultas de cuotas por vencer y los totales de fin de
+ * mes leen esas filas por índice en lugar de recalcular cada plan.
+ */
+@Service
+public class PlanDiferidoService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PlanDiferidoService.class);
+    
+    private static final int LIMITE_MAXIMO = 1000;
+    
+    /**
+     * Plazo máximo en meses de un pago diferido; debe coincidir con el @Max de TransaccionDTO.
+     */
+    public static final int PLAZO_MAXIMO = 48;
+    
+    private final PlanDiferidoRepository planRepository;
+    private final CuotaDiferidaRepository cuotaRepository;
+    private final ColaEscrituraSqlite colaEscritura;
+    
+    public record ResumenCuotas(String periodo, String moneda, long cantidad, BigDecimal monto) {
+    }
+    
+    public PlanDiferidoService(PlanDiferidoRepository planRepository, CuotaDiferidaRepository cuotaRepository,
+            ColaEscrituraSqlite colaEscritura) {
+        this.planRepository = planRepository;
+        this.cuotaRepository = cuotaRepository;
+        this.colaEscritura = colaEscritura;
+    }
+    
+    /**
+     * Crea el plan y sus cuotas de un pago diferido autorizado en una sola escritura. El
+     * código único del pago es el código del plan, por lo que registrar dos veces el mismo
+     * pago no lo duplica. Un error aquí no afecta al pago, que ya fue autorizado.
+     */
+    public void registrar(Transaccion resultado, TransaccionRequestDTO request) {
+        if (!"DIF".equals(resultado.getModalidad()) || request.getPlazo() == null || request.getPlazo() <= 0) {
+            return;
+        }
+        
+        String codPlan = resultado.getCodigoUnicoTransaccion();
+        if (request.getPlazo() > PLAZO_MAXIMO) {
+            log.error("No se registra el plan diferido {}: plazo de {} meses mayor al máximo de {}",
+                    codPlan, request.getPlazo(), PLAZO_MAXIMO);
+            return;
+        }
+        try {
+            PlanDiferido plan = new PlanDiferido(codPlan);
+            plan.setCodTransaccion(resultado.getCodTransaccion());
+            plan.setCodigoComercio(request.getCodigoComercio());
+            plan.setMarca(resultado.getMarca());
+            plan.setMonto(resultado.getMonto());
+            plan.setMoneda(resultado.getMoneda());
+            plan.setPlazo(request.getPlazo());
+            plan.setFechaAutorizacion(resultado.getFecha());
+            List<CuotaDiferida> cuotas = calcularCuotas(plan);
+            
+            boolean creado = this.colaEscritura.ejecutar(() -> {
+                if (this.planRepository.existsById(codPlan)) {
+                    return false;
+                }
+                this.planRepository.save(plan);
+                this.cuotaRepository.saveAll(cuotas);
+                return true;
+            });
+            if (creado) {
+                log.info("Plan diferido {} registrado con {} cuotas de {} {}",
+                        codPlan, cuotas.size(), cuotas.get(0).getMonto(), plan.getMoneda());
+            }
+        } catch (RuntimeException e) {
+            log.error("No se pudo registrar el plan diferido {}: {}", codPlan, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Cuotas iguales truncadas a centavos; la última cuota lleva la diferencia para que la
+     * suma sea exactamente el monto del pago. Vencen mes a mes desde la autorización.
+     */
+    static List<CuotaDiferida> calcularCuotas(PlanDiferido plan) {
+        int plazo = plan.getPlazo();
+        BigDecimal monto = plan.getMonto().setScale(2, RoundingMode.HALF_UP);
+        BigDecimal cuota = monto.divide(BigDecimal.valueOf(plazo), 2, RoundingMode.DOWN);
+        BigDecimal ultima = monto.subtract(cuota.multiply(BigDecimal.valueOf(plazo - 1)));
+        LocalDate inicio = plan.getFechaAutorizacion().toLocalDate();
+        
+        List<CuotaDiferida> cuotas = new ArrayList<>(plazo);
+        for (int numero = 1; numero <= plazo; numero++) {
+            LocalDate vencimiento = inicio.plusMonths(numero);
+            CuotaDiferida nueva = new CuotaDiferida(plan.getCodPlan(), numero);
+            nueva.setCodigoComercio(plan.getCodigoComercio());
+            nueva.setFechaVencimiento(vencimiento);
+            nueva.setPeriodo(YearMonth.from(vencimiento).toString());
+            nueva.setMonto(numero == plazo ? ultima : cuota);
+            nueva.setMoneda(plan.getMoneda());
+            cuotas.add(nueva);
+        }
+        return cuotas;
+    }
+    
+    public PlanDiferido obtener(String codPlan) {
+        return this.planRepository.findById(codPlan)
+                .orElseThrow(() -> new NotFoundException(codPlan, "PlanDiferido"));
+    }
+    
+    public List<CuotaDiferida> cuotas(String codPlan) {
+        return this.cuotaRepository.findByCodPlanOrderByNumeroCuota(codPlan);
+    }
+    
+    /**
+     * Cuotas que vencen entre {@code desde} (por defecto hoy) y {@code hasta}, ambas
+     * incluidas, en orden de vencimiento; {@code codigoComercio} es opcional.
+     */
+    public List<CuotaDiferida> cuotasPorVencer(String codigoComercio, LocalDate desde, LocalDate hasta,
+            int limite) {
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        validarRango(inicio, hasta);
+        Pageable pagina = PageRequest.of(0, Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+        if (codigoComercio == null || codigoComercio.isBlank()) {
+            return this.cuotaRepository
+                    .findByFechaVencimientoBetweenOrderByFechaVencimientoAscCodPlanAscNumeroCuotaAsc(
+                            inicio, hasta, pagina);
+        }
+        return this.cuotaRepository
+                .findByCodigoComercioAndFechaVencimientoBetweenOrderByFechaVencimientoAscCodPlanAscNumeroCuotaAsc(
+                        codigoComercio, inicio, hasta, pagina);
+    }
+    
+    /**
+     * Cuentas por cobrar por mes de vencimiento y moneda, sumadas en la base sobre las
+     * cuotas ya calculadas.
+     */
+    public List<ResumenCuotas> resumen(String codigoComercio, LocalDate desde, LocalDate hasta) {
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        validarRango(inicio, hasta);
+        List<Object[]> filas = codigoComercio == null || codigoComercio.isBlank()
+                ? this.cuotaRepository.totalizarPorPeriodo(inicio, hasta)
+                : this.cuotaRepository.totalizarPorPeriodo(codigoComercio, inicio, hasta);
+        
+        List<ResumenCuotas> resumen = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            long centavos = fila[3] != null ? ((Number) fila[3]).longValue() : 0;
+            resumen.add(new ResumenCuotas((String) fila[0], (String) fila[1], ((Number) fila[2]).longValue(),
+                    BigDecimal.valueOf(centavos, 2)));
+        }
+        return resumen;
+    }
+    
+    private static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (hasta == null) {
+            throw new ValidationException("La fecha hasta es obligatoria");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new ValidationException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.TransaccionRepository;
+import com.banquito.pos.service.FormatoRecibo.Linea;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recibos de las transacciones AUT/REC. El resultado del pago solo se encola en una cola
+ * acotada; un hilo propio genera el recibo en texto y en ESC/POS y lo guarda en un caché
+ * LRU para cuando se pida. Generarlo no lo imprime: ESTADO_RECIBO pasa a IMP recién la
+ * primera vez que {@link #obtener} lo entrega para imprimir, en lotes, con un UPDATE por
+ * lote a través de {@link ColaEscrituraSqlite}. Si la cola está llena el recibo se
+ * descarta y queda PEN; se genera igual al pedirlo.
+ */
+@Service
+public class ReciboService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReciboService.class);
+    
+    private final TransaccionRepository repository;
+    private final ColaEscrituraSqlite colaEscritura;
+    private final ConfiguracionPosCache configuracionCache;
+    private final MeterRegistry registry;
+    private final BlockingQueue<Transaccion> cola;
+    private final ConcurrentLinkedQueue<String> impresos = new ConcurrentLinkedQueue<>();
+    private final Map<String, Recibo> recientes;
+    private final Set<String> sinEntregar = new HashSet<>();
+    private final int lote;
+    private final long intervaloMs;
+    private final Counter descartados;
+    private final Thread generador;
+    
+    private volatile boolean activo = true;
+    
+    public record Recibo(String codTransaccion, String texto, byte[] escPos) {
+    }
+    
+    public ReciboService(TransaccionRepository repository, ColaEscrituraSqlite colaEscritura,
+            ConfiguracionPosCache configuracionCache, MeterRegistry registry,
+            @Value("${pos.recibos.capacidad:1000}") int capacidad,
+            @Value("${pos.recibos.cache:500}") int capacidadCache,
+            @Value("${pos.recibos.lote:100}") int lote,
+            @Value("${pos.recibos.intervalo-ms:500}") long intervaloMs) {
+        this.repository = repository;
+        this.colaEscritura = colaEscritura;
+        this.configuracionCache = configuracionCache;
+        this.registry = registry;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.recientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Recibo> eldest) {
+                if (size() > capacidadCache) {
+                    ReciboService.this.sinEntregar.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.lote = lote;
+        this.intervaloMs = intervaloMs;
+        this.descartados = Counter.builder("pos.recibos.descartados")
+                .description("Recibos no encolados porque la cola de recibos estaba llena")
+                .register(registry);
+        this.generador = new Thread(this::procesar, "pos-recibos");
+        this.generador.setDaemon(true);
+    }
+    
+    @PostConstruct
+    public void iniciar() {
+        Gauge.builder("pos.recibos.cola", this.cola, BlockingQueue::size)
+                .description("Recibos pendientes de generar")
+                .register(this.registry);
+        this.generador.start();
+    }
+    
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        this.activo = false;
+        this.generador.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    
+    /**
+     * Se ejecuta en el hilo del pago: solo encola, sin esperar si la cola está llena.
+     */
+    @EventListener
+    public void registrarResultado(TransaccionFinalizadaEvent evento) {
+        if (!this.cola.offer(evento.resultado())) {
+            this.descartados.increment();
+            log.warn("Cola de recibos llena, el recibo de {} queda pendiente", evento.resultado().getCodTransaccion());
+        }
+    }
+    
+    /**
+     * Recibo para imprimir o reimprimir: se toma del caché o se genera desde la base, y si
+     * aún no se había entregado se marca como impreso. Los recibos generados desde la base
+     * no incluyen la tarjeta ni el titular, que no se almacenan.
+     */
+    public Recibo obtener(String codTransaccion) {
+        Recibo reciente = buscar(codTransaccion);
+        if (reciente != null) {
+            return reciente;
+        }
+        
+        Transaccion transaccion = this.repository.findById(codTransaccion)
+                .orElseThrow(() -> new NotFoundException(codTransaccion, "Transaccion"));
+        if (!"AUT".equals(transaccion.getEstado()) && !"REC".equals(transaccion.getEstado())) {
+            throw new ValidationException("La transacción " + codTransaccion + " no tiene un resultado para imprimir");
+        }
+        Recibo recibo = generar(transaccion, false);
+        if ("PEN".equals(transaccion.getEstadoRecibo())) {
+            this.impresos.add(codTransaccion);
+        }
+        return recibo;
+    }
+    
+    private Recibo buscar(String codTransaccion) {
+        synchronized (this.recientes) {
+            Recibo recibo = this.recientes.get(codTransaccion);
+            if (recibo != null && this.sinEntregar.remove(codTransaccion)) {
+                this.impresos.add(codTransaccion);
+            }
+            return recibo;
+        }
+    }
+    
+    private Recibo generar(Transaccion transaccion, boolean sinEntregar) {
+        ConfiguracionPos configuracion = this.configuracionCache.findByCodigoPos(transaccion.getCodigoPos())
+                .or(this.configuracionCache::obtenerLocal)
+                .orElse(null);
+        List<Linea> lineas = FormatoRecibo.lineas(transaccion, configuracion);
+        Recibo recibo = new Recibo(transaccion.getCodTransaccion(), FormatoRecibo.texto(lineas),
+                FormatoRecibo.escPos(lineas));
+        synchronized (this.recientes) {
+            this.recientes.put(recibo.codTransaccion(), recibo);
+            if (sinEntregar) {
+                this.sinEntregar.add(recibo.codTransaccion());
+            }
+        }
+        return recibo;
+    }
+    
+    private void procesar() {
+        List<String> porMarcar = new ArrayList<>(this.lote);
+        long ultimaMarca = System.nanoTime();
+        while (this.activo || !this.cola.isEmpty()) {
+            try {
+                Transaccion transaccion = this.cola.poll(this.intervaloMs, TimeUnit.MILLISECONDS);
+                if (transaccion != null) {
+                    generar(transaccion, true);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("No se pudo generar un recibo: {}", e.getMessage(), e);
+            }
+            
+            String codigo;
+            while (porMarcar.size() < this.lote && (codigo = this.impresos.poll()) != null) {
+                porMarcar.add(codigo);
+            }
+            boolean vencido = System.nanoTime() - ultimaMarca >= TimeUnit.MILLISECONDS.toNanos(this.intervaloMs);
+            if (!porMarcar.isEmpty() && (porMarcar.size() >= this.lote || vencido)) {
+                marcar(porMarcar);
+                ultimaMarca = System.nanoTime();
+            }
+        }
+        this.impresos.forEach(porMarcar::add);
+        if (!porMarcar.isEmpty()) {
+            marcar(porMarcar);
+        }
+        log.info("Generador de recibos detenido");
+    }
+    
+    /**
+     * Si el UPDATE falla los códigos se conservan y se reintentan en el siguiente lote.
+     */
+    private void marcar(List<String> codigos) {
+        try {
+            int marcados = this.colaEscritura.ejecutar(() -> this.repository.marcarRecibosImpresos(codigos));
+            log.debug("{} recibos marcados como impresos", marcados);
+            codigos.clear();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron marcar {} recibos como impresos: {}", codigos.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RecuperacionTransaccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecuperacionTransaccionService.class);
+    
+    private final TransaccionRepository repository;
+    private final TransaccionService transaccionService;
+    private final PagosEnCurso pagosEnCurso;
+    
+    @Value("${pos.recuperacion.antiguedad-minutos:5}")
+    private long antiguedadMinutos;
+    
+    @Scheduled(initialDelayString = "${pos.recuperacion.retraso-inicial-ms:10000}", 
+               fixedDelayString = "${pos.recuperacion.intervalo-ms:60000}")
+    public void recuperarTransaccionesPendientes() {
+        LocalDateTime fechaLimite = LocalDateTime.now().minusMinutes(this.antiguedadMinutos);
+        List<Transaccion> pendientes = this.repository.findEnviadasSinResultado(fechaLimite);
+        
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        
+        log.warn("Se encontraron {} transacciones en estado ENV sin resultado", pendientes.size());
+        for (Transaccion transaccion : pendientes) {
+            if (enCurso(transaccion)) {
+                log.info("Transacción {} aún en curso, no se recupera", transaccion.getCodTransaccion());
+                continue;
+            }
+            Transaccion resultado = this.transaccionService.registrarResultado(transaccion, "REC", 
+                    "Sin respuesta del Payment Gateway (recuperada)");
+            log.info("Transacción {} recuperada con estado {}", 
+                    transaccion.getCodTransaccion(), resultado.getEstado());
+        }
+    }
+    
+    /**
+     * Un pago que espera un hilo o al Payment Gateway más que la antigüedad de recuperación
+     * sigue en {@link PagosEnCurso}: su resultado lo registrará quien lo envía.
+     */
+    private boolean enCurso(Transaccion transaccion) {
+        return this.pagosEnCurso.contiene(transaccion.getCodTransaccion());
+    }
+}
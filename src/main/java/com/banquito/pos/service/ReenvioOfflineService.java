@@ -0,0 +1,164 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.client.dto.TransaccionResponseDTO;
+import com.banquito.pos.config.ModoOfflineProperties;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.model.TransaccionOffline;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Vacía la cola offline hacia el Payment Gateway en orden de fecha, un lote de
+ * pos.offline.lote pagos por ejecución: el hilo del planificador, que comparten las demás
+ * tareas programadas, queda libre entre lotes aunque la cola tenga miles de pagos. Ante un
+ * fallo de comunicación o de escritura se registra el intento, se detiene el lote y se
+ * espera con retroceso exponencial antes de volver a intentarlo, para no saturar un Payment
+ * Gateway que se está recuperando. Una solicitud que no se puede descifrar (clave rotada o
+ * registro dañado) no se podrá enviar nunca: se concilia como rechazada para que no bloquee
+ * a los pagos encolados después.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReenvioOfflineService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReenvioOfflineService.class);
+    
+    private final TransaccionOfflineService offlineService;
+    private final TransaccionService transaccionService;
+    private final PaymentGatewayService paymentGatewayService;
+    private final TransaccionRepository transaccionRepository;
+    private final SuscripcionService suscripcionService;
+    private final PlanDiferidoService planDiferidoService;
+    private final ModoOfflineProperties propiedades;
+    private final MeterRegistry registry;
+    
+    private int fallosConsecutivos;
+    private LocalDateTime siguienteIntento = LocalDateTime.MIN;
+    
+    @Scheduled(initialDelayString = "${pos.offline.retraso-inicial-ms:10000}",
+               fixedDelayString = "${pos.offline.intervalo-ms:2000}")
+    public void reenviarPendientes() {
+        if (!this.offlineService.isHabilitado() || LocalDateTime.now().isBefore(this.siguienteIntento)) {
+            return;
+        }
+        
+        List<TransaccionOffline> lote = this.offlineService.siguientes();
+        for (TransaccionOffline pendiente : lote) {
+            boolean reenviada;
+            try {
+                reenviada = reenviar(pendiente);
+            } catch (RuntimeException e) {
+                log.error("No se pudo reenviar la transacción offline {}: {}",
+                        pendiente.getCodTransaccion(), e.getMessage(), e);
+                registrarIntento(pendiente, e);
+                reenviada = false;
+            }
+            if (!reenviada) {
+                programarReintento();
+                return;
+            }
+        }
+        if (!lote.isEmpty()) {
+            this.fallosConsecutivos = 0;
+        }
+    }
+    
+    private boolean reenviar(TransaccionOffline pendiente) {
+        Optional<Transaccion> envio = this.transaccionRepository.findById(pendiente.getCodTransaccion());
+        if (envio.isEmpty()) {
+            log.error("Transacción offline {} sin registro ENV, se descarta", pendiente.getCodTransaccion());
+            this.offlineService.descartar(pendiente);
+            return true;
+        }
+        
+        Transaccion transaccion = envio.get();
+        if (pendiente.getFecha().isBefore(LocalDateTime.now().minusHours(this.propiedades.getVigenciaHoras()))) {
+            conciliar(pendiente, transaccion, "REC", "Sin respuesta del Payment Gateway (vencida)");
+            return true;
+        }
+        
+        TransaccionRequestDTO solicitud;
+        try {
+            solicitud = this.offlineService.solicitud(pendiente);
+        } catch (RuntimeException e) {
+            log.error("Solicitud de la transacción offline {} ilegible, se concilia como rechazada: {}",
+                    pendiente.getCodTransaccion(), e.getMessage());
+            conciliar(pendiente, transaccion, "REC", "Solicitud offline ilegible");
+            return true;
+        }
+        
+        TransaccionResponseDTO respuesta;
+        try {
+            respuesta = this.paymentGatewayService.procesarTransaccion(solicitud);
+        } catch (FeignException.FeignClientException e) {
+            conciliar(pendiente, transaccion, "REC", "Rechazada por el Payment Gateway");
+            return true;
+        } catch (FeignException | CallNotPermittedException | BulkheadFullException e) {
+            log.warn("Payment Gateway no disponible para la transacción offline {}: {}",
+                    pendiente.getCodTransaccion(), e.getMessage());
+            registrarIntento(pendiente, e);
+            return false;
+        }
+        
+        String detalle = respuesta.getMensaje() != null ? respuesta.getMensaje() : "Transacción autorizada";
+        Transaccion resultado = conciliar(pendiente, transaccion, "AUT", detalle);
+        if ("AUT".equals(resultado.getEstado())) {
+            this.suscripcionService.registrar(resultado, solicitud);
+            this.planDiferidoService.registrar(resultado, solicitud);
+        }
+        return true;
+    }
+    
+    /**
+     * Si tampoco se puede guardar el intento, el retroceso del lote se aplica igual.
+     */
+    private void registrarIntento(TransaccionOffline pendiente, RuntimeException error) {
+        try {
+            this.offlineService.registrarIntento(pendiente, error.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo registrar el intento de la transacción offline {}: {}",
+                    pendiente.getCodTransaccion(), e.getMessage());
+        }
+    }
+    
+    private Transaccion conciliar(TransaccionOffline pendiente, Transaccion transaccion, String estado, String detalle) {
+        Transaccion resultado = this.transaccionService.registrando(transaccion, () -> {
+            boolean aplicado = this.offlineService.conciliar(pendiente, estado, detalle);
+            return this.transaccionService.resultadoRegistrado(transaccion, estado, detalle, aplicado);
+        });
+        Counter.builder("pos.offline.conciliadas")
+                .tag("estado", estado)
+                .description("Pagos offline conciliados con el Payment Gateway")
+                .register(this.registry)
+                .increment();
+        log.info("Transacción offline {} conciliada con estado {}",
+                pendiente.getCodTransaccion(), resultado.getEstado());
+        return resultado;
+    }
+    
+    private void programarReintento() {
+        this.fallosConsecutivos++;
+        long espera = this.propiedades.getEsperaInicialMs() << Math.min(this.fallosConsecutivos - 1, 16);
+        espera = Math.min(espera, this.propiedades.getEsperaMaximaMs());
+        espera += ThreadLocalRandom.current().nextLong(espera / 5 + 1);
+        this.siguienteIntento = LocalDateTime.now().plusNanos(espera * 1_000_000);
+        log.info("Reenvío offline pospuesto {} ms tras {} fallos consecutivos", espera, this.fallosConsecutivos);
+    }
+}
@@ -0,0 +1,116 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Códigos de transacción monótonos por terminal: el prefijo de 3 caracteres que la
+ * secuencia del terminal tiene asignado, seguido del valor de la secuencia en base 36 con
+ * 7 dígitos, para respetar los 10 caracteres de COD_TRANSACCION. La secuencia se identifica
+ * por el código completo del terminal y el prefijo solo da formato al código; como ningún
+ * otro terminal usa el mismo prefijo, los códigos son únicos aunque dos terminales terminen
+ * igual. Los valores se reservan en bloques persistidos en POS_SECUENCIA_TRANSACCION, de
+ * modo que una escritura cubre un bloque completo y los valores no usados de un bloque se
+ * descartan al reiniciar. Las reservas pasan por el escritor de SQLite como cualquier otra
+ * escritura, y el bloque siguiente se pide cuando queda una cuarta parte del actual, para
+ * que el pago que agota el bloque no espere al escritor.
+ */
+@Component
+public class SecuenciaCodigoTransaccion implements GeneradorCodigoTransaccion {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciaCodigoTransaccion.class);
+    
+    static final int DIGITOS = 7;
+    static final long MAXIMO = 78_364_164_096L; // 36^7
+    
+    static final char[] BASE36 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    
+    private final SecuenciaTransaccionService secuenciaService;
+    private final long tamanoBloque;
+    private final long umbralAnticipo;
+    private final Map<String, Rango> rangos = new ConcurrentHashMap<>();
+    private final Object asignacion = new Object();
+    
+    public SecuenciaCodigoTransaccion(SecuenciaTransaccionService secuenciaService,
+            @Value("${pos.transaccion.bloque-secuencia:1000}") long tamanoBloque) {
+        this.secuenciaService = secuenciaService;
+        this.tamanoBloque = tamanoBloque;
+        this.umbralAnticipo = Math.max(tamanoBloque / 4, 1);
+    }
+    
+    @Override
+    public String siguiente(String codigoPos) {
+        return this.rangos.computeIfAbsent(codigoPos, Rango::new).siguiente();
+    }
+    
+    static String formatear(String prefijo, long valor) {
+        if (valor < 0 || valor >= MAXIMO) {
+            throw new IllegalStateException("Secuencia agotada para el prefijo: " + prefijo);
+        }
+        return prefijo + base36(valor, DIGITOS);
+    }
+    
+    static String base36(long valor, int digitos) {
+        char[] codigo = new char[digitos];
+        for (int i = digitos - 1; i >= 0; i--) {
+            codigo[i] = BASE36[(int) (valor % 36)];
+            valor /= 36;
+        }
+        return new String(codigo);
+    }
+    
+    private final class Rango {
+        
+        private final String codigoPos;
+        private String prefijo;
+        private long actual;
+        private long fin;
+        private CompletableFuture<Long> anticipado;
+        
+        Rango(String codigoPos) {
+            this.codigoPos = codigoPos;
+        }
+        
+        synchronized String siguiente() {
+            if (this.prefijo == null) {
+                synchronized (asignacion) {
+                    this.prefijo = secuenciaService.asignarPrefijo(this.codigoPos);
+                }
+            }
+            if (this.actual >= this.fin) {
+                this.actual = siguienteBloque();
+                this.fin = this.actual + tamanoBloque;
+            }
+            String codigo = formatear(this.prefijo, this.actual++);
+            if (this.anticipado == null && this.fin - this.actual <= umbralAnticipo) {
+                this.anticipado = secuenciaService.reservarBloqueAnticipado(this.prefijo, tamanoBloque);
+            }
+            return codigo;
+        }
+        
+        /**
+         * El bloque reservado por anticipado o, si no se pidió o no se pudo reservar, uno
+         * reservado ahora.
+         */
+        private long siguienteBloque() {
+            CompletableFuture<Long> reserva = this.anticipado;
+            this.anticipado = null;
+            if (reserva != null) {
+                try {
+                    return reserva.join();
+                } catch (CompletionException e) {
+                    log.warn("No se pudo reservar por anticipado el bloque del prefijo {}: {}",
+                            this.prefijo, e.getMessage());
+                }
+            }
+            return secuenciaService.reservarBloque(this.prefijo, tamanoBloque);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.banquito.pos.service;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.model.SecuenciaTransaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.SecuenciaTransaccionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class SecuenciaTransaccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciaTransaccionService.class);
+    
+    private static final int PREFIJOS = 36 * 36 * 36;
+    
+    private final SecuenciaTransaccionRepository repository;
+    private final ColaEscrituraSqlite colaEscritura;
+    
+    /**
+     * Devuelve el prefijo de 3 caracteres de la secuencia del terminal y la crea si no existe.
+     * Cada terminal tiene su propia secuencia y un prefijo que no comparte con otro: se usa el
+     * derivado del código del terminal si está libre (o si es una secuencia anterior sin
+     * terminal, que el terminal continúa) y si no otro prefijo libre, para que POS001 y ABC001
+     * no generen el mismo COD_TRANSACCION. Quien llama debe serializar las asignaciones.
+     */
+    public String asignarPrefijo(String codigoPos) {
+        return this.colaEscritura.ejecutar(() -> asignar(codigoPos));
+    }
+    
+    /**
+     * Reserva de forma persistente el rango [inicio, inicio + cantidad) de la secuencia con el
+     * prefijo indicado, asignada antes con {@link #asignarPrefijo}, y devuelve su inicio.
+     */
+    public long reservarBloque(String prefijo, long cantidad) {
+        return this.colaEscritura.ejecutar(() -> reservar(prefijo, cantidad));
+    }
+    
+    /**
+     * Igual que {@link #reservarBloque}, pero sin esperar al escritor: el bloque siguiente se
+     * reserva mientras el actual todavía tiene valores.
+     */
+    public CompletableFuture<Long> reservarBloqueAnticipado(String prefijo, long cantidad) {
+        return this.colaEscritura.encolar(() -> reservar(prefijo, cantidad));
+    }
+    
+    private String asignar(String codigoPos) {
+        SecuenciaTransaccion secuencia = this.repository.findByCodigoPos(codigoPos).orElse(null);
+        if (secuencia != null) {
+            return secuencia.getPrefijo();
+        }
+        
+        String preferido = GeneradorCodigoTransaccion.prefijoPreferido(codigoPos);
+        secuencia = this.repository.findById(preferido).orElse(null);
+        if (secuencia != null && secuencia.getCodigoPos() == null) {
+            log.info("El terminal {} continúa la secuencia del prefijo {}", codigoPos, preferido);
+            secuencia.setCodigoPos(codigoPos);
+            this.repository.saveAndFlush(secuencia);
+            return preferido;
+        }
+        
+        String prefijo = elegirPrefijo(preferido, this.repository.findPrefijos());
+        log.info("Creando secuencia de transacciones del terminal {} con el prefijo {}", codigoPos, prefijo);
+        this.repository.saveAndFlush(new SecuenciaTransaccion(prefijo, codigoPos, 0L));
+        return prefijo;
+    }
+    
+    private long reservar(String prefijo, long cantidad) {
+        if (this.repository.incrementar(prefijo, cantidad) == 0) {
+            throw new IllegalStateException("Secuencia no encontrada para el prefijo: " + prefijo);
+        }
+        
+        long siguiente = this.repository.findSiguiente(prefijo)
+                .orElseThrow(() -> new IllegalStateException("Secuencia no encontrada para el prefijo: " + prefijo));
+        log.debug("Bloque reservado para el prefijo {} hasta {}", prefijo, siguiente);
+        return siguiente - cantidad;
+    }
+    
+    /**
+     * El prefijo preferido si está libre; si no, el mismo con otro primer carácter, que
+     * conserva los dos últimos del terminal, y por último cualquier prefijo libre.
+     */
+    static String elegirPrefijo(String preferido, Set<String> usados) {
+        if (!usados.contains(preferido)) {
+            return preferido;
+        }
+        for (char c : SecuenciaCodigoTransaccion.BASE36) {
+            String candidato = c + preferido.substring(1);
+            if (!usados.contains(candidato)) {
+                return candidato;
+            }
+        }
+        for (int valor = 0; valor < PREFIJOS; valor++) {
+            String candidato = SecuenciaCodigoTransaccion.base36(valor, GeneradorCodigoTransaccion.LONGITUD_PREFIJO);
+            if (!usados.contains(candidato)) {
+                return candidato;
+            }
+        }
+        throw new IllegalStateException("No quedan prefijos libres para el terminal con prefijo " + preferido);
+    }
+}
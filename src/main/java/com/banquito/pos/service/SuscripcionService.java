@@ -0,0 +1,209 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.exception.NotFoundException;
+import com.banquito.pos.model.Suscripcion;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.SuscripcionRepository;
+import com.banquito.pos.service.AgendaCobros.Cobro;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Suscripciones creadas por los pagos recurrentes (modalidad REC) autorizados. Guarda la
+ * solicitud original cifrada y sin CVV para repetir el cobro cada {@code frecuenciaDias},
+ * y mantiene en {@link AgendaCobros} los cobros próximos que ejecuta
+ * {@link CobroRecurrenteService}.
+ */
+@Service
+public class SuscripcionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SuscripcionService.class);
+    
+    static final String ACTIVA = "ACT";
+    static final String SUSPENDIDA = "SUS";
+    static final String CANCELADA = "CAN";
+    
+    private final SuscripcionRepository repository;
+    private final ColaEscrituraSqlite colaEscritura;
+    private final CifradoSolicitudes cifrado;
+    private final MeterRegistry registry;
+    private final AgendaCobros agenda = new AgendaCobros();
+    
+    public SuscripcionService(SuscripcionRepository repository, ColaEscrituraSqlite colaEscritura,
+            CifradoSolicitudes cifrado, MeterRegistry registry) {
+        this.repository = repository;
+        this.colaEscritura = colaEscritura;
+        this.cifrado = cifrado;
+        this.registry = registry;
+    }
+    
+    @PostConstruct
+    public void registrarMetricas() {
+        Gauge.builder("pos.recurrentes.agenda", this.agenda, AgendaCobros::tamano)
+                .description("Cobros recurrentes próximos cargados en memoria")
+                .register(this.registry);
+    }
+    
+    public boolean isHabilitado() {
+        return this.cifrado.isDisponible();
+    }
+    
+    /**
+     * Crea la suscripción de un pago recurrente autorizado; el código único del pago es el
+     * código de la suscripción, por lo que registrar dos veces el mismo pago no la duplica.
+     * Un error aquí no afecta al pago, que ya fue autorizado.
+     */
+    public void registrar(Transaccion resultado, TransaccionRequestDTO request) {
+        if (!"REC".equals(resultado.getModalidad()) || resultado.getCodSuscripcion() != null
+                || request.getFrecuenciaDias() == null || request.getFrecuenciaDias() <= 0) {
+            return;
+        }
+        if (!isHabilitado()) {
+            log.warn("No se registra la suscripción del pago {}: pos.offline.clave no está configurada", 
+                    resultado.getCodTransaccion());
+            return;
+        }
+        
+        String codSuscripcion = resultado.getCodigoUnicoTransaccion();
+        try {
+            Suscripcion suscripcion = new Suscripcion(codSuscripcion);
+            suscripcion.setMarca(resultado.getMarca());
+            suscripcion.setMonto(resultado.getMonto());
+            suscripcion.setMoneda(resultado.getMoneda());
+            suscripcion.setFrecuenciaDias(request.getFrecuenciaDias());
+            suscripcion.setFechaCreacion(resultado.getFecha());
+            suscripcion.setUltimoCobro(resultado.getFecha());
+            suscripcion.setProximoCobro(resultado.getFecha().plusDays(request.getFrecuenciaDias())
+                    .truncatedTo(ChronoUnit.MILLIS));
+            suscripcion.setCobros(1);
+            suscripcion.setFallos(0);
+            suscripcion.setEstado(ACTIVA);
+            suscripcion.setSolicitud(this.cifrado.cifrar(request, codSuscripcion));
+            
+            boolean creada = this.colaEscritura.ejecutar(() -> {
+                if (this.repository.existsById(codSuscripcion)) {
+                    return false;
+                }
+                this.repository.save(suscripcion);
+                return true;
+            });
+            if (creada) {
+                this.agenda.agregar(cobro(suscripcion));
+                log.info("Suscripción {} registrada, próximo cobro {}", codSuscripcion, suscripcion.getProximoCobro());
+            }
+        } catch (RuntimeException e) {
+            log.error("No se pudo registrar la suscripción {}: {}", codSuscripcion, e.getMessage(), e);
+        }
+    }
+    
+    public Suscripcion obtener(String codSuscripcion) {
+        return this.repository.findById(codSuscripcion)
+                .orElseThrow(() -> new NotFoundException(codSuscripcion, "Suscripcion"));
+    }
+    
+    public Suscripcion cancelar(String codSuscripcion) {
+        Suscripcion cancelada = this.colaEscritura.ejecutar(() -> {
+            Suscripcion suscripcion = obtener(codSuscripcion);
+            suscripcion.setEstado(CANCELADA);
+            return this.repository.save(suscripcion);
+        });
+        log.info("Suscripción {} cancelada", codSuscripcion);
+        return cancelada;
+    }
+    
+    TransaccionRequestDTO solicitud(Suscripcion suscripcion) {
+        return this.cifrado.descifrar(suscripcion.getSolicitud(), suscripcion.getCodSuscripcion());
+    }
+    
+    void cargarAgenda(LocalDateTime hasta, int capacidad) {
+        this.agenda.cargar(hasta, capacidad, (limite, despuesDe, cantidad) -> 
+                this.repository.findSiguientes(limite, despuesDe.fecha(), despuesDe.codSuscripcion(), 
+                        PageRequest.of(0, cantidad))
+                        .stream().map(SuscripcionService::cobro).toList());
+    }
+    
+    /**
+     * Retira de la agenda hasta {@code maximo} cobros vencidos y devuelve sus suscripciones,
+     * descartando las entradas que ya no coinciden con la base.
+     */
+    List<Suscripcion> vencidas(LocalDateTime ahora, int maximo) {
+        List<Cobro> cobros = this.agenda.vencidos(ahora, maximo);
+        if (cobros.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, Suscripcion> suscripciones = this.repository.findAllById(
+                cobros.stream().map(Cobro::codSuscripcion).toList())
+                .stream().collect(Collectors.toMap(Suscripcion::getCodSuscripcion, Function.identity()));
+        List<Suscripcion> vencidas = new ArrayList<>(cobros.size());
+        Set<String> incluidas = new HashSet<>();
+        for (Cobro cobro : cobros) {
+            Suscripcion suscripcion = suscripciones.get(cobro.codSuscripcion());
+            if (suscripcion != null && ACTIVA.equals(suscripcion.getEstado())
+                    && cobro.fecha().equals(suscripcion.getProximoCobro())
+                    && incluidas.add(suscripcion.getCodSuscripcion())) {
+                vencidas.add(suscripcion);
+            }
+        }
+        return vencidas;
+    }
+    
+    /**
+     * Guarda el resultado de un lote de cobros en una sola escritura y devuelve a la agenda
+     * los próximos cobros de las suscripciones que siguen activas. Una suscripción cancelada
+     * mientras se cobraba conserva su estado.
+     */
+    void reprogramar(List<Suscripcion> suscripciones) {
+        if (suscripciones.isEmpty()) {
+            return;
+        }
+        List<Suscripcion> guardadas = this.colaEscritura.ejecutar(() -> {
+            List<Suscripcion> vigentes = new ArrayList<>(suscripciones.size());
+            for (Suscripcion suscripcion : suscripciones) {
+                boolean activa = this.repository.findById(suscripcion.getCodSuscripcion())
+                        .filter(actual -> ACTIVA.equals(actual.getEstado()))
+                        .isPresent();
+                if (activa) {
+                    vigentes.add(this.repository.save(suscripcion));
+                }
+            }
+            return vigentes;
+        });
+        for (Suscripcion suscripcion : guardadas) {
+            if (ACTIVA.equals(suscripcion.getEstado())) {
+                this.agenda.agregar(cobro(suscripcion));
+            }
+        }
+    }
+    
+    /**
+     * Devuelve a la agenda cobros retirados con {@link #vencidas} cuyo resultado no se pudo
+     * guardar; al retirarlos de nuevo se validan contra la base como cualquier otro.
+     */
+    void devolverAgenda(List<Cobro> cobros) {
+        cobros.forEach(this.agenda::agregar);
+    }
+    
+    static Cobro cobro(Suscripcion suscripcion) {
+        return new Cobro(suscripcion.getProximoCobro(), suscripcion.getCodSuscripcion());
+    }
+}
@@ -0,0 +1,185 @@
+package com.banquito.pos.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice de rangos de BIN (los primeros dígitos del número de tarjeta) con la marca y los
+ * largos de número válidos de cada rango. Los rangos se normalizan a BIN de 8 dígitos y se
+ * guardan sin solapes en un arreglo ordenado por inicio, de modo que una búsqueda es una
+ * búsqueda binaria sobre enteros, sin asignar memoria. Cuando un rango está dentro de otro,
+ * el más estrecho prevalece sobre esa parte del más amplio.
+ * <p>
+ * Formato de cada línea: {@code desde;hasta;marca;longitudes}, con desde y hasta como
+ * prefijos de 1 a 8 dígitos, ambos incluidos, y longitudes separadas por comas. Las líneas
+ * vacías y las que empiezan con # se ignoran.
+ */
+final class TablaBin {
+    
+    static final int DIGITOS_BIN = 8;
+    
+    private static final int LONGITUD_MINIMA = 12;
+    private static final int LONGITUD_MAXIMA = 19;
+    
+    private final int[] inicios;
+    private final Rango[] rangos;
+    
+    record Rango(int desde, int hasta, String marca, int longitudes) {
+        
+        boolean admiteLongitud(int longitud) {
+            return longitud <= LONGITUD_MAXIMA && (this.longitudes & (1 << longitud)) != 0;
+        }
+        
+        /**
+         * Largos válidos en texto, por ejemplo "13, 16 o 19".
+         */
+        String describirLongitudes() {
+            List<String> valores = new ArrayList<>();
+            for (int longitud = LONGITUD_MINIMA; longitud <= LONGITUD_MAXIMA; longitud++) {
+                if (admiteLongitud(longitud)) {
+                    valores.add(String.valueOf(longitud));
+                }
+            }
+            int ultimo = valores.size() - 1;
+            return ultimo <= 0 ? String.join("", valores)
+                    : String.join(", ", valores.subList(0, ultimo)) + " o " + valores.get(ultimo);
+        }
+        
+        private long ancho() {
+            return (long) this.hasta - this.desde;
+        }
+    }
+    
+    private TablaBin(List<Rango> rangos) {
+        this.rangos = rangos.toArray(Rango[]::new);
+        this.inicios = new int[this.rangos.length];
+        for (int i = 0; i < this.rangos.length; i++) {
+            this.inicios[i] = this.rangos[i].desde();
+        }
+    }
+    
+    static TablaBin leer(BufferedReader lector) throws IOException {
+        List<Rango> rangos = new ArrayList<>();
+        String linea;
+        int numeroLinea = 0;
+        while ((linea = lector.readLine()) != null) {
+            numeroLinea++;
+            linea = linea.strip();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            try {
+                rangos.add(interpretar(linea));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Línea " + numeroLinea + " de la tabla de BIN inválida: "
+                        + e.getMessage(), e);
+            }
+        }
+        return new TablaBin(aplanar(rangos));
+    }
+    
+    /**
+     * Rango que contiene el BIN del número, o null si ninguna marca lo tiene. El número debe
+     * tener al menos {@link #DIGITOS_BIN} dígitos.
+     */
+    Rango buscar(String numeroTarjeta) {
+        int bin = 0;
+        for (int i = 0; i < DIGITOS_BIN; i++) {
+            bin = bin * 10 + (numeroTarjeta.charAt(i) - '0');
+        }
+        int indice = Arrays.binarySearch(this.inicios, bin);
+        if (indice < 0) {
+            indice = -indice - 2;
+        }
+        if (indice < 0 || this.rangos[indice].hasta() < bin) {
+            return null;
+        }
+        return this.rangos[indice];
+    }
+    
+    int tamanio() {
+        return this.rangos.length;
+    }
+    
+    private static Rango interpretar(String linea) {
+        String[] campos = linea.split(";");
+        if (campos.length != 4) {
+            throw new IllegalArgumentException("se esperaban 4 campos separados por ;");
+        }
+        int desde = normalizar(campos[0].strip(), '0');
+        int hasta = normalizar(campos[1].strip(), '9');
+        if (desde > hasta) {
+            throw new IllegalArgumentException("el inicio del rango es mayor que el fin");
+        }
+        String marca = campos[2].strip();
+        if (marca.isEmpty() || marca.length() > 4) {
+            throw new IllegalArgumentException("marca inválida " + marca);
+        }
+        int longitudes = 0;
+        for (String valor : campos[3].split(",")) {
+            int longitud = Integer.parseInt(valor.strip());
+            if (longitud < LONGITUD_MINIMA || longitud > LONGITUD_MAXIMA) {
+                throw new IllegalArgumentException("longitud fuera de " + LONGITUD_MINIMA + " a " + LONGITUD_MAXIMA);
+            }
+            longitudes |= 1 << longitud;
+        }
+        return new Rango(desde, hasta, marca, longitudes);
+    }
+    
+    /**
+     * Completa el prefijo hasta 8 dígitos: con ceros para el inicio de un rango y con nueves
+     * para el fin, así "51;55" cubre desde 51000000 hasta 55999999.
+     */
+    private static int normalizar(String prefijo, char relleno) {
+        if (prefijo.isEmpty() || prefijo.length() > DIGITOS_BIN || !prefijo.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("prefijo inválido " + prefijo);
+        }
+        StringBuilder bin = new StringBuilder(DIGITOS_BIN).append(prefijo);
+        while (bin.length() < DIGITOS_BIN) {
+            bin.append(relleno);
+        }
+        return Integer.parseInt(bin.toString());
+    }
+    
+    /**
+     * Pinta los rangos del más amplio al más estrecho sobre un mapa de segmentos disjuntos,
+     * partiendo los segmentos ya pintados que queden cubiertos. Entre rangos del mismo ancho
+     * prevalece el que aparece después en la tabla.
+     */
+    private static List<Rango> aplanar(List<Rango> rangos) {
+        List<Rango> ordenados = new ArrayList<>(rangos);
+        ordenados.sort(Comparator.comparingLong(Rango::ancho).reversed());
+        
+        TreeMap<Integer, Rango> segmentos = new TreeMap<>();
+        for (Rango rango : ordenados) {
+            Map.Entry<Integer, Rango> anterior = segmentos.lowerEntry(rango.desde());
+            if (anterior != null && anterior.getValue().hasta() >= rango.desde()) {
+                Rango partido = anterior.getValue();
+                segmentos.put(partido.desde(), recortar(partido, partido.desde(), rango.desde() - 1));
+                if (partido.hasta() > rango.hasta()) {
+                    segmentos.put(rango.hasta() + 1, recortar(partido, rango.hasta() + 1, partido.hasta()));
+                }
+            }
+            
+            List<Rango> cubiertos = new ArrayList<>(segmentos.subMap(rango.desde(), true, rango.hasta(), true).values());
+            for (Rango cubierto : cubiertos) {
+                segmentos.remove(cubierto.desde());
+                if (cubierto.hasta() > rango.hasta()) {
+                    segmentos.put(rango.hasta() + 1, recortar(cubierto, rango.hasta() + 1, cubierto.hasta()));
+                }
+            }
+            segmentos.put(rango.desde(), rango);
+        }
+        return new ArrayList<>(segmentos.values());
+    }
+    
+    private static Rango recortar(Rango rango, int desde, int hasta) {
+        return new Rango(desde, hasta, rango.marca(), rango.longitudes());
+    }
+}
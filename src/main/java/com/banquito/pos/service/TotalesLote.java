@@ -0,0 +1,102 @@
+package com.banquito.pos.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Totales acumulados del lote abierto por marca, modalidad, moneda y estado. Los pagos
+ * registran su resultado y suman en paralelo bajo el candado de lectura; el cierre toma el
+ * de escritura solo para fijar su fecha y reemplazar el mapa, de modo que ningún pago queda
+ * fuera del lote cerrado ni del nuevo y la fecha del resultado indica en cuál está.
+ */
+class TotalesLote {
+
+    record Clave(String marca, String modalidad, String moneda, String estado) {
+    }
+    
+    record Reinicio(LocalDateTime fecha, List<Total> totales) {
+    }
+    
+    record Total(Clave clave, long cantidad, long centavos) {
+        
+        BigDecimal monto() {
+            return BigDecimal.valueOf(this.centavos, 2);
+        }
+    }
+    
+    private static final class Acumulado {
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder centavos = new LongAdder();
+    }
+    
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private volatile Map<Clave, Acumulado> acumulados = new ConcurrentHashMap<>();
+    
+    /**
+     * Ejecuta el registro de un resultado, desde que se fecha hasta que suma, sin que un
+     * cierre pueda ocurrir en medio.
+     */
+    <T> T registrando(Supplier<T> registro) {
+        this.candado.readLock().lock();
+        try {
+            return registro.get();
+        } finally {
+            this.candado.readLock().unlock();
+        }
+    }
+    
+    void sumar(Clave clave, long cantidad, long centavos) {
+        this.candado.readLock().lock();
+        try {
+            Acumulado acumulado = this.acumulados.computeIfAbsent(clave, c -> new Acumulado());
+            acumulado.cantidad.add(cantidad);
+            acumulado.centavos.add(centavos);
+        } finally {
+            this.candado.readLock().unlock();
+        }
+    }
+    
+    List<Total> consultar() {
+        return totales(this.acumulados);
+    }
+    
+    /**
+     * Entrega los totales del lote y deja el acumulado en cero, en tiempo proporcional
+     * al número de combinaciones y no al de transacciones. La fecha de cierre se obtiene
+     * cuando ya no hay registros en curso.
+     */
+    Reinicio reiniciar(Supplier<LocalDateTime> fechaCierre) {
+        Map<Clave, Acumulado> cerrados;
+        LocalDateTime fecha;
+        this.candado.writeLock().lock();
+        try {
+            fecha = fechaCierre.get();
+            cerrados = this.acumulados;
+            this.acumulados = new ConcurrentHashMap<>();
+        } finally {
+            this.candado.writeLock().unlock();
+        }
+        return new Reinicio(fecha, totales(cerrados));
+    }
+    
+    void restaurar(List<Total> totales) {
+        for (Total total : totales) {
+            sumar(total.clave(), total.cantidad(), total.centavos());
+        }
+    }
+    
+    private static List<Total> totales(Map<Clave, Acumulado> acumulados) {
+        List<Total> totales = new ArrayList<>(acumulados.size());
+        acumulados.forEach((clave, acumulado) -> 
+                totales.add(new Total(clave, acumulado.cantidad.sum(), acumulado.centavos.sum())));
+        return totales;
+    }
+}
@@ -0,0 +1,122 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.CommunicationException;
+import com.banquito.pos.exception.SaturacionException;
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Acepta pagos sin esperar al Payment Gateway: el registro ENV se confirma en el hilo de la
+ * petición y el envío se completa en {@code pagosExecutor}. Las transacciones en curso se
+ * mantienen en memoria para que las consultas de estado puedan esperar su resultado. Si el
+ * executor rechaza el envío, la transacción ya registrada se cierra como REC y la petición
+ * recibe {@link SaturacionException}.
+ */
+@Service
+public class TransaccionAsincronaService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransaccionAsincronaService.class);
+    
+    private final TransaccionService transaccionService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore capacidad;
+    private final Map<String, CompletableFuture<Transaccion>> enCurso = new ConcurrentHashMap<>();
+    
+    public TransaccionAsincronaService(TransaccionService transaccionService,
+            @Qualifier("pagosExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${pos.pagos.asincrono.hilos:8}") int hilos,
+            @Value("${pos.pagos.asincrono.capacidad:200}") int capacidad) {
+        this.transaccionService = transaccionService;
+        this.executor = executor;
+        this.capacidad = new Semaphore(hilos + capacidad);
+    }
+    
+    public Transaccion enviar(Transaccion transaccion, String cvv, String fechaExpiracion) {
+        log.info("Recibiendo transacción asíncrona en terminal POS");
+        if (!this.capacidad.tryAcquire()) {
+            log.error("No hay capacidad para aceptar más transacciones asíncronas");
+            throw new SaturacionException("pagos asíncronos");
+        }
+        
+        try {
+            ConfiguracionPos configuracion = this.transaccionService.obtenerConfiguracionPOS(transaccion.getCodigoPos());
+            Transaccion enviada = this.transaccionService.registrarEnvio(transaccion, configuracion);
+            String codigoUnico = enviada.getCodigoUnicoTransaccion();
+            
+            CompletableFuture<Transaccion> resultado = new CompletableFuture<>();
+            this.enCurso.put(codigoUnico, resultado);
+            try {
+                this.executor.execute(() -> completar(enviada, configuracion, cvv, fechaExpiracion, resultado));
+            } catch (RejectedExecutionException e) {
+                this.enCurso.remove(codigoUnico);
+                log.error("El executor rechazó la transacción asíncrona {}", enviada.getCodTransaccion());
+                descartar(enviada);
+                throw new SaturacionException("pagos asíncronos");
+            }
+            return enviada;
+        } catch (RuntimeException e) {
+            this.capacidad.release();
+            throw e;
+        }
+    }
+    
+    public CompletableFuture<Transaccion> esperarResultado(String codigoUnicoTransaccion) {
+        CompletableFuture<Transaccion> resultado = this.enCurso.get(codigoUnicoTransaccion);
+        if (resultado != null) {
+            return resultado;
+        }
+        return CompletableFuture.completedFuture(this.transaccionService.consultarEstado(codigoUnicoTransaccion));
+    }
+    
+    public Transaccion consultarEstado(String codigoUnicoTransaccion) {
+        CompletableFuture<Transaccion> resultado = this.enCurso.get(codigoUnicoTransaccion);
+        if (resultado != null && resultado.isDone()) {
+            return resultado.join();
+        }
+        return this.transaccionService.consultarEstado(codigoUnicoTransaccion);
+    }
+    
+    /**
+     * Si no se puede registrar el REC, la transacción queda en ENV fuera de
+     * {@link PagosEnCurso} y la cierra la recuperación de pendientes.
+     */
+    private void descartar(Transaccion transaccion) {
+        try {
+            this.transaccionService.descartarEnvio(transaccion, "Capacidad de pagos asíncronos agotada");
+        } catch (RuntimeException e) {
+            log.error("No se pudo cerrar la transacción asíncrona {}: {}", 
+                    transaccion.getCodTransaccion(), e.getMessage());
+        }
+    }
+    
+    private void completar(Transaccion transaccion, ConfiguracionPos configuracion, String cvv, 
+            String fechaExpiracion, CompletableFuture<Transaccion> resultado) {
+        String codigoUnico = transaccion.getCodigoUnicoTransaccion();
+        try {
+            resultado.complete(this.transaccionService.completarTransaccion(
+                    transaccion, configuracion, cvv, fechaExpiracion));
+        } catch (CommunicationException e) {
+            log.error("Transacción asíncrona {} rechazada: {}", codigoUnico, e.getMessage());
+            resultado.complete(this.transaccionService.consultarEstado(codigoUnico));
+        } catch (RuntimeException e) {
+            log.error("Error inesperado en la transacción asíncrona {}: {}", codigoUnico, e.getMessage(), e);
+            resultado.completeExceptionally(e);
+        } finally {
+            this.enCurso.remove(codigoUnico);
+            this.capacidad.release();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.banquito.pos.service;
+
+import com.banquito.pos.model.Transaccion;
+
+/**
+ * Se publica después de confirmar el registro AUT o REC de una transacción, en el hilo
+ * que lo registró; los listeners deben ser breves para no retrasar la respuesta del pago.
+ */
+public record TransaccionFinalizadaEvent(Transaccion resultado) {
+}
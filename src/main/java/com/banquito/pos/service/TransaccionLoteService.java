@@ -0,0 +1,205 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.exception.CommunicationException;
+import com.banquito.pos.exception.SaturacionException;
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionJournal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Procesa lotes de pagos (ventas capturadas fuera de línea, archivos de comercios) con la
+ * misma validación y el mismo envío al Payment Gateway que un pago individual: todos los
+ * registros ENV se insertan en una sola transacción y los envíos se despachan en paralelo
+ * con un límite por lote. Cada resultado se entrega apenas termina su envío. Si la inserción
+ * conjunta falla, por ejemplo por un codigoUnicoTransaccion repetido, los registros se
+ * insertan de a uno y los que fallan se informan como error de su posición en el lote.
+ * <p>
+ * La cola de {@code lotesExecutor} es acotada: si está llena el lote se rechaza con
+ * {@link SaturacionException} antes de registrar nada.
+ */
+@Service
+public class TransaccionLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransaccionLoteService.class);
+    
+    private final TransaccionService transaccionService;
+    private final TransaccionJournal journal;
+    private final PagosEnCurso pagosEnCurso;
+    private final ThreadPoolTaskExecutor executor;
+    private final int paralelismo;
+    private final int maximoLote;
+    
+    public TransaccionLoteService(TransaccionService transaccionService, TransaccionJournal journal,
+            PagosEnCurso pagosEnCurso,
+            @Qualifier("lotesExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${pos.pagos.lote.paralelismo:8}") int paralelismo,
+            @Value("${pos.pagos.lote.maximo:1000}") int maximoLote) {
+        this.transaccionService = transaccionService;
+        this.journal = journal;
+        this.pagosEnCurso = pagosEnCurso;
+        this.executor = executor;
+        this.paralelismo = paralelismo;
+        this.maximoLote = maximoLote;
+    }
+    
+    /**
+     * Todas las transacciones del lote se registran a nombre del terminal {@code codigoPos},
+     * o del terminal local si es null.
+     */
+    public CompletableFuture<Void> procesarLote(String codigoPos, List<SolicitudLote> solicitudes, 
+            Consumer<ResultadoLote> resultados) {
+        log.info("Procesando lote de {} transacciones", solicitudes.size());
+        if (solicitudes.isEmpty() || solicitudes.size() > this.maximoLote) {
+            throw new ValidationException("El lote debe tener entre 1 y " + this.maximoLote + " transacciones");
+        }
+        
+        ConfiguracionPos configuracion = this.transaccionService.obtenerConfiguracionPOS(codigoPos);
+        if (this.executor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+            log.error("No hay capacidad para aceptar más lotes de pagos");
+            throw new SaturacionException("pagos en lote");
+        }
+        
+        List<SolicitudLote> validas = new ArrayList<>(solicitudes.size());
+        for (SolicitudLote solicitud : solicitudes) {
+            if (solicitud.error() != null) {
+                resultados.accept(ResultadoLote.fallido(solicitud.indice(), solicitud.error()));
+                continue;
+            }
+            try {
+                this.transaccionService.prepararEnvio(solicitud.transaccion(), configuracion);
+                validas.add(solicitud);
+            } catch (ValidationException e) {
+                resultados.accept(ResultadoLote.fallido(solicitud.indice(), e.getMessage()));
+            }
+        }
+        
+        if (validas.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        List<SolicitudLote> registradas = registrar(validas, resultados);
+        if (registradas.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.info("Lote: {} transacciones guardadas con estado ENV", registradas.size());
+        
+        Queue<SolicitudLote> pendientes = new ConcurrentLinkedQueue<>(registradas);
+        int trabajadores = Math.min(this.paralelismo, registradas.size());
+        List<CompletableFuture<Void>> envios = new ArrayList<>(trabajadores);
+        for (int i = 0; i < trabajadores; i++) {
+            try {
+                envios.add(CompletableFuture.runAsync(() -> {
+                    SolicitudLote solicitud;
+                    while ((solicitud = pendientes.poll()) != null) {
+                        resultados.accept(completar(solicitud, configuracion));
+                    }
+                }, this.executor));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        if (envios.isEmpty()) {
+            descartar(pendientes, resultados);
+        }
+        return CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new));
+    }
+    
+    /**
+     * Los pagos figuran en {@link PagosEnCurso} desde antes de insertarse hasta que termina su
+     * envío, aunque esperen un trabajador más que la antigüedad de recuperación.
+     */
+    private List<SolicitudLote> registrar(List<SolicitudLote> validas, Consumer<ResultadoLote> resultados) {
+        validas.forEach(solicitud -> this.pagosEnCurso.registrar(solicitud.transaccion().getCodTransaccion()));
+        try {
+            this.journal.insertarTodas(validas.stream().map(SolicitudLote::transaccion).toList());
+            return validas;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo registrar el lote en una sola escritura, se registra de a una: {}", e.getMessage());
+        }
+        
+        List<SolicitudLote> registradas = new ArrayList<>(validas.size());
+        for (SolicitudLote solicitud : validas) {
+            try {
+                this.journal.insertar(solicitud.transaccion());
+                registradas.add(solicitud);
+                continue;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Transacción {} del lote duplicada: {}", solicitud.indice(), e.getMessage());
+                resultados.accept(ResultadoLote.fallido(solicitud.indice(), 
+                        "Ya existe una transacción con el código único " + solicitud.transaccion().getCodigoUnicoTransaccion()));
+            } catch (RuntimeException e) {
+                log.error("No se pudo registrar la transacción {} del lote: {}", solicitud.indice(), e.getMessage());
+                resultados.accept(ResultadoLote.fallido(solicitud.indice(), "No se pudo registrar la transacción"));
+            }
+            this.pagosEnCurso.liberar(solicitud.transaccion().getCodTransaccion());
+        }
+        return registradas;
+    }
+    
+    /**
+     * La cola se llenó entre la verificación de capacidad y el despacho, y ningún trabajador
+     * quedó aceptado: las transacciones ya registradas en ENV no se enviaron al Payment
+     * Gateway, por lo que se cierran como REC. Si se aceptó al menos un trabajador, este
+     * procesa todas las pendientes del lote.
+     */
+    private void descartar(Queue<SolicitudLote> pendientes, Consumer<ResultadoLote> resultados) {
+        log.error("Capacidad de pagos en lote agotada, {} transacciones no enviadas", pendientes.size());
+        SolicitudLote solicitud;
+        while ((solicitud = pendientes.poll()) != null) {
+            try {
+                resultados.accept(ResultadoLote.procesado(solicitud.indice(), this.transaccionService.registrarResultado(
+                        solicitud.transaccion(), "REC", "Capacidad de pagos en lote agotada")));
+            } finally {
+                this.pagosEnCurso.liberar(solicitud.transaccion().getCodTransaccion());
+            }
+        }
+    }
+    
+    private ResultadoLote completar(SolicitudLote solicitud, ConfiguracionPos configuracion) {
+        Transaccion transaccion = solicitud.transaccion();
+        try {
+            return ResultadoLote.procesado(solicitud.indice(), this.transaccionService.completarTransaccion(
+                    transaccion, configuracion, solicitud.cvv(), solicitud.fechaExpiracion()));
+        } catch (CommunicationException e) {
+            return ResultadoLote.procesado(solicitud.indice(), 
+                    this.transaccionService.consultarEstado(transaccion.getCodigoUnicoTransaccion()));
+        } catch (RuntimeException e) {
+            log.error("Error inesperado en la transacción {} del lote: {}", 
+                    transaccion.getCodTransaccion(), e.getMessage(), e);
+            return ResultadoLote.fallido(solicitud.indice(), "Error inesperado");
+        } finally {
+            this.pagosEnCurso.liberar(transaccion.getCodTransaccion());
+        }
+    }
+    
+    public record SolicitudLote(int indice, Transaccion transaccion, String cvv, String fechaExpiracion, String error) {
+    }
+    
+    public record ResultadoLote(int indice, Transaccion transaccion, String error) {
+        
+        static ResultadoLote procesado(int indice, Transaccion transaccion) {
+            return new ResultadoLote(indice, transaccion, null);
+        }
+        
+        static ResultadoLote fallido(int indice, String error) {
+            return new ResultadoLote(indice, null, error);
+        }
+    }
+}
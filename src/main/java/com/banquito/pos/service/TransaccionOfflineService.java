@@ -0,0 +1,143 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.config.ModoOfflineProperties;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.model.TransaccionOffline;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.TransaccionJournal;
+import com.banquito.pos.repository.TransaccionOfflineRepository;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola local de pagos aceptados mientras el Payment Gateway no está disponible
+ * (store-and-forward). La solicitud se guarda cifrada con AES-GCM y sin el CVV, que no
+ * puede almacenarse ({@link CifradoSolicitudes}); {@link ReenvioOfflineService} la
+ * reenvía y concilia el resultado.
+ */
+@Service
+public class TransaccionOfflineService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransaccionOfflineService.class);
+    
+    private final TransaccionOfflineRepository repository;
+    private final TransaccionJournal journal;
+    private final ColaEscrituraSqlite colaEscritura;
+    private final ModoOfflineProperties propiedades;
+    private final CifradoSolicitudes cifrado;
+    private final MeterRegistry registry;
+    
+    private final AtomicLong pendientes = new AtomicLong();
+    
+    public TransaccionOfflineService(TransaccionOfflineRepository repository, TransaccionJournal journal,
+            ColaEscrituraSqlite colaEscritura, ModoOfflineProperties propiedades, CifradoSolicitudes cifrado,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.journal = journal;
+        this.colaEscritura = colaEscritura;
+        this.propiedades = propiedades;
+        this.cifrado = cifrado;
+        this.registry = registry;
+    }
+    
+    @PostConstruct
+    public void inicializar() {
+        if (this.propiedades.isHabilitado() && !this.cifrado.isDisponible()) {
+            log.warn("Modo offline deshabilitado: pos.offline.clave no está configurada o no es una clave AES válida");
+        }
+        this.pendientes.set(this.repository.count());
+        Gauge.builder("pos.offline.pendientes", this.pendientes, AtomicLong::get)
+                .description("Pagos encolados pendientes de envío al Payment Gateway")
+                .register(this.registry);
+    }
+    
+    public boolean isHabilitado() {
+        return this.propiedades.isHabilitado() && this.cifrado.isDisponible();
+    }
+    
+    /**
+     * Un pago se encola solo si el Payment Gateway no respondió (los rechazos 4xx son
+     * definitivos) y su monto no supera el límite configurado para su marca y moneda. Los
+     * cobros de una suscripción no se encolan: la agenda de cobros los reintenta.
+     */
+    public boolean admite(Transaccion transaccion, RuntimeException error) {
+        if (!isHabilitado() || error instanceof FeignException.FeignClientException
+                || transaccion.getCodSuscripcion() != null) {
+            return false;
+        }
+        BigDecimal limite = this.propiedades.limite(transaccion.getMarca(), transaccion.getMoneda());
+        return limite != null && transaccion.getMonto().compareTo(limite) <= 0;
+    }
+    
+    public TransaccionOffline encolar(Transaccion transaccion, TransaccionRequestDTO request) {
+        TransaccionOffline pendiente = new TransaccionOffline(transaccion.getCodTransaccion());
+        pendiente.setCodigoUnicoTransaccion(transaccion.getCodigoUnicoTransaccion());
+        pendiente.setFecha(transaccion.getFecha());
+        pendiente.setIntentos(0);
+        pendiente.setSolicitud(this.cifrado.cifrar(request, transaccion.getCodTransaccion()));
+        
+        TransaccionOffline guardada = this.colaEscritura.ejecutar(() -> this.repository.save(pendiente));
+        this.pendientes.incrementAndGet();
+        log.info("Transacción {} encolada para envío diferido al Payment Gateway", transaccion.getCodTransaccion());
+        return guardada;
+    }
+    
+    public List<TransaccionOffline> siguientes() {
+        return this.repository.findAllByOrderByFechaAscCodTransaccionAsc(
+                PageRequest.of(0, this.propiedades.getLote()));
+    }
+    
+    public boolean estaPendiente(String codTransaccion) {
+        return this.repository.existsById(codTransaccion);
+    }
+    
+    public TransaccionRequestDTO solicitud(TransaccionOffline pendiente) {
+        return this.cifrado.descifrar(pendiente.getSolicitud(), pendiente.getCodTransaccion());
+    }
+    
+    /**
+     * Registra el resultado y retira el pago de la cola en una misma transacción, para
+     * que un reinicio no vuelva a enviar un pago ya conciliado. Retorna false si el pago
+     * ya tenía un resultado.
+     */
+    public boolean conciliar(TransaccionOffline pendiente, String estado, String detalle) {
+        boolean aplicado = this.colaEscritura.ejecutar(() -> {
+            this.repository.deleteById(pendiente.getCodTransaccion());
+            return this.journal.registrarResultado(pendiente.getCodTransaccion(), estado, detalle);
+        });
+        this.pendientes.decrementAndGet();
+        return aplicado;
+    }
+    
+    public void descartar(TransaccionOffline pendiente) {
+        this.colaEscritura.ejecutar(() -> {
+            this.repository.deleteById(pendiente.getCodTransaccion());
+            return null;
+        });
+        this.pendientes.decrementAndGet();
+    }
+    
+    /**
+     * No vuelve a insertar un pago que ya se concilió y salió de la cola.
+     */
+    public void registrarIntento(TransaccionOffline pendiente, String error) {
+        pendiente.setIntentos(pendiente.getIntentos() + 1);
+        pendiente.setUltimoError(error != null && error.length() > 200 ? error.substring(0, 200) : error);
+        this.colaEscritura.ejecutar(() -> this.repository.existsById(pendiente.getCodTransaccion())
+                ? this.repository.save(pendiente)
+                : null);
+    }
+}
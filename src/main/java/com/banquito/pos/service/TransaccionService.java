@@ -2,10 +2,9 @@ package com.banquito.pos.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.banquito.pos.client.PaymentGatewayClient;
 import com.banquito.pos.client.dto.TransaccionRequestDTO;
 import com.banquito.pos.client.dto.TransaccionResponseDTO;
 import com.banquito.pos.exception.CommunicationException;
@@ -13,13 +12,19 @@ import com.banquito.pos.exception.NotFoundException;
 import com.banquito.pos.exception.ValidationException;
 import com.banquito.pos.model.ConfiguracionPos;
 import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionJournal;
 import com.banquito.pos.repository.TransaccionRepository;
 
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -28,22 +33,137 @@ public class TransaccionService {
     private static final Logger log = LoggerFactory.getLogger(TransaccionService.class);
     
     private final TransaccionRepository repository;
+    private final TransaccionJournal journal;
     private final ConfiguracionPosService configuracionPosService;
-    private final PaymentGatewayClient paymentGatewayClient;
-        
-    @Transactional
+    private final PaymentGatewayService paymentGatewayService;
+    private final GeneradorCodigoTransaccion generadorCodigo;
+    private final TransaccionOfflineService offlineService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MetricasTransaccion metricas;
+    private final SuscripcionService suscripcionService;
+    private final PlanDiferidoService planDiferidoService;
+    private final ValidadorTarjeta validadorTarjeta;
+    private final CierreLoteService cierreLoteService;
+    private final PagosEnCurso pagosEnCurso;
+    
+    /**
+     * No se ejecuta dentro de una transacción: el registro ENV y el resultado AUT/REC
+     * se confirman cada uno por separado, de modo que la conexión SQLite no queda
+     * retenida mientras se espera la respuesta del Payment Gateway.
+     */
     public Transaccion procesarTransaccion(Transaccion transaccion, String cvv, String fechaExpiracion) {
         log.info("Procesando transacción en terminal POS");
         
-        ConfiguracionPos configuracion = obtenerConfiguracionPOS();
+        ConfiguracionPos configuracion = obtenerConfiguracionPOS(transaccion.getCodigoPos());
+        registrarEnvio(transaccion, configuracion);
+        return completarTransaccion(transaccion, configuracion, cvv, fechaExpiracion);
+    }
+    
+    /**
+     * Pago con clave de idempotencia: si el Payment Gateway no responde o no está disponible,
+     * la transacción queda en ENV en lugar de cerrarse como REC, para que un reintento con la
+     * misma clave la vuelva a enviar con {@link #reenviar}. Un rechazo del Payment Gateway sí
+     * es definitivo. Si nadie reintenta, la cierra la recuperación de pendientes.
+     */
+    Transaccion procesarReintentable(Transaccion transaccion, String cvv, String fechaExpiracion) {
+        ConfiguracionPos configuracion = obtenerConfiguracionPOS(transaccion.getCodigoPos());
+        registrarEnvio(transaccion, configuracion);
+        return completar(transaccion, configuracion, cvv, fechaExpiracion, true);
+    }
+    
+    /**
+     * Indica si la transacción registrada quedó en ENV sin envío pendiente: no está en curso
+     * ni en la cola offline, que la reenvía por su cuenta.
+     */
+    boolean reenviable(Transaccion registrada) {
+        return "ENV".equals(registrada.getEstado()) 
+                && !this.pagosEnCurso.contiene(registrada.getCodTransaccion())
+                && !this.offlineService.estaPendiente(registrada.getCodTransaccion());
+    }
+    
+    /**
+     * Vuelve a enviar una transacción {@link #reenviable} con los datos de tarjeta del
+     * reintento, que no se guardan. Se envía con el mismo código único, que el Payment
+     * Gateway recibe como X-Request-ID.
+     */
+    Transaccion reenviar(Transaccion registrada, Transaccion reintento, String cvv, String fechaExpiracion) {
+        ConfiguracionPos configuracion = obtenerConfiguracionPOS(registrada.getCodigoPos());
+        validarTransaccion(reintento);
+        this.validadorTarjeta.validar(reintento);
+        registrada.setNumeroTarjeta(reintento.getNumeroTarjeta());
+        registrada.setNombreTitular(reintento.getNombreTitular());
+        registrada.setPlazo(reintento.getPlazo());
+        registrada.setRecurrente(reintento.getRecurrente());
+        registrada.setFrecuenciaDias(reintento.getFrecuenciaDias());
+        registrada.setCodSuscripcion(reintento.getCodSuscripcion());
+        
+        log.info("Reenviando la transacción {} en ENV", registrada.getCodTransaccion());
+        this.pagosEnCurso.registrar(registrada.getCodTransaccion());
+        return completar(registrada, configuracion, cvv, fechaExpiracion, true);
+    }
+    
+    public Transaccion consultarEstado(String codigoUnicoTransaccion) {
+        return buscarEstado(codigoUnicoTransaccion).orElseThrow(() -> {
+            log.error("No se encontró la transacción con código único: {}", codigoUnicoTransaccion);
+            return new NotFoundException(codigoUnicoTransaccion, "Transaccion.codigoUnicoTransaccion");
+        });
+    }
+    
+    public Optional<Transaccion> buscarEstado(String codigoUnicoTransaccion) {
+        return this.repository.findByCodigoUnicoTransaccion(codigoUnicoTransaccion);
+    }
+    
+    /**
+     * Configuración del terminal que origina el pago; sin código se usa el terminal local.
+     * Se resuelve en el caché de configuración, sin acceder a la base.
+     */
+    ConfiguracionPos obtenerConfiguracionPOS(String codigoPos) {
+        try {
+            return codigoPos != null 
+                    ? configuracionPosService.findByCodigoPos(codigoPos) 
+                    : configuracionPosService.obtenerConfiguracionLocal();
+        } catch (NotFoundException e) {
+            log.error("No se encontró configuración para el terminal POS {}", codigoPos);
+            throw new ValidationException("Terminal POS no configurado correctamente");
+        }
+    }
+    
+    Transaccion registrarEnvio(Transaccion transaccion, ConfiguracionPos configuracion) {
+        prepararEnvio(transaccion, configuracion);
         
-        validarTransaccion(transaccion);
+        Timer.Sample muestra = this.metricas.iniciar();
+        Transaccion transaccionEnviada;
+        this.pagosEnCurso.registrar(transaccion.getCodTransaccion());
+        try {
+            transaccionEnviada = this.journal.insertar(transaccion);
+        } catch (RuntimeException e) {
+            this.pagosEnCurso.liberar(transaccion.getCodTransaccion());
+            this.metricas.registrar(muestra, MetricasTransaccion.INSERCION_ENV, transaccion, MetricasTransaccion.ERROR);
+            throw e;
+        }
+        this.metricas.registrar(muestra, MetricasTransaccion.INSERCION_ENV, transaccion, MetricasTransaccion.EXITO);
+        log.info("Transacción guardada con estado ENV: {}", transaccionEnviada.getCodTransaccion());
+        return transaccionEnviada;
+    }
+    
+    void prepararEnvio(Transaccion transaccion, ConfiguracionPos configuracion) {
+        Timer.Sample muestra = this.metricas.iniciar();
+        try {
+            validarTransaccion(transaccion);
+            this.validadorTarjeta.validar(transaccion);
+        } catch (ValidationException e) {
+            this.metricas.registrar(muestra, MetricasTransaccion.VALIDACION, transaccion, MetricasTransaccion.ERROR);
+            throw e;
+        }
+        this.metricas.registrar(muestra, MetricasTransaccion.VALIDACION, transaccion, MetricasTransaccion.EXITO);
         
-        String uuid = UUID.randomUUID().toString();
-        String codTransaccion = generarCodigoTransaccion();
+        String codTransaccion = this.generadorCodigo.siguiente(configuracion.getCodigoPos());
         
         transaccion.setCodTransaccion(codTransaccion);
-        transaccion.setCodigoUnicoTransaccion(uuid);
+        transaccion.setCodigoPos(configuracion.getCodigoPos());
+        if (transaccion.getCodigoUnicoTransaccion() == null) {
+            transaccion.setCodigoUnicoTransaccion(UUID.randomUUID().toString());
+        }
         transaccion.setFecha(LocalDateTime.now());
         
         transaccion.setEstado("ENV");
@@ -56,90 +176,145 @@ public class TransaccionService {
             !"DIF".equals(transaccion.getModalidad())) {
             transaccion.setModalidad("SIM");
         }
-        
-        Transaccion transaccionEnviada = this.repository.save(transaccion);
-        log.info("Transacción guardada con estado ENV: {}", transaccionEnviada.getCodTransaccion());
-        
+    }
+    
+    /**
+     * Al terminar, con resultado o encolado fuera de línea, el pago deja de figurar en
+     * {@link PagosEnCurso}, donde lo registró {@link #registrarEnvio}.
+     */
+    Transaccion completarTransaccion(Transaccion transaccion, ConfiguracionPos configuracion, 
+            String cvv, String fechaExpiracion) {
+        return completar(transaccion, configuracion, cvv, fechaExpiracion, false);
+    }
+    
+    private Transaccion completar(Transaccion transaccion, ConfiguracionPos configuracion, 
+            String cvv, String fechaExpiracion, boolean reintentable) {
         try {
-            Transaccion transaccionRespuesta = new Transaccion();
-            
-            transaccionRespuesta.setCodTransaccion(codTransaccion + "-RESP");
-            transaccionRespuesta.setCodigoUnicoTransaccion(uuid);
-            transaccionRespuesta.setFecha(LocalDateTime.now());
-            transaccionRespuesta.setTipo(transaccion.getTipo());
-            transaccionRespuesta.setMarca(transaccion.getMarca());
-            transaccionRespuesta.setModalidad(transaccion.getModalidad());
-            transaccionRespuesta.setDetalle(transaccion.getDetalle());
-            transaccionRespuesta.setMonto(transaccion.getMonto());
-            transaccionRespuesta.setMoneda(transaccion.getMoneda());
-            transaccionRespuesta.setNumeroTarjeta(transaccion.getNumeroTarjeta());
-            transaccionRespuesta.setNombreTitular(transaccion.getNombreTitular());
-            transaccionRespuesta.setFrecuenciaDias(transaccion.getFrecuenciaDias());
-            transaccionRespuesta.setPlazo(transaccion.getPlazo());
-            
-            transaccionRespuesta.setEstadoRecibo("PEN");
-            
-            TransaccionResponseDTO respuesta = enviarTransaccionPaymentGateway(transaccion, configuracion, cvv, fechaExpiracion);
-            
-            transaccionRespuesta.setEstado("AUT");
-            if (respuesta.getMensaje() != null) {
-                transaccionRespuesta.setDetalle(respuesta.getMensaje());
-            } else {
-                transaccionRespuesta.setDetalle("Transacción autorizada");
+            TransaccionRequestDTO request = construirSolicitud(transaccion, configuracion, cvv, fechaExpiracion);
+            TransaccionResponseDTO respuesta;
+            Timer.Sample muestra = this.metricas.iniciar();
+            try {
+                respuesta = this.paymentGatewayService.procesarTransaccion(request);
+                this.metricas.registrar(muestra, MetricasTransaccion.GATEWAY, transaccion, MetricasTransaccion.EXITO);
+            } catch (FeignException | CallNotPermittedException | BulkheadFullException e) {
+                this.metricas.registrar(muestra, MetricasTransaccion.GATEWAY, transaccion, resultadoGateway(e));
+                log.error("Error al comunicarse con el Payment Gateway: {}", e.getMessage());
+                
+                if (this.offlineService.admite(transaccion, e)) {
+                    this.offlineService.encolar(transaccion, request);
+                    log.info("Transacción aceptada fuera de línea con estado ENV: {}", transaccion.getCodTransaccion());
+                    return transaccion;
+                }
+                
+                if (reintentable && !(e instanceof FeignException.FeignClientException)) {
+                    log.info("Transacción {} sin respuesta, queda en ENV para reintentarla", 
+                            transaccion.getCodTransaccion());
+                    throw new CommunicationException("Payment Gateway", e.getMessage());
+                }
+                
+                Transaccion errorGuardado = registrarResultado(transaccion, "REC", 
+                        "Error de comunicación: " + e.getMessage());
+                log.info("Transacción {} guardada con estado {}", 
+                        errorGuardado.getCodTransaccion(), errorGuardado.getEstado());
+                
+                throw new CommunicationException("Payment Gateway", e.getMessage());
             }
             
-            Transaccion transaccionFinal = this.repository.save(transaccionRespuesta);
-            log.info("Transacción de respuesta guardada con estado {}: {}", 
-                    transaccionFinal.getEstado(), transaccionFinal.getCodTransaccion());
+            String detalle = respuesta.getMensaje() != null ? respuesta.getMensaje() : "Transacción autorizada";
+            Transaccion transaccionFinal = registrarResultado(transaccion, "AUT", detalle);
+            log.info("Transacción {} guardada con estado {}", 
+                    transaccionFinal.getCodTransaccion(), transaccionFinal.getEstado());
+            if ("AUT".equals(transaccionFinal.getEstado())) {
+                this.suscripcionService.registrar(transaccionFinal, request);
+                this.planDiferidoService.registrar(transaccionFinal, request);
+            }
             
             return transaccionFinal;
-            
-        } catch (FeignException e) {
-            log.error("Error al comunicarse con el Payment Gateway: {}", e.getMessage());
-            
-            Transaccion transaccionError = new Transaccion();
-            
-            transaccionError.setCodTransaccion(codTransaccion + "-ERROR");
-            transaccionError.setCodigoUnicoTransaccion(uuid);
-            transaccionError.setFecha(LocalDateTime.now());
-            transaccionError.setTipo(transaccion.getTipo());
-            transaccionError.setMarca(transaccion.getMarca());
-            transaccionError.setModalidad(transaccion.getModalidad());
-            transaccionError.setDetalle("Error de comunicación: " + e.getMessage());
-            transaccionError.setMonto(transaccion.getMonto());
-            transaccionError.setMoneda(transaccion.getMoneda());
-            transaccionError.setNumeroTarjeta(transaccion.getNumeroTarjeta());
-            transaccionError.setNombreTitular(transaccion.getNombreTitular());
-            transaccionError.setFrecuenciaDias(transaccion.getFrecuenciaDias());
-            transaccionError.setPlazo(transaccion.getPlazo());
-            transaccionError.setEstado("REC");
-            transaccionError.setEstadoRecibo("PEN");
-            
-            Transaccion errorGuardado = this.repository.save(transaccionError);
-            log.info("Transacción de error guardada: {}", errorGuardado.getCodTransaccion());
-            
-            throw new CommunicationException("Payment Gateway", e.getMessage());
+        } finally {
+            this.pagosEnCurso.liberar(transaccion.getCodTransaccion());
         }
     }
     
-    private ConfiguracionPos obtenerConfiguracionPOS() {
+    /**
+     * Cierra como REC una transacción registrada con {@link #registrarEnvio} que no llegó a
+     * enviarse al Payment Gateway.
+     */
+    Transaccion descartarEnvio(Transaccion transaccion, String detalle) {
         try {
-            return configuracionPosService.obtenerConfiguracionLocal();
-        } catch (NotFoundException e) {
-            log.error("No se encontró configuración para el terminal POS");
-            throw new ValidationException("Terminal POS no configurado correctamente");
+            return registrarResultado(transaccion, "REC", detalle);
+        } finally {
+            this.pagosEnCurso.liberar(transaccion.getCodTransaccion());
         }
     }
     
-    private void validarTransaccion(Transaccion transaccion) {
+    Transaccion registrarResultado(Transaccion transaccion, String estado, String detalle) {
+        return registrando(transaccion, () -> {
+            Timer.Sample muestra = this.metricas.iniciar();
+            boolean aplicado;
+            try {
+                aplicado = this.journal.registrarResultado(transaccion.getCodTransaccion(), estado, detalle);
+            } catch (RuntimeException e) {
+                this.metricas.registrar(muestra, MetricasTransaccion.INSERCION_RESULTADO, transaccion, 
+                        MetricasTransaccion.ERROR);
+                throw e;
+            }
+            this.metricas.registrar(muestra, MetricasTransaccion.INSERCION_RESULTADO, transaccion, 
+                    MetricasTransaccion.EXITO);
+            return resultadoRegistrado(transaccion, estado, detalle, aplicado);
+        });
+    }
+    
+    /**
+     * Quien registra un resultado por otra vía debe hacerlo, junto con
+     * {@link #resultadoRegistrado}, dentro de este método: ver {@link CierreLoteService#registrando}.
+     */
+    <T> T registrando(Transaccion transaccion, Supplier<T> registro) {
+        return this.cierreLoteService.registrando(transaccion.getCodigoPos(), registro);
+    }
+    
+    /**
+     * Completa la transacción con el resultado aplicado y lo publica. Si otro proceso ya
+     * había registrado un resultado (la recuperación de pendientes o una respuesta tardía),
+     * se devuelve ese resultado y no se publica de nuevo.
+     */
+    Transaccion resultadoRegistrado(Transaccion transaccion, String estado, String detalle, boolean aplicado) {
+        if (!aplicado) {
+            Transaccion actual = this.repository.findById(transaccion.getCodTransaccion())
+                    .orElseThrow(() -> new NotFoundException(transaccion.getCodTransaccion(), "Transaccion"));
+            log.warn("La transacción {} ya tenía el resultado {}, se descarta {}", 
+                    transaccion.getCodTransaccion(), actual.getEstado(), estado);
+            return actual;
+        }
+        transaccion.setEstado(estado);
+        transaccion.setDetalle(detalle);
+        publicarResultado(transaccion);
+        return transaccion;
+    }
+    
+    void publicarResultado(Transaccion resultado) {
+        this.eventPublisher.publishEvent(new TransaccionFinalizadaEvent(resultado));
+    }
+    
+    private static String resultadoGateway(RuntimeException error) {
+        if (error instanceof FeignException.FeignClientException) {
+            return "rechazo";
+        }
+        if (error instanceof FeignException) {
+            return MetricasTransaccion.ERROR;
+        }
+        return "no_disponible";
+    }
+    
+    static void validarTransaccion(Transaccion transaccion) {
         if (transaccion.getMonto() == null || transaccion.getMonto().doubleValue() <= 0) {
             log.error("El monto debe ser mayor a 0");
             throw new ValidationException("El monto debe ser mayor a 0");
         }
         
-        if (transaccion.getNumeroTarjeta() == null || transaccion.getNumeroTarjeta().length() != 16) {
-            log.error("El número de tarjeta debe tener 16 dígitos");
-            throw new ValidationException("El número de tarjeta debe tener 16 dígitos");
+        if (transaccion.getNumeroTarjeta() == null || transaccion.getNumeroTarjeta().length() < 13
+                || transaccion.getNumeroTarjeta().length() > 19) {
+            log.error("El número de tarjeta debe tener entre 13 y 19 dígitos");
+            throw new ValidationException("El número de tarjeta debe tener entre 13 y 19 dígitos");
         }
         
         if (transaccion.getNombreTitular() == null || transaccion.getNombreTitular().isEmpty()) {
@@ -149,16 +324,15 @@ public class TransaccionService {
         
         transaccion.setTipo("PAG");
         
-        if (transaccion.getMarca() == null) {
-            log.error("La marca de la tarjeta es requerida");
-            throw new ValidationException("La marca de la tarjeta es requerida");
-        }
-        
         if ("DIF".equals(transaccion.getModalidad())) {
             if (transaccion.getPlazo() == null || transaccion.getPlazo() <= 0) {
                 log.error("Para transacciones diferidas, el plazo es requerido y debe ser mayor a 0");
                 throw new ValidationException("Para transacciones diferidas, el plazo es requerido y debe ser mayor a 0");
             }
+            if (transaccion.getPlazo() > PlanDiferidoService.PLAZO_MAXIMO) {
+                log.error("El plazo de {} meses supera el máximo de {}", transaccion.getPlazo(), PlanDiferidoService.PLAZO_MAXIMO);
+                throw new ValidationException("El plazo no puede superar " + PlanDiferidoService.PLAZO_MAXIMO + " meses");
+            }
         } else if ("REC".equals(transaccion.getModalidad())) {
             if (transaccion.getFrecuenciaDias() == null || transaccion.getFrecuenciaDias() <= 0) {
                 log.error("Para transacciones recurrentes, la frecuencia es requerida y debe ser mayor a 0");
@@ -178,7 +352,8 @@ public class TransaccionService {
         }
     }
     
-    private TransaccionResponseDTO enviarTransaccionPaymentGateway(Transaccion transaccion, ConfiguracionPos configuracion, String cvv, String fechaExpiracion) {
+    static TransaccionRequestDTO construirSolicitud(Transaccion transaccion, ConfiguracionPos configuracion, 
+            String cvv, String fechaExpiracion) {
         TransaccionRequestDTO request = new TransaccionRequestDTO();
         request.setCodigoPOS(configuracion.getCodigoPos());
         request.setCodigoComercio(configuracion.getCodigoComercio());
@@ -206,30 +381,25 @@ public class TransaccionService {
         }
         
         if ("DIF".equals(transaccion.getModalidad())) {
-       
+            
             request.setModalidad("DIF");
             request.setPlazo(transaccion.getPlazo());
             request.setRecurrente(false);
             request.setFrecuenciaDias(null);
         } else if ("REC".equals(transaccion.getModalidad())) {
-        
+            
             request.setModalidad("REC");
             request.setRecurrente(true);
             request.setFrecuenciaDias(transaccion.getFrecuenciaDias());
             request.setPlazo(null);
         } else {
-       
+            
             request.setModalidad("SIM");
             request.setRecurrente(false);
             request.setFrecuenciaDias(null);
             request.setPlazo(null);
         }
         
-        String requestId = UUID.randomUUID().toString();
-        return paymentGatewayClient.procesarTransaccion(requestId, request);
-    }
-    
-    private String generarCodigoTransaccion() {
-        return "TRX" + String.format("%07d", (int) (Math.random() * 10000000));
+        return request;
     }
 } 
\ No newline at end of file
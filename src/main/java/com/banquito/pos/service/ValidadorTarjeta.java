@@ -0,0 +1,125 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.Transaccion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Verificación local del número de tarjeta antes de registrar el pago y de llamar al
+ * Payment Gateway: solo dígitos, dígito verificador Luhn, BIN de una marca aceptada, marca
+ * declarada igual a la del BIN y largo válido para el rango. Si el pago no indica la marca,
+ * se toma la del BIN. La tabla de BIN se carga al iniciar desde pos.tarjetas.tabla-bin
+ * (classpath: o file:). El número de tarjeta nunca se escribe en el log.
+ */
+@Component
+public class ValidadorTarjeta {
+
+    private static final Logger log = LoggerFactory.getLogger(ValidadorTarjeta.class);
+    
+    enum Motivo { FORMATO, LUHN, BIN, MARCA, LONGITUD }
+    
+    private final TablaBin tabla;
+    private final Map<Motivo, Counter> rechazos = new EnumMap<>(Motivo.class);
+    
+    public ValidadorTarjeta(@Value("${pos.tarjetas.tabla-bin:classpath:tarjetas/bines.csv}") Resource tablaBin,
+            MeterRegistry registry) {
+        this.tabla = cargar(tablaBin);
+        for (Motivo motivo : Motivo.values()) {
+            this.rechazos.put(motivo, Counter.builder("pos.tarjetas.rechazos")
+                    .tag("motivo", motivo.name().toLowerCase())
+                    .description("Pagos rechazados por el número de tarjeta sin llamar al Payment Gateway")
+                    .register(registry));
+        }
+        log.info("Tabla de BIN cargada desde {} con {} rangos", tablaBin.getDescription(), this.tabla.tamanio());
+    }
+    
+    /**
+     * Valida el número de tarjeta del pago y completa la marca si no viene. El largo total
+     * (13 a 19 dígitos) ya fue verificado por {@link TransaccionService#validarTransaccion}.
+     */
+    public void validar(Transaccion transaccion) {
+        String numero = transaccion.getNumeroTarjeta();
+        if (!soloDigitos(numero)) {
+            throw rechazo(Motivo.FORMATO, "El número de tarjeta solo puede contener dígitos");
+        }
+        if (!luhn(numero)) {
+            throw rechazo(Motivo.LUHN, "El número de tarjeta no es válido");
+        }
+        
+        TablaBin.Rango rango = this.tabla.buscar(numero);
+        if (rango == null) {
+            throw rechazo(Motivo.BIN, "El número de tarjeta no corresponde a una marca aceptada");
+        }
+        if (transaccion.getMarca() == null) {
+            transaccion.setMarca(rango.marca());
+        } else if (!rango.marca().equals(transaccion.getMarca())) {
+            throw rechazo(Motivo.MARCA, "El número de tarjeta no corresponde a la marca " + transaccion.getMarca());
+        }
+        if (!rango.admiteLongitud(numero.length())) {
+            throw rechazo(Motivo.LONGITUD, "El número de tarjeta " + rango.marca() + " debe tener "
+                    + rango.describirLongitudes() + " dígitos");
+        }
+    }
+    
+    static boolean soloDigitos(String numero) {
+        for (int i = 0; i < numero.length(); i++) {
+            char c = numero.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Dígito verificador de ISO/IEC 7812: desde la derecha se duplica uno de cada dos
+     * dígitos y la suma debe ser múltiplo de 10.
+     */
+    static boolean luhn(String numero) {
+        int suma = 0;
+        boolean duplicar = false;
+        for (int i = numero.length() - 1; i >= 0; i--) {
+            int digito = numero.charAt(i) - '0';
+            if (duplicar) {
+                digito *= 2;
+                if (digito > 9) {
+                    digito -= 9;
+                }
+            }
+            suma += digito;
+            duplicar = !duplicar;
+        }
+        return suma % 10 == 0;
+    }
+    
+    private ValidationException rechazo(Motivo motivo, String mensaje) {
+        this.rechazos.get(motivo).increment();
+        log.warn("Tarjeta rechazada antes del Payment Gateway: {}", mensaje);
+        return new ValidationException(mensaje);
+    }
+    
+    private static TablaBin cargar(Resource tablaBin) {
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(tablaBin.getInputStream(), StandardCharsets.UTF_8))) {
+            return TablaBin.leer(lector);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la tabla de BIN " + tablaBin.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.banquito.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ventas del día en memoria para los tableros de las tiendas. Cada resultado AUT/REC suma
+ * en contadores {@link LongAdder}, que reparten la contención entre celdas, por marca,
+ * modalidad y hora; las consultas leen esos contadores sin acceder a la base. Al cambiar
+ * el día los contadores empiezan de cero.
+ */
+@Service
+public class VentasEnVivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(VentasEnVivoService.class);
+    
+    private static final int HORAS = 24;
+    
+    private final TransaccionRepository repository;
+    private final AtomicReference<Dia> dia = new AtomicReference<>(new Dia(LocalDate.now()));
+    
+    public record Resumen(long cantidadAutorizadas, BigDecimal montoAutorizado, 
+            long cantidadRechazadas, BigDecimal montoRechazado) {
+    }
+    
+    public record Ventas(LocalDate fecha, Resumen total, Map<String, Resumen> porMarca, 
+            Map<String, Resumen> porModalidad, List<Resumen> porHora) {
+    }
+    
+    private static final class Contador {
+        private final LongAdder autorizadas = new LongAdder();
+        private final LongAdder centavosAutorizados = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+        private final LongAdder centavosRechazados = new LongAdder();
+        
+        void sumar(boolean autorizada, long centavos) {
+            if (autorizada) {
+                this.autorizadas.increment();
+                this.centavosAutorizados.add(centavos);
+            } else {
+                this.rechazadas.increment();
+                this.centavosRechazados.add(centavos);
+            }
+        }
+        
+        Resumen resumen() {
+            return new Resumen(this.autorizadas.sum(), BigDecimal.valueOf(this.centavosAutorizados.sum(), 2),
+                    this.rechazadas.sum(), BigDecimal.valueOf(this.centavosRechazados.sum(), 2));
+        }
+    }
+    
+    private static final class Dia {
+        private final LocalDate fecha;
+        private final Contador total = new Contador();
+        private final Map<String, Contador> porMarca = new ConcurrentHashMap<>();
+        private final Map<String, Contador> porModalidad = new ConcurrentHashMap<>();
+        private final Contador[] porHora = new Contador[HORAS];
+        
+        Dia(LocalDate fecha) {
+            this.fecha = fecha;
+            for (int i = 0; i < HORAS; i++) {
+                this.porHora[i] = new Contador();
+            }
+        }
+        
+        void sumar(String marca, String modalidad, int hora, boolean autorizada, long centavos) {
+            this.total.sumar(autorizada, centavos);
+            this.porMarca.computeIfAbsent(marca, m -> new Contador()).sumar(autorizada, centavos);
+            this.porModalidad.computeIfAbsent(modalidad, m -> new Contador()).sumar(autorizada, centavos);
+            this.porHora[hora].sumar(autorizada, centavos);
+        }
+    }
+    
+    public VentasEnVivoService(TransaccionRepository repository) {
+        this.repository = repository;
+    }
+    
+    @PostConstruct
+    public void reconstruir() {
+        Dia hoy = new Dia(LocalDate.now());
+        List<Object[]> resultados = this.repository.findResultadosDesde(hoy.fecha.atStartOfDay());
+        for (Object[] fila : resultados) {
+            LocalDateTime fecha = (LocalDateTime) fila[3];
+            hoy.sumar((String) fila[0], (String) fila[1], fecha.getHour(), "AUT".equals(fila[2]), 
+                    ((BigDecimal) fila[4]).movePointRight(2).longValueExact());
+        }
+        this.dia.set(hoy);
+        log.info("Ventas del día {} reconstruidas con {} transacciones", hoy.fecha, resultados.size());
+    }
+    
+    @EventListener
+    public void registrarResultado(TransaccionFinalizadaEvent evento) {
+        Transaccion resultado = evento.resultado();
+        if (!"AUT".equals(resultado.getEstado()) && !"REC".equals(resultado.getEstado())) {
+            return;
+        }
+        Dia actual = diaDe(resultado.getFecha().toLocalDate());
+        if (actual != null) {
+            actual.sumar(resultado.getMarca(), resultado.getModalidad(), resultado.getFecha().getHour(),
+                    "AUT".equals(resultado.getEstado()), resultado.getMonto().movePointRight(2).longValueExact());
+        }
+    }
+    
+    public Ventas consultar() {
+        Dia actual = diaDe(LocalDate.now());
+        List<Resumen> porHora = new ArrayList<>(HORAS);
+        for (Contador contador : actual.porHora) {
+            porHora.add(contador.resumen());
+        }
+        return new Ventas(actual.fecha, actual.total.resumen(), resumenes(actual.porMarca), 
+                resumenes(actual.porModalidad), porHora);
+    }
+    
+    /**
+     * Devuelve los contadores del día indicado, iniciando uno nuevo si el día cambió;
+     * los resultados de un día ya reemplazado se descartan.
+     */
+    private Dia diaDe(LocalDate fecha) {
+        while (true) {
+            Dia actual = this.dia.get();
+            if (!fecha.isAfter(actual.fecha)) {
+                return fecha.equals(actual.fecha) ? actual : null;
+            }
+            if (this.dia.compareAndSet(actual, new Dia(fecha))) {
+                log.info("Inicio de ventas del día {}", fecha);
+            }
+        }
+    }
+    
+    private static Map<String, Resumen> resumenes(Map<String, Contador> contadores) {
+        Map<String, Resumen> resumenes = new TreeMap<>();
+        contadores.forEach((clave, contador) -> resumenes.put(clave, contador.resumen()));
+        return resumenes;
+    }
+}
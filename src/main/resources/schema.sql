@@ -0,0 +1,94 @@
+-- Se ejecuta después de que Hibernate crea o actualiza las tablas
+-- (spring.jpa.defer-datasource-initialization=true); cada sentencia debe ser repetible.
+
+-- Consulta paginada por cursor: orden (FECHA, COD_TRANSACCION), con o sin filtro de estado, marca o modalidad.
+CREATE INDEX IF NOT EXISTS IDX_TRANSACCION_FECHA
+    ON POS_TRANSACCION (FECHA, COD_TRANSACCION);
+
+CREATE INDEX IF NOT EXISTS IDX_TRANSACCION_ESTADO_FECHA
+    ON POS_TRANSACCION (ESTADO, FECHA, COD_TRANSACCION);
+
+CREATE INDEX IF NOT EXISTS IDX_TRANSACCION_MARCA_FECHA
+    ON POS_TRANSACCION (MARCA, FECHA, COD_TRANSACCION);
+
+CREATE INDEX IF NOT EXISTS IDX_TRANSACCION_MODALIDAD_FECHA
+    ON POS_TRANSACCION (MODALIDAD, FECHA, COD_TRANSACCION);
+
+-- Una secuencia de códigos de transacción por terminal; las anteriores sin terminal quedan en NULL.
+CREATE UNIQUE INDEX IF NOT EXISTS IDX_SECUENCIA_TRANSACCION_TERMINAL
+    ON POS_SECUENCIA_TRANSACCION (CODIGO_POS);
+
+-- Migración de bases anteriores, donde el resultado de cada pago era una segunda fila con otro
+-- COD_TRANSACCION y el mismo código único: el resultado pasa a la fila ENV, que conserva su código,
+-- y ambos estados quedan en el historial. Cada paso parte de las filas ENV que aún tienen una fila
+-- de resultado, por lo que en una base ya migrada solo recorre los pagos pendientes.
+INSERT OR IGNORE INTO POS_TRANSACCION_HISTORIAL (COD_TRANSACCION, ESTADO, FECHA, DETALLE)
+    SELECT e.COD_TRANSACCION, 'ENV', e.FECHA, e.DETALLE FROM POS_TRANSACCION e
+    WHERE e.ESTADO = 'ENV' AND EXISTS (SELECT 1 FROM POS_TRANSACCION r
+        WHERE r.CODIGO_UNICO_TRANSACCION = e.CODIGO_UNICO_TRANSACCION AND r.ESTADO <> 'ENV');
+
+INSERT OR IGNORE INTO POS_TRANSACCION_HISTORIAL (COD_TRANSACCION, ESTADO, FECHA, DETALLE)
+    SELECT e.COD_TRANSACCION, r.ESTADO, r.FECHA, r.DETALLE FROM POS_TRANSACCION e
+    JOIN POS_TRANSACCION r ON r.CODIGO_UNICO_TRANSACCION = e.CODIGO_UNICO_TRANSACCION AND r.ESTADO <> 'ENV'
+    WHERE e.ESTADO = 'ENV';
+
+UPDATE POS_TRANSACCION SET (DETALLE, ESTADO_RECIBO) = (
+        SELECT r.DETALLE, r.ESTADO_RECIBO FROM POS_TRANSACCION r
+        WHERE r.CODIGO_UNICO_TRANSACCION = POS_TRANSACCION.CODIGO_UNICO_TRANSACCION AND r.ESTADO <> 'ENV'
+        ORDER BY r.FECHA LIMIT 1)
+    WHERE ESTADO = 'ENV' AND EXISTS (SELECT 1 FROM POS_TRANSACCION r
+        WHERE r.CODIGO_UNICO_TRANSACCION = POS_TRANSACCION.CODIGO_UNICO_TRANSACCION AND r.ESTADO <> 'ENV');
+
+DELETE FROM POS_TRANSACCION
+    WHERE ESTADO <> 'ENV' AND CODIGO_UNICO_TRANSACCION IN (
+        SELECT CODIGO_UNICO_TRANSACCION FROM POS_TRANSACCION WHERE ESTADO = 'ENV');
+
+UPDATE POS_TRANSACCION SET ESTADO = (
+        SELECT h.ESTADO FROM POS_TRANSACCION_HISTORIAL h
+        WHERE h.COD_TRANSACCION = POS_TRANSACCION.COD_TRANSACCION AND h.ESTADO <> 'ENV'
+        ORDER BY h.FECHA LIMIT 1)
+    WHERE ESTADO = 'ENV' AND EXISTS (SELECT 1 FROM POS_TRANSACCION_HISTORIAL h
+        WHERE h.COD_TRANSACCION = POS_TRANSACCION.COD_TRANSACCION AND h.ESTADO <> 'ENV');
+
+UPDATE POS_PLAN_DIFERIDO SET COD_TRANSACCION = (
+        SELECT t.COD_TRANSACCION FROM POS_TRANSACCION t WHERE t.CODIGO_UNICO_TRANSACCION = POS_PLAN_DIFERIDO.COD_PLAN)
+    WHERE COD_TRANSACCION NOT IN (SELECT COD_TRANSACCION FROM POS_TRANSACCION);
+
+-- Una sola fila por código único: respalda en la base la idempotencia de los pagos.
+DROP INDEX IF EXISTS UK_TRANSACCION_ENVIO;
+
+CREATE UNIQUE INDEX IF NOT EXISTS UK_TRANSACCION_CODIGO_UNICO
+    ON POS_TRANSACCION (CODIGO_UNICO_TRANSACCION);
+
+DROP INDEX IF EXISTS IDX_TRANSACCION_CODIGO_UNICO;
+
+-- Pagos y cierres de cada terminal: el lote abierto de un terminal se reconstruye desde su último cierre.
+CREATE INDEX IF NOT EXISTS IDX_TRANSACCION_TERMINAL_FECHA
+    ON POS_TRANSACCION (CODIGO_POS, FECHA);
+
+CREATE INDEX IF NOT EXISTS IDX_CIERRE_TERMINAL_FECHA
+    ON POS_CIERRE_LOTE (CODIGO_POS, FECHA_CIERRE);
+
+-- Un resultado AUT/REC pertenece al lote abierto cuando se registró, no cuando se envió el pago.
+CREATE INDEX IF NOT EXISTS IDX_HISTORIAL_ESTADO_FECHA
+    ON POS_TRANSACCION_HISTORIAL (ESTADO, FECHA);
+
+-- Las filas registradas antes de atender varios terminales pertenecen al terminal local, el primero activado.
+UPDATE POS_TRANSACCION SET CODIGO_POS = (
+        SELECT CODIGO_POS FROM POS_CONFIGURACION ORDER BY FECHA_ACTIVACION, CODIGO_POS LIMIT 1)
+    WHERE CODIGO_POS IS NULL;
+
+UPDATE POS_CIERRE_LOTE SET CODIGO_POS = (
+        SELECT CODIGO_POS FROM POS_CONFIGURACION ORDER BY FECHA_ACTIVACION, CODIGO_POS LIMIT 1)
+    WHERE CODIGO_POS IS NULL;
+
+-- Agenda de cobros recurrentes: suscripciones activas en orden de próximo cobro.
+CREATE INDEX IF NOT EXISTS IDX_SUSCRIPCION_COBRO
+    ON POS_SUSCRIPCION (ESTADO, PROXIMO_COBRO, COD_SUSCRIPCION);
+
+-- Cuotas por vencer de los pagos diferidos, por fecha y por comercio.
+CREATE INDEX IF NOT EXISTS IDX_CUOTA_VENCIMIENTO
+    ON POS_CUOTA_DIFERIDA (FECHA_VENCIMIENTO, COD_PLAN, NUMERO_CUOTA);
+
+CREATE INDEX IF NOT EXISTS IDX_CUOTA_COMERCIO_VENCIMIENTO
+    ON POS_CUOTA_DIFERIDA (CODIGO_COMERCIO, FECHA_VENCIMIENTO, COD_PLAN, NUMERO_CUOTA);
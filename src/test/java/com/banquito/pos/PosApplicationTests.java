@@ -3,7 +3,7 @@ package com.banquito.pos;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/pos-test.db")
 class PosApplicationTests {
 
 	@Test
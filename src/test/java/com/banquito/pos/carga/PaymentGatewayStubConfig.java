@@ -0,0 +1,130 @@
+package com.banquito.pos.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Payment Gateway simulado para el perfil {@code loadtest}: atiende
+ * POST /api/v1/transacciones en localhost con una latencia log-normal (mediana y sigma
+ * configurables), una tasa de errores 503 y una tasa de solicitudes que quedan colgadas
+ * más allá del timeout de lectura del cliente. Los valores aleatorios salen de una
+ * semilla fija, de modo que dos corridas con la misma configuración ven la misma
+ * distribución.
+ */
+@Configuration
+@Profile("loadtest")
+public class PaymentGatewayStubConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentGatewayStubConfig.class);
+    
+    private static final long LATENCIA_MAXIMA_MS = 60000;
+    private static final byte[] AUTORIZADA = ("{\"codigoAutorizacion\":\"A1\",\"estado\":\"AUT\","
+            + "\"mensaje\":\"Transacción autorizada\",\"codigoUnicoTransaccion\":\"x\",\"idTransaccion\":\"1\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_DISPONIBLE = "{\"mensaje\":\"Servicio no disponible\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    
+    @Value("${pos.stub.puerto:9199}")
+    private int puerto;
+    
+    @Value("${pos.stub.latencia-mediana-ms:40}")
+    private double latenciaMedianaMs;
+    
+    @Value("${pos.stub.latencia-sigma:0.5}")
+    private double latenciaSigma;
+    
+    @Value("${pos.stub.tasa-error:0.01}")
+    private double tasaError;
+    
+    @Value("${pos.stub.tasa-colgadas:0.0}")
+    private double tasaColgadas;
+    
+    @Value("${pos.stub.colgada-ms:10000}")
+    private long colgadaMs;
+    
+    @Value("${pos.stub.semilla:42}")
+    private long semilla;
+    
+    private final AtomicLong solicitudes = new AtomicLong();
+    private HttpServer servidor;
+    private ExecutorService hilos;
+    
+    @PostConstruct
+    public void iniciar() throws IOException {
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", this.puerto), 1024);
+        this.servidor.setExecutor(this.hilos);
+        this.servidor.createContext("/api/v1/transacciones", this::atender);
+        this.servidor.start();
+        log.warn("Payment Gateway simulado en el puerto {}: mediana {} ms, sigma {}, errores {}, colgadas {}",
+                this.puerto, this.latenciaMedianaMs, this.latenciaSigma, this.tasaError, this.tasaColgadas);
+    }
+    
+    @PreDestroy
+    public void detener() {
+        this.servidor.stop(0);
+        this.hilos.shutdownNow();
+    }
+    
+    private void atender(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream cuerpo = exchange.getRequestBody()) {
+            cuerpo.readAllBytes();
+            SplittableRandom random = new SplittableRandom(
+                    this.semilla + this.solicitudes.getAndIncrement() * 0x9E3779B97F4A7C15L);
+            
+            double sorteo = random.nextDouble();
+            long esperaMs;
+            if (sorteo < this.tasaColgadas) {
+                esperaMs = this.colgadaMs;
+            } else {
+                double latencia = this.latenciaMedianaMs * Math.exp(this.latenciaSigma * gaussiano(random));
+                esperaMs = Math.min(Math.round(latencia), LATENCIA_MAXIMA_MS);
+            }
+            dormir(esperaMs);
+            
+            boolean error = sorteo >= this.tasaColgadas && sorteo < this.tasaColgadas + this.tasaError;
+            byte[] respuesta = error ? NO_DISPONIBLE : AUTORIZADA;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(error ? 503 : 200, respuesta.length);
+            try (OutputStream salida = exchange.getResponseBody()) {
+                salida.write(respuesta);
+            }
+        }
+    }
+    
+    private static double gaussiano(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+    
+    private static void dormir(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.banquito.pos.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.banquito.pos.PosApplication;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Prueba de carga de extremo a extremo: levanta la aplicación con el perfil
+ * {@code loadtest} (Payment Gateway simulado y base SQLite nueva en target/), envía pagos
+ * concurrentes a POST /api/v1/transacciones y reporta el throughput, los percentiles de
+ * latencia, los códigos HTTP y los errores de persistencia (bloqueos de SQLite y claves
+ * duplicadas). No usa la red ni forma parte de la suite de pruebas; se ejecuta con:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.banquito.pos.carga.PruebaCargaPagos \
+ *     -Dexec.args="20000 32 0.05 --pos.stub.latencia-mediana-ms=40 --pos.stub.tasa-colgadas=0.001"
+ * </pre>
+ *
+ * Argumentos: pagos a medir, clientes concurrentes y fracción de pagos que repiten una
+ * Idempotency-Key anterior; los argumentos que empiezan con {@code --} se pasan a la
+ * aplicación (por ejemplo las propiedades pos.stub.*).
+ */
+public class PruebaCargaPagos {
+
+    private static final Path BASE_DATOS = Path.of("target", "pos-carga.db");
+    private static final long SEMILLA = 7;
+    
+    public static void main(String[] args) throws Exception {
+        List<String> posicionales = new ArrayList<>();
+        List<String> propiedades = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("--") ? propiedades : posicionales).add(arg);
+        }
+        int pagos = posicionales.size() > 0 ? Integer.parseInt(posicionales.get(0)) : 20000;
+        int clientes = posicionales.size() > 1 ? Integer.parseInt(posicionales.get(1)) : 32;
+        double repetidas = posicionales.size() > 2 ? Double.parseDouble(posicionales.get(2)) : 0.0;
+        
+        for (String sufijo : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(BASE_DATOS + sufijo));
+        }
+        
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(PosApplication.class)
+                .profiles("loadtest")
+                .run(propiedades.toArray(String[]::new))) {
+            String url = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port");
+            MeterRegistry registry = contexto.getBean(MeterRegistry.class);
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newFixedThreadPool(clientes))
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            
+            configurarTerminal(http, url);
+            
+            System.out.printf("Calentamiento: %d pagos%n", Math.max(pagos / 10, 100));
+            ejecutar(http, url, Math.max(pagos / 10, 100), clientes, repetidas, "calentamiento");
+            
+            double bloqueosAntes = contar(registry, "bloqueo");
+            double duplicadosAntes = contar(registry, "duplicado");
+            double otrosAntes = contar(registry, "integridad") + contar(registry, "otro");
+            
+            Resultado resultado = ejecutar(http, url, pagos, clientes, repetidas, "carga");
+            
+            resultado.imprimir(pagos, clientes, repetidas);
+            System.out.printf("Bloqueos SQLite:         %.0f%n", contar(registry, "bloqueo") - bloqueosAntes);
+            System.out.printf("Claves duplicadas:       %.0f%n", contar(registry, "duplicado") - duplicadosAntes);
+            System.out.printf("Otros errores de base:   %.0f%n",
+                    contar(registry, "integridad") + contar(registry, "otro") - otrosAntes);
+            imprimirEtapas(registry);
+        }
+        System.exit(0);
+    }
+    
+    private static void configurarTerminal(HttpClient http, String url) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(URI.create(url + "/api/v1/configuracion"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"modelo\":\"VERIFONE\",\"codigoPos\":\"POS001\","
+                        + "\"direccionMac\":\"AA:BB:CC:DD:EE:FF\",\"codigoComercio\":\"COM001\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() >= 300) {
+            throw new IllegalStateException("No se pudo configurar el terminal: " + respuesta.body());
+        }
+    }
+    
+    private static Resultado ejecutar(HttpClient http, String url, int pagos, int clientes, double repetidas,
+            String prefijo) throws Exception {
+        long[] latencias = new long[pagos];
+        Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+        LongAdder fallos = new LongAdder();
+        AtomicInteger siguiente = new AtomicInteger();
+        URI destino = URI.create(url + "/api/v1/transacciones");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        long inicio = System.nanoTime();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            tareas.add(executor.submit(() -> {
+                int i;
+                while ((i = siguiente.getAndIncrement()) < pagos) {
+                    SplittableRandom random = new SplittableRandom(SEMILLA + i * 0x9E3779B97F4A7C15L);
+                    int clave = i > 0 && random.nextDouble() < repetidas ? random.nextInt(i) : i;
+                    String cuerpo = String.format(Locale.ROOT, "{\"tipo\":\"PAG\",\"marca\":\"VISA\","
+                            + "\"modalidad\":\"SIM\",\"monto\":%d.%02d,\"moneda\":\"USD\","
+                            + "\"numeroTarjeta\":\"4111111111111111\",\"nombreTitular\":\"Juan Perez\","
+                            + "\"cvv\":\"123\",\"fechaExpiracion\":\"12/28\"}",
+                            1 + random.nextInt(500), random.nextInt(100));
+                    HttpRequest solicitud = HttpRequest.newBuilder(destino)
+                            .header("Content-Type", "application/json")
+                            .header("Idempotency-Key", String.format("%s-%08d", prefijo, clave))
+                            .timeout(Duration.ofSeconds(60))
+                            .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                            .build();
+                    
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> respuesta = http.send(solicitud, HttpResponse.BodyHandlers.discarding());
+                        estados.computeIfAbsent(respuesta.statusCode(), s -> new LongAdder()).increment();
+                    } catch (IOException e) {
+                        fallos.increment();
+                    }
+                    latencias[i] = System.nanoTime() - t0;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        long duracion = System.nanoTime() - inicio;
+        executor.shutdown();
+        return new Resultado(latencias, duracion, new TreeMap<>(estados), fallos.sum());
+    }
+    
+    private static void imprimirEtapas(MeterRegistry registry) {
+        System.out.println();
+        for (String etapa : new String[] {"validacion", "insercion_env", "gateway", "insercion_resultado"}) {
+            long cantidad = 0;
+            double total = 0;
+            double maximo = 0;
+            for (Timer timer : registry.find("pos.transaccion.etapa").tag("etapa", etapa).timers()) {
+                cantidad += timer.count();
+                total += timer.totalTime(TimeUnit.MILLISECONDS);
+                maximo = Math.max(maximo, timer.max(TimeUnit.MILLISECONDS));
+            }
+            System.out.printf("Etapa %-20s media %.2f ms, máxima %.2f ms (%d)%n",
+                    etapa, cantidad > 0 ? total / cantidad : 0, maximo, cantidad);
+        }
+    }
+    
+    private static double contar(MeterRegistry registry, String tipo) {
+        return registry.find("pos.persistencia.errores").tag("tipo", tipo).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+    
+    private record Resultado(long[] latencias, long duracionNanos, Map<Integer, LongAdder> estados, long fallos) {
+        
+        void imprimir(int pagos, int clientes, double repetidas) {
+            long[] ordenadas = this.latencias.clone();
+            Arrays.sort(ordenadas);
+            double segundos = this.duracionNanos / 1e9;
+            System.out.printf("%nPagos: %d, clientes: %d, claves repetidas: %.1f%%%n", pagos, clientes, repetidas * 100);
+            System.out.printf("Duración:                %.2f s%n", segundos);
+            System.out.printf("Throughput:              %.1f pagos/s%n", pagos / segundos);
+            System.out.printf("Latencia p50:            %.2f ms%n", percentil(ordenadas, 0.50));
+            System.out.printf("Latencia p99:            %.2f ms%n", percentil(ordenadas, 0.99));
+            System.out.printf("Latencia p999:           %.2f ms%n", percentil(ordenadas, 0.999));
+            System.out.printf("Latencia máxima:         %.2f ms%n", ordenadas[ordenadas.length - 1] / 1e6);
+            this.estados.forEach((estado, cantidad) -> System.out.printf("HTTP %d:                %d%n", estado, cantidad.sum()));
+            System.out.printf("Fallos de conexión:      %d%n", this.fallos);
+        }
+        
+        private static double percentil(long[] ordenadas, double percentil) {
+            int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+            return ordenadas[Math.max(indice, 0)] / 1e6;
+        }
+    }
+}
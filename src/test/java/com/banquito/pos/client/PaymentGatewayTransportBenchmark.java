@@ -0,0 +1,142 @@
+package com.banquito.pos.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+
+import com.sun.net.httpserver.HttpServer;
+
+import feign.Client;
+import feign.Feign;
+import feign.Headers;
+import feign.Param;
+import feign.RequestLine;
+import feign.hc5.ApacheHttp5Client;
+
+/**
+ * Compara el transporte por defecto de Feign (HttpURLConnection) con el pool de Apache
+ * HttpClient 5 contra un Payment Gateway simulado en localhost. No forma parte de la
+ * suite de pruebas; se ejecuta con:
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.banquito.pos.client.PaymentGatewayTransportBenchmark \
+ *     -Dexec.args="20000 32 2"
+ * </pre>
+ *
+ * Argumentos: solicitudes por transporte, hilos concurrentes y latencia del stub en ms.
+ */
+public class PaymentGatewayTransportBenchmark {
+
+    private static final String RESPUESTA = "{\"codigoAutorizacion\":\"A1\",\"estado\":\"AUT\","
+            + "\"mensaje\":\"Aprobada\",\"codigoUnicoTransaccion\":\"x\",\"idTransaccion\":\"1\"}";
+    
+    private static final String SOLICITUD = "{\"codigoPOS\":\"POS001\",\"codigoComercio\":\"COM001\","
+            + "\"tipo\":\"PAG\",\"marca\":\"VISA\",\"modalidad\":\"SIM\",\"monto\":10.50,\"moneda\":\"USD\","
+            + "\"pais\":\"EC\",\"numeroTarjeta\":\"4111111111111111\",\"nombreTitular\":\"Juan Perez\"}";
+    
+    interface GatewayStub {
+        
+        @RequestLine("POST /api/v1/transacciones")
+        @Headers({"Content-Type: application/json", "X-Request-ID: {requestId}"})
+        String procesarTransaccion(@Param("requestId") String requestId, String transaccion);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int solicitudes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int latenciaMs = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        
+        ExecutorService hilosStub = Executors.newFixedThreadPool(hilos * 2);
+        HttpServer stub = iniciarStub(latenciaMs, hilosStub);
+        String url = "http://127.0.0.1:" + stub.getAddress().getPort();
+        try (CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(hilos * 2)
+                        .setMaxConnPerRoute(hilos)
+                        .build())
+                .build()) {
+            
+            Client porDefecto = new Client.Default(null, null);
+            Client pool = new ApacheHttp5Client(httpClient);
+            
+            medir("HttpURLConnection", porDefecto, url, solicitudes / 10, hilos);
+            medir("Apache HC5 (pool)", pool, url, solicitudes / 10, hilos);
+            
+            double antes = medir("HttpURLConnection", porDefecto, url, solicitudes, hilos);
+            double despues = medir("Apache HC5 (pool)", pool, url, solicitudes, hilos);
+            System.out.printf("Mejora: %.2fx%n", despues / antes);
+        } finally {
+            stub.stop(0);
+            hilosStub.shutdownNow();
+        }
+    }
+    
+    private static double medir(String nombre, Client client, String url, int solicitudes, int hilos) 
+            throws Exception {
+        GatewayStub gateway = Feign.builder().client(client).target(GatewayStub.class, url);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        AtomicInteger restantes = new AtomicInteger(solicitudes);
+        AtomicInteger errores = new AtomicInteger();
+        
+        long inicio = System.nanoTime();
+        List<Future<?>> trabajos = new ArrayList<>(hilos);
+        for (int i = 0; i < hilos; i++) {
+            trabajos.add(executor.submit(() -> {
+                while (restantes.getAndDecrement() > 0) {
+                    try {
+                        gateway.procesarTransaccion("bench", SOLICITUD);
+                    } catch (RuntimeException e) {
+                        errores.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> trabajo : trabajos) {
+            trabajo.get();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        
+        double solicitudesPorSegundo = solicitudes / segundos;
+        System.out.printf("%-20s %8d solicitudes en %6.2f s -> %9.1f req/s (%d errores)%n", 
+                nombre, solicitudes, segundos, solicitudesPorSegundo, errores.get());
+        return solicitudesPorSegundo;
+    }
+    
+    private static HttpServer iniciarStub(int latenciaMs, ExecutorService hilos) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        byte[] respuesta = RESPUESTA.getBytes(StandardCharsets.UTF_8);
+        server.createContext("/api/v1/transacciones", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (latenciaMs > 0) {
+                try {
+                    Thread.sleep(latenciaMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, respuesta.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(respuesta);
+            }
+        });
+        server.setExecutor(hilos);
+        server.start();
+        return server;
+    }
+}
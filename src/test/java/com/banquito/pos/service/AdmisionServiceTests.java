@@ -0,0 +1,167 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.banquito.pos.config.AdmisionProperties;
+import com.banquito.pos.config.AdmisionProperties.Limite;
+import com.banquito.pos.config.AdmisionProperties.Limites;
+import com.banquito.pos.exception.AdmisionRechazadaException;
+import com.banquito.pos.exception.LoteNoAdmisibleException;
+import com.banquito.pos.model.ConfiguracionPos;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmisionServiceTests {
+
+    private static final long T0 = -5_000_000_000L;
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    /** 10 pagos por segundo, un token cada 100 ms, ráfaga de 3. */
+    private final Limite limite = new Limite(10, 3);
+    
+    @Test
+    void admiteUnaRafagaYLuegoUnTokenPorIntervalo() {
+        AdmisionService.Cubeta cubeta = new AdmisionService.Cubeta(T0);
+        
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isEqualTo(100 * MS);
+        assertThat(cubeta.tomar(this.limite, 1, T0 + 40 * MS)).isEqualTo(60 * MS);
+        
+        assertThat(cubeta.tomar(this.limite, 1, T0 + 100 * MS)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0 + 100 * MS)).isEqualTo(100 * MS);
+    }
+    
+    @Test
+    void unPeriodoSinActividadNoAcumulaMasDeUnaRafaga() {
+        AdmisionService.Cubeta cubeta = new AdmisionService.Cubeta(T0);
+        long despues = T0 + 60_000 * MS;
+        
+        for (int i = 0; i < 3; i++) {
+            assertThat(cubeta.tomar(this.limite, 1, despues)).isZero();
+        }
+        assertThat(cubeta.tomar(this.limite, 1, despues)).isEqualTo(100 * MS);
+    }
+    
+    @Test
+    void unLoteTomaVariosTokensALaVez() {
+        AdmisionService.Cubeta cubeta = new AdmisionService.Cubeta(T0);
+        
+        assertThat(cubeta.tomar(this.limite, 2, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 2, T0)).isEqualTo(100 * MS);
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isZero();
+    }
+    
+    @Test
+    void devolverRestituyeLosTokens() {
+        AdmisionService.Cubeta cubeta = new AdmisionService.Cubeta(T0);
+        
+        assertThat(cubeta.tomar(this.limite, 3, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isPositive();
+        
+        cubeta.devolver(this.limite, 2);
+        assertThat(cubeta.tomar(this.limite, 2, T0)).isZero();
+        assertThat(cubeta.tomar(this.limite, 1, T0)).isPositive();
+    }
+    
+    @Test
+    void elRechazoDelComercioDevuelveElTokenDelTerminal() {
+        AdmisionService servicio = servicio(new MockEnvironment()
+                .withProperty("pos.admision.terminal.tasa", "0.001")
+                .withProperty("pos.admision.terminal.rafaga", "2")
+                .withProperty("pos.admision.comercio.tasa", "0.001")
+                .withProperty("pos.admision.comercio.rafaga", "1"));
+        ConfiguracionPos terminal = terminal("POS001");
+        
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal));
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> servicio.admitir(terminal))
+                    .isInstanceOf(AdmisionRechazadaException.class)
+                    .hasMessageContaining("comercio COM001");
+        }
+    }
+    
+    @Test
+    void unLoteCobraUnTokenPorPago() {
+        AdmisionService servicio = servicio(new MockEnvironment()
+                .withProperty("pos.admision.terminal.tasa", "0.001")
+                .withProperty("pos.admision.terminal.rafaga", "5")
+                .withProperty("pos.admision.comercio.tasa", "0"));
+        
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal("POS001"), 3));
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal("POS001"), 2));
+        assertThatThrownBy(() -> servicio.admitir(terminal("POS001")))
+                .isInstanceOf(AdmisionRechazadaException.class)
+                .hasMessageContaining("terminal POS001");
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal("POS002"), 5));
+    }
+    
+    @Test
+    void unLoteMasGrandeQueLaRafagaSeRechazaSinTomarTokens() {
+        AdmisionService servicio = servicio(new MockEnvironment()
+                .withProperty("pos.admision.terminal.tasa", "0.001")
+                .withProperty("pos.admision.terminal.rafaga", "5")
+                .withProperty("pos.admision.comercio.tasa", "0.001")
+                .withProperty("pos.admision.comercio.rafaga", "8"));
+        
+        assertThatThrownBy(() -> servicio.admitir(terminal("POS001"), 1000))
+                .isInstanceOf(LoteNoAdmisibleException.class)
+                .hasMessageContaining("terminal POS001");
+        assertThatThrownBy(() -> servicio.admitir(terminal("POS001"), 6))
+                .isInstanceOf(LoteNoAdmisibleException.class);
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal("POS001"), 5));
+        
+        assertThatThrownBy(() -> servicio.admitir(terminal("POS002"), 4))
+                .isInstanceOf(AdmisionRechazadaException.class)
+                .hasMessageContaining("comercio COM001");
+        assertThatNoException().isThrownBy(() -> servicio.admitir(terminal("POS002"), 3));
+    }
+    
+    @Test
+    void redondeaLaEsperaHaciaArriba() {
+        AdmisionRechazadaException rechazo = new AdmisionRechazadaException("terminal", "POS001", 4_309 * MS - 1);
+        assertThat(rechazo.getEsperaMs()).isEqualTo(4_309);
+        assertThat(rechazo.getEsperaSegundos()).isEqualTo(5);
+        
+        rechazo = new AdmisionRechazadaException("terminal", "POS001", 1);
+        assertThat(rechazo.getEsperaMs()).isEqualTo(1);
+        assertThat(rechazo.getEsperaSegundos()).isEqualTo(1);
+        
+        rechazo = new AdmisionRechazadaException("terminal", "POS001", 2_000 * MS);
+        assertThat(rechazo.getEsperaMs()).isEqualTo(2_000);
+        assertThat(rechazo.getEsperaSegundos()).isEqualTo(2);
+    }
+    
+    @Test
+    void losLimitesPropiosCompletanLoQueFaltaConElLimitePorDefecto() {
+        AdmisionProperties propiedades = new AdmisionProperties(new MockEnvironment()
+                .withProperty("pos.admision.terminal.rafaga", "10")
+                .withProperty("pos.admision.terminales.POS001.tasa", "5")
+                .withProperty("pos.admision.comercios.COM001.rafaga", "7"));
+        Limites limites = propiedades.vigentes();
+        
+        assertThat(limites.habilitado()).isTrue();
+        assertThat(limites.limiteTerminal("POS001")).isEqualTo(new Limite(5, 10));
+        assertThat(limites.limiteTerminal("POS002")).isEqualTo(new Limite(20, 10));
+        assertThat(limites.limiteComercio("COM001")).isEqualTo(new Limite(100, 7));
+        assertThat(limites.limiteComercio("COM002")).isEqualTo(new Limite(100, 200));
+    }
+    
+    private static AdmisionService servicio(MockEnvironment environment) {
+        return new AdmisionService(new AdmisionProperties(environment), new SimpleMeterRegistry());
+    }
+    
+    private static ConfiguracionPos terminal(String codigoPos) {
+        ConfiguracionPos terminal = new ConfiguracionPos("VERIFONE", codigoPos);
+        terminal.setCodigoComercio("COM001");
+        return terminal;
+    }
+}
@@ -0,0 +1,86 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.model.CierreLoteDetalle;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.CierreLoteDetalleRepository;
+import com.banquito.pos.repository.CierreLoteRepository;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.TransaccionRepository;
+
+class CierreLoteServiceTests {
+
+    private final CierreLoteService servicio = new CierreLoteService(mock(CierreLoteRepository.class),
+            mock(CierreLoteDetalleRepository.class), mock(TransaccionRepository.class),
+            mock(ColaEscrituraSqlite.class));
+    
+    @Test
+    void redondeaLosMontosConMasDeDosDecimales() {
+        this.servicio.registrarResultado(new TransaccionFinalizadaEvent(resultado("AUT", "10.005")));
+        this.servicio.registrarResultado(new TransaccionFinalizadaEvent(resultado("AUT", "0.1")));
+        
+        CierreLoteDetalle detalle = this.servicio.consultarLoteAbierto("POS001").detalles().get(0);
+        assertThat(detalle.getCantidad()).isEqualTo(2);
+        assertThat(detalle.getMonto()).isEqualByComparingTo("10.11");
+    }
+    
+    @Test
+    void elCierreEsperaAlResultadoEnCursoYQuedaDespuesDeSuFecha() throws Exception {
+        CountDownLatch fechado = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        AtomicReference<LocalDateTime> fechaResultado = new AtomicReference<>();
+        
+        CompletableFuture<Void> registro = CompletableFuture.runAsync(() -> this.servicio.registrando("POS001", () -> {
+            fechaResultado.set(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+            fechado.countDown();
+            esperar(continuar);
+            this.servicio.registrarResultado(new TransaccionFinalizadaEvent(resultado("REC", "5.00")));
+            return null;
+        }));
+        assertThat(fechado.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        CompletableFuture<CierreLoteService.Cierre> cierre = CompletableFuture.supplyAsync(
+                () -> this.servicio.cerrarLote("POS001"));
+        Thread.sleep(50);
+        assertThat(cierre).isNotDone();
+        
+        continuar.countDown();
+        registro.get(5, TimeUnit.SECONDS);
+        CierreLoteService.Cierre cerrado = cierre.get(5, TimeUnit.SECONDS);
+        
+        assertThat(cerrado.cierre().getTotalTransacciones()).isEqualTo(1);
+        assertThat(cerrado.cierre().getFechaCierre()).isAfter(fechaResultado.get());
+        assertThat(this.servicio.consultarLoteAbierto("POS001").detalles()).isEmpty();
+    }
+    
+    private static Transaccion resultado(String estado, String monto) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodigoPos("POS001");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad("SIM");
+        transaccion.setMoneda("USD");
+        transaccion.setEstado(estado);
+        transaccion.setMonto(new BigDecimal(monto));
+        return transaccion;
+    }
+    
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
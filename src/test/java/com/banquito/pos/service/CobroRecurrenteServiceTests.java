@@ -0,0 +1,110 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.config.CobrosRecurrentesProperties;
+import com.banquito.pos.model.Suscripcion;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.service.AgendaCobros.Cobro;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CobroRecurrenteServiceTests {
+
+    private static final LocalDateTime VENCIMIENTO = LocalDateTime.of(2026, 3, 1, 9, 0);
+    
+    private final SuscripcionService suscripcionService = mock(SuscripcionService.class);
+    private final IdempotenciaService idempotenciaService = mock(IdempotenciaService.class);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final CountDownLatch gateway = new CountDownLatch(1);
+    private CobroRecurrenteService servicio;
+    
+    @AfterEach
+    void tearDown() {
+        this.gateway.countDown();
+        this.executor.shutdown();
+    }
+    
+    @Test
+    void noEsperaElLoteNiTomaOtroMientrasSeCobra() throws Exception {
+        preparar(List.of(suscripcion("S1"), suscripcion("S2")));
+        
+        this.servicio.cobrarVencidas();
+        this.servicio.cobrarVencidas();
+        
+        verify(this.suscripcionService).vencidas(any(), anyInt());
+        this.gateway.countDown();
+        verify(this.suscripcionService, timeout(5_000)).reprogramar(anyList());
+        
+        this.servicio.cobrarVencidas();
+        verify(this.suscripcionService, timeout(5_000).times(2)).vencidas(any(), anyInt());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void siNoSePuedeReprogramarLosCobrosVuelvenALaAgendaConSuFecha() {
+        preparar(List.of(suscripcion("S1"), suscripcion("S2")));
+        doThrow(new IllegalStateException("SQLite no disponible")).when(this.suscripcionService).reprogramar(anyList());
+        
+        this.servicio.cobrarVencidas();
+        this.gateway.countDown();
+        
+        ArgumentCaptor<List<Cobro>> devueltos = ArgumentCaptor.forClass(List.class);
+        verify(this.suscripcionService, timeout(5_000)).devolverAgenda(devueltos.capture());
+        assertThat(devueltos.getValue()).containsExactly(
+                new Cobro(VENCIMIENTO, "S1"), new Cobro(VENCIMIENTO, "S2"));
+    }
+    
+    private void preparar(List<Suscripcion> vencidas) {
+        this.executor.setCorePoolSize(2);
+        this.executor.initialize();
+        CobrosRecurrentesProperties propiedades = new CobrosRecurrentesProperties();
+        this.servicio = new CobroRecurrenteService(this.suscripcionService, this.idempotenciaService,
+                this.executor, propiedades, new SimpleMeterRegistry());
+        
+        when(this.suscripcionService.isHabilitado()).thenReturn(true);
+        when(this.suscripcionService.vencidas(any(), anyInt())).thenReturn(vencidas, List.of());
+        when(this.suscripcionService.solicitud(any())).thenReturn(new TransaccionRequestDTO());
+        when(this.idempotenciaService.procesarTransaccion(anyString(), any(), isNull(), any())).thenAnswer(invocacion -> {
+            this.gateway.await(5, TimeUnit.SECONDS);
+            Transaccion transaccion = new Transaccion();
+            transaccion.setEstado("AUT");
+            return transaccion;
+        });
+    }
+    
+    private static Suscripcion suscripcion(String codSuscripcion) {
+        Suscripcion suscripcion = new Suscripcion(codSuscripcion);
+        suscripcion.setMarca("VISA");
+        suscripcion.setMonto(new BigDecimal("9.99"));
+        suscripcion.setMoneda("USD");
+        suscripcion.setFrecuenciaDias(30);
+        suscripcion.setProximoCobro(VENCIMIENTO);
+        suscripcion.setCobros(0);
+        suscripcion.setFallos(0);
+        suscripcion.setEstado(SuscripcionService.ACTIVA);
+        return suscripcion;
+    }
+}
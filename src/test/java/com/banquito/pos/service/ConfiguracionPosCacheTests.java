@@ -0,0 +1,80 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.repository.ConfiguracionPosRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConfiguracionPosCacheTests {
+
+    private final ConfiguracionPosRepository repository = mock(ConfiguracionPosRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    
+    @Test
+    void unTerminalDesconocidoSeConsultaUnaVezMientrasDuraElTtl() {
+        ConfiguracionPosCache cache = new ConfiguracionPosCache(this.repository, this.registry, 60_000);
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.findByCodigoPos("XXX999")).isEmpty();
+            assertThat(cache.findByDireccionMac("00:00:00:00:00:00")).isEmpty();
+        }
+        
+        verify(this.repository, times(1)).findByCodigoPos("XXX999");
+        verify(this.repository, times(1)).findByDireccionMac("00:00:00:00:00:00");
+        assertThat(this.registry.get("pos.configuracion.cache").tag("resultado", "ausente").counter().count())
+                .isEqualTo(8);
+    }
+    
+    @Test
+    void recargarOlvidaLosTerminalesAusentes() {
+        ConfiguracionPosCache cache = new ConfiguracionPosCache(this.repository, this.registry, 60_000);
+        assertThat(cache.findByCodigoPos("POS002")).isEmpty();
+        
+        ConfiguracionPos nuevo = terminal("POS002", "AA:BB:CC:DD:EE:02");
+        when(this.repository.findAll()).thenReturn(List.of(nuevo));
+        cache.recargar();
+        
+        assertThat(cache.findByCodigoPos("POS002")).contains(nuevo);
+    }
+    
+    @Test
+    void unComercioConVariosTerminalesSeResuelveConElDeMenorCodigo() {
+        ConfiguracionPos pos002 = terminal("POS002", "AA:BB:CC:DD:EE:02");
+        ConfiguracionPos pos001 = terminal("POS001", "AA:BB:CC:DD:EE:01");
+        when(this.repository.findFirstByCodigoComercioOrderByCodigoPosAsc("COM001")).thenReturn(pos001);
+        when(this.repository.findAll()).thenReturn(List.of(pos002, pos001));
+        ConfiguracionPosCache cache = new ConfiguracionPosCache(this.repository, this.registry, 60_000);
+        
+        assertThat(cache.findByCodigoComercio("COM001")).contains(pos001);
+        assertThat(cache.findByCodigoComercio("COM001")).contains(pos001);
+        
+        verify(this.repository, times(1)).findFirstByCodigoComercioOrderByCodigoPosAsc("COM001");
+    }
+    
+    @Test
+    void sinTtlCadaFalloConsultaLaBaseDeDatos() {
+        ConfiguracionPosCache cache = new ConfiguracionPosCache(this.repository, this.registry, 0);
+        
+        assertThat(cache.findByCodigoPos("XXX999")).isEmpty();
+        assertThat(cache.findByCodigoPos("XXX999")).isEmpty();
+        
+        verify(this.repository, times(2)).findByCodigoPos("XXX999");
+    }
+    
+    private static ConfiguracionPos terminal(String codigoPos, String direccionMac) {
+        ConfiguracionPos terminal = new ConfiguracionPos("VERIFONE", codigoPos);
+        terminal.setDireccionMac(direccionMac);
+        terminal.setCodigoComercio("COM001");
+        return terminal;
+    }
+}
@@ -0,0 +1,86 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+import com.banquito.pos.service.ConsultaTransaccionService.Filtro;
+import com.banquito.pos.service.ConsultaTransaccionService.Pagina;
+
+@DataJpaTest(properties = "spring.datasource.url=jdbc:sqlite:target/consulta-test.db")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConsultaTransaccionServiceTests {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2026, 3, 1, 9, 0);
+    
+    @Autowired
+    private TransaccionRepository repository;
+    
+    private ConsultaTransaccionService servicio;
+    
+    @BeforeEach
+    void setUp() {
+        this.repository.deleteAllInBatch();
+        this.servicio = new ConsultaTransaccionService(this.repository);
+        this.repository.saveAll(List.of(
+                transaccion("TRX0000001", FECHA.minusMinutes(1), "SIM"),
+                transaccion("TRX0000002", FECHA, "SIM"),
+                transaccion("TRX0000003", FECHA, "DIF"),
+                transaccion("TRX0000004", FECHA, "SIM"),
+                transaccion("TRX0000005", FECHA, "SIM"),
+                transaccion("TRX0000006", FECHA, "DIF"),
+                transaccion("TRX0000007", FECHA.plusMinutes(1), "SIM")));
+    }
+    
+    @Test
+    void elCursorContinuaEntreTransaccionesConLaMismaFecha() {
+        assertThat(recorrer(new Filtro(null, null, null, null, null), 2)).containsExactly(
+                "TRX0000007", "TRX0000006", "TRX0000005", "TRX0000004", "TRX0000003", "TRX0000002", "TRX0000001");
+    }
+    
+    @Test
+    void elCursorContinuaConFiltroDeModalidad() {
+        assertThat(recorrer(new Filtro(null, null, null, null, "SIM"), 2)).containsExactly(
+                "TRX0000007", "TRX0000005", "TRX0000004", "TRX0000002", "TRX0000001");
+    }
+    
+    private List<String> recorrer(Filtro filtro, int limite) {
+        List<String> codigos = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina pagina = this.servicio.consultar(filtro, cursor, limite);
+            assertThat(pagina.transacciones()).hasSizeLessThanOrEqualTo(limite);
+            pagina.transacciones().forEach(transaccion -> codigos.add(transaccion.getCodTransaccion()));
+            cursor = pagina.siguienteCursor();
+        } while (cursor != null);
+        return codigos;
+    }
+    
+    private static Transaccion transaccion(String codTransaccion, LocalDateTime fecha, String modalidad) {
+        Transaccion transaccion = new Transaccion(codTransaccion);
+        transaccion.setCodigoUnicoTransaccion("REF-" + codTransaccion);
+        transaccion.setCodigoPos("POS001");
+        transaccion.setFecha(fecha);
+        transaccion.setTipo("PAG");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad(modalidad);
+        transaccion.setMoneda("USD");
+        transaccion.setMonto(new BigDecimal("10.00"));
+        transaccion.setEstado("AUT");
+        return transaccion;
+    }
+}
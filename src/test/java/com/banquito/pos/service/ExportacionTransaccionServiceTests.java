@@ -0,0 +1,91 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+import com.banquito.pos.service.ExportacionTransaccionService.Formato;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DataJpaTest(properties = "spring.datasource.url=jdbc:sqlite:target/exportacion-test.db")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportacionTransaccionServiceTests {
+
+    @Autowired
+    private TransaccionRepository repository;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private ExportacionTransaccionService servicio;
+    
+    @BeforeEach
+    void setUp() {
+        this.repository.deleteAllInBatch();
+        this.servicio = new ExportacionTransaccionService(this.dataSource, this.transactionManager, new ObjectMapper());
+    }
+    
+    @Test
+    void elCsvIncluyeElTerminalYNeutralizaLasFormulas() {
+        this.repository.saveAll(List.of(
+                transaccion("TRX0000001", "=HYPERLINK(\"http://x\",\"y\")", LocalDateTime.of(2026, 3, 1, 9, 0)),
+                transaccion("TRX0000002", "@SUM(A1:A2)", LocalDateTime.of(2026, 3, 1, 9, 1)),
+                transaccion("TRX0000003", "Transacción autorizada", LocalDateTime.of(2026, 3, 1, 9, 2))));
+        
+        String[] lineas = exportar(Formato.CSV).split("\r\n");
+        
+        assertThat(lineas[0]).endsWith(",DETALLE,CODIGO_POS");
+        assertThat(lineas[1]).endsWith(",\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",POS001");
+        assertThat(lineas[2]).endsWith(",'@SUM(A1:A2),POS001");
+        assertThat(lineas[3]).endsWith(",Transacción autorizada,POS001");
+    }
+    
+    @Test
+    void elNdjsonIncluyeElTerminalSinAlterarLosValores() {
+        this.repository.save(transaccion("TRX0000001", "=1+1", LocalDateTime.of(2026, 3, 1, 9, 0)));
+        
+        assertThat(exportar(Formato.NDJSON)).contains("\"detalle\":\"=1+1\"", "\"codigoPos\":\"POS001\"");
+    }
+    
+    private String exportar(Formato formato) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        this.servicio.exportar(this.servicio.preparar(null, null, null), formato, salida);
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+    
+    private static Transaccion transaccion(String codTransaccion, String detalle, LocalDateTime fecha) {
+        Transaccion transaccion = new Transaccion(codTransaccion);
+        transaccion.setCodigoUnicoTransaccion("REF-" + codTransaccion);
+        transaccion.setCodigoPos("POS001");
+        transaccion.setFecha(fecha);
+        transaccion.setTipo("PAG");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad("SIM");
+        transaccion.setMoneda("USD");
+        transaccion.setMonto(new BigDecimal("10.00"));
+        transaccion.setEstado("AUT");
+        transaccion.setDetalle(detalle);
+        return transaccion;
+    }
+}
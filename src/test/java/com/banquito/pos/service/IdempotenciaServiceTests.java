@@ -0,0 +1,109 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.exception.ClaveIdempotenciaReutilizadaException;
+import com.banquito.pos.exception.CommunicationException;
+import com.banquito.pos.model.Transaccion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotenciaServiceTests {
+
+    private static final String CLAVE = "pago-0001";
+    
+    private final TransaccionService transaccionService = mock(TransaccionService.class);
+    private final IdempotenciaService servicio = new IdempotenciaService(this.transaccionService,
+            new SimpleMeterRegistry(), 100);
+    
+    @Test
+    void unaFallaDeComunicacionNoSeRecuerdaYElReintentoVuelveAEnviar() {
+        Transaccion registrada = new Transaccion();
+        when(this.transaccionService.buscarEstado(CLAVE)).thenReturn(Optional.empty(), Optional.of(registrada));
+        when(this.transaccionService.procesarReintentable(any(), anyString(), anyString())).thenAnswer(invocacion -> {
+            copiar(invocacion.getArgument(0), registrada, "ENV");
+            throw new CommunicationException("Payment Gateway", "Read timed out");
+        });
+        when(this.transaccionService.reenviable(registrada)).thenReturn(true);
+        when(this.transaccionService.reenviar(any(), any(), anyString(), anyString())).thenAnswer(invocacion -> {
+            Transaccion reenviada = invocacion.getArgument(0);
+            reenviada.setEstado("AUT");
+            return reenviada;
+        });
+        
+        assertThatThrownBy(() -> this.servicio.procesarTransaccion(CLAVE, pago("12.50"), "123", "12/30"))
+                .isInstanceOf(CommunicationException.class);
+        Transaccion resultado = this.servicio.procesarTransaccion(CLAVE, pago("12.50"), "123", "12/30");
+        
+        assertThat(resultado.getEstado()).isEqualTo("AUT");
+        verify(this.transaccionService).reenviar(any(), any(), anyString(), anyString());
+    }
+    
+    @Test
+    void unRechazoDelPaymentGatewaySeRecuerdaYNoSeReenvia() {
+        when(this.transaccionService.buscarEstado(CLAVE)).thenReturn(Optional.empty());
+        when(this.transaccionService.procesarReintentable(any(), anyString(), anyString())).thenAnswer(invocacion -> {
+            Transaccion rechazada = new Transaccion();
+            copiar(invocacion.getArgument(0), rechazada, "REC");
+            return rechazada;
+        });
+        
+        this.servicio.procesarTransaccion(CLAVE, pago("12.50"), "123", "12/30");
+        Transaccion resultado = this.servicio.procesarTransaccion(CLAVE, pago("12.50"), "123", "12/30");
+        
+        assertThat(resultado.getEstado()).isEqualTo("REC");
+        verify(this.transaccionService, times(1)).procesarReintentable(any(), anyString(), anyString());
+        verify(this.transaccionService, times(1)).buscarEstado(CLAVE);
+        verify(this.transaccionService, never()).reenviar(any(), any(), anyString(), anyString());
+    }
+    
+    @Test
+    void laMismaClaveConOtroMontoSeRechaza() {
+        when(this.transaccionService.buscarEstado(CLAVE)).thenReturn(Optional.empty());
+        when(this.transaccionService.procesarReintentable(any(), anyString(), anyString())).thenAnswer(invocacion -> {
+            Transaccion autorizada = new Transaccion();
+            copiar(invocacion.getArgument(0), autorizada, "AUT");
+            return autorizada;
+        });
+        this.servicio.procesarTransaccion(CLAVE, pago("12.50"), "123", "12/30");
+        
+        assertThatThrownBy(() -> this.servicio.procesarTransaccion(CLAVE, pago("99.00"), "123", "12/30"))
+                .isInstanceOf(ClaveIdempotenciaReutilizadaException.class);
+        assertThat(this.servicio.procesarTransaccion(CLAVE, pago("12.5"), "123", "12/30").getEstado())
+                .isEqualTo("AUT");
+        verify(this.transaccionService, times(1)).procesarReintentable(any(), anyString(), anyString());
+    }
+    
+    private static Transaccion pago(String monto) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodigoPos("POS001");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad("SIM");
+        transaccion.setMoneda("USD");
+        transaccion.setMonto(new BigDecimal(monto));
+        transaccion.setNumeroTarjeta("4111111111111111");
+        transaccion.setNombreTitular("ANA PEREZ");
+        return transaccion;
+    }
+    
+    private static void copiar(Transaccion enviada, Transaccion registrada, String estado) {
+        registrada.setCodTransaccion("TRX0000001");
+        registrada.setCodigoUnicoTransaccion(enviada.getCodigoUnicoTransaccion());
+        registrada.setCodigoPos(enviada.getCodigoPos());
+        registrada.setHuellaSolicitud(enviada.getHuellaSolicitud());
+        registrada.setEstado(estado);
+    }
+}
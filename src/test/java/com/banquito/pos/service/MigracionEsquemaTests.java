@@ -0,0 +1,131 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ConfiguracionPosRepository;
+import com.banquito.pos.repository.TransaccionRepository;
+
+/**
+ * Migración de schema.sql sobre una base con el formato anterior: el resultado de cada pago
+ * era una segunda fila con el código de la fila ENV y el sufijo -RESP o -ERROR, sin
+ * historial ni terminal.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:sqlite:target/migracion-test.db")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MigracionEsquemaTests {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 11, 3, 9, 0);
+    
+    @Autowired
+    private TransaccionRepository transaccionRepository;
+    
+    @Autowired
+    private ConfiguracionPosRepository configuracionRepository;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.jdbcTemplate.update("DELETE FROM POS_TRANSACCION_HISTORIAL");
+        this.jdbcTemplate.update("DELETE FROM POS_TRANSACCION");
+        this.jdbcTemplate.update("DELETE FROM POS_CONFIGURACION");
+        this.jdbcTemplate.execute("DROP INDEX IF EXISTS UK_TRANSACCION_CODIGO_UNICO");
+        
+        this.configuracionRepository.saveAll(List.of(
+                terminal("POS001", FECHA.minusYears(1)), terminal("POS002", FECHA.minusMonths(1))));
+        this.transaccionRepository.saveAll(List.of(
+                legada("TRX001", "REF-1", "ENV", FECHA, null),
+                legada("TRX001-RESP", "REF-1", "AUT", FECHA.plusSeconds(1), "Transacción autorizada"),
+                legada("TRX002", "REF-2", "ENV", FECHA.plusMinutes(1), null),
+                legada("TRX002-ERROR", "REF-2", "REC", FECHA.plusMinutes(1).plusSeconds(1), "Error de comunicación"),
+                legada("TRX003", "REF-3", "ENV", FECHA.plusMinutes(2), null)));
+    }
+    
+    @Test
+    void cadaPagoQuedaEnUnaFilaConSuHistorialYSuTerminal() {
+        migrar();
+        
+        assertThat(this.jdbcTemplate.queryForList("SELECT COD_TRANSACCION || '|' || ESTADO || '|' "
+                + "|| IFNULL(DETALLE, '') || '|' || CODIGO_POS FROM POS_TRANSACCION ORDER BY COD_TRANSACCION", String.class))
+                .containsExactly(
+                        "TRX001|AUT|Transacción autorizada|POS001",
+                        "TRX002|REC|Error de comunicación|POS001",
+                        "TRX003|ENV||POS001");
+        assertThat(historial()).containsExactly(
+                "TRX001|ENV", "TRX001|AUT", "TRX002|ENV", "TRX002|REC");
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sqlite_master "
+                + "WHERE type = 'index' AND name = 'UK_TRANSACCION_CODIGO_UNICO'", Integer.class)).isOne();
+    }
+    
+    @Test
+    void volverAEjecutarLaMigracionNoCambiaNada() {
+        migrar();
+        List<Map<String, Object>> transacciones = this.jdbcTemplate.queryForList(
+                "SELECT * FROM POS_TRANSACCION ORDER BY COD_TRANSACCION");
+        List<String> historial = historial();
+        
+        migrar();
+        
+        assertThat(this.jdbcTemplate.queryForList("SELECT * FROM POS_TRANSACCION ORDER BY COD_TRANSACCION"))
+                .isEqualTo(transacciones);
+        assertThat(historial()).isEqualTo(historial);
+    }
+    
+    private void migrar() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(this.dataSource);
+    }
+    
+    private List<String> historial() {
+        return this.jdbcTemplate.queryForList("SELECT COD_TRANSACCION || '|' || ESTADO "
+                + "FROM POS_TRANSACCION_HISTORIAL ORDER BY COD_TRANSACCION, FECHA", String.class);
+    }
+    
+    private static Transaccion legada(String codTransaccion, String codigoUnico, String estado, LocalDateTime fecha,
+            String detalle) {
+        Transaccion transaccion = new Transaccion(codTransaccion);
+        transaccion.setCodigoUnicoTransaccion(codigoUnico);
+        transaccion.setFecha(fecha);
+        transaccion.setTipo("PAG");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad("SIM");
+        transaccion.setMoneda("USD");
+        transaccion.setMonto(new BigDecimal("25.00"));
+        transaccion.setEstado(estado);
+        transaccion.setEstadoRecibo("PEN");
+        transaccion.setDetalle(detalle);
+        return transaccion;
+    }
+    
+    private static ConfiguracionPos terminal(String codigoPos, LocalDateTime fechaActivacion) {
+        ConfiguracionPos terminal = new ConfiguracionPos("VERIFONE", codigoPos);
+        terminal.setDireccionMac("00:11:22:33:44:" + codigoPos.substring(4));
+        terminal.setCodigoComercio("COM001");
+        terminal.setFechaActivacion(fechaActivacion);
+        return terminal;
+    }
+}
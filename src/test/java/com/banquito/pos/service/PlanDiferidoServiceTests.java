@@ -0,0 +1,122 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.model.CuotaDiferida;
+import com.banquito.pos.model.PlanDiferido;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.CuotaDiferidaRepository;
+import com.banquito.pos.repository.PlanDiferidoRepository;
+
+class PlanDiferidoServiceTests {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "100.00 | 3  | 33.33 | 33.34",
+        "0.05   | 6  | 0.00  | 0.05",
+        "10.005 | 2  | 5.00  | 5.01",
+        "125.40 | 6  | 20.90 | 20.90",
+        "99.99  | 12 | 8.33  | 8.36",
+        "50.00  | 1  | 50.00 | 50.00"
+    })
+    void truncaLasCuotasYLaUltimaLlevaLaDiferencia(String monto, int plazo, String cuota, String ultima) {
+        List<CuotaDiferida> cuotas = PlanDiferidoService.calcularCuotas(
+                plan(monto, plazo, LocalDateTime.of(2025, 3, 10, 9, 30)));
+        
+        assertThat(cuotas).hasSize(plazo);
+        for (int i = 0; i < plazo - 1; i++) {
+            assertThat(cuotas.get(i).getMonto()).isEqualByComparingTo(cuota);
+        }
+        assertThat(cuotas.get(plazo - 1).getMonto()).isEqualByComparingTo(ultima);
+        assertThat(cuotas.stream().map(CuotaDiferida::getMonto).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo(new BigDecimal(monto).setScale(2, RoundingMode.HALF_UP));
+        assertThat(cuotas).allSatisfy(nueva -> assertThat(nueva.getMonto().scale()).isEqualTo(2));
+    }
+    
+    @Test
+    void lasCuotasVencenMesAMesDesdeElFinDeMes() {
+        List<CuotaDiferida> cuotas = PlanDiferidoService.calcularCuotas(
+                plan("400.00", 5, LocalDateTime.of(2025, 1, 31, 23, 59)));
+        
+        assertThat(cuotas).extracting(CuotaDiferida::getFechaVencimiento).containsExactly(
+                LocalDate.of(2025, 2, 28),
+                LocalDate.of(2025, 3, 31),
+                LocalDate.of(2025, 4, 30),
+                LocalDate.of(2025, 5, 31),
+                LocalDate.of(2025, 6, 30));
+        assertThat(cuotas).extracting(CuotaDiferida::getPeriodo)
+                .containsExactly("2025-02", "2025-03", "2025-04", "2025-05", "2025-06");
+        assertThat(cuotas).extracting(CuotaDiferida::getNumeroCuota).containsExactly(1, 2, 3, 4, 5);
+    }
+    
+    @Test
+    void respetaLosAniosBisiestosYElCambioDeAnio() {
+        List<CuotaDiferida> bisiesto = PlanDiferidoService.calcularCuotas(
+                plan("30.00", 1, LocalDateTime.of(2024, 1, 31, 12, 0)));
+        assertThat(bisiesto.get(0).getFechaVencimiento()).isEqualTo(LocalDate.of(2024, 2, 29));
+        
+        List<CuotaDiferida> cambioDeAnio = PlanDiferidoService.calcularCuotas(
+                plan("30.00", 3, LocalDateTime.of(2025, 11, 30, 8, 0)));
+        assertThat(cambioDeAnio).extracting(CuotaDiferida::getFechaVencimiento).containsExactly(
+                LocalDate.of(2025, 12, 30),
+                LocalDate.of(2026, 1, 30),
+                LocalDate.of(2026, 2, 28));
+        assertThat(cambioDeAnio).extracting(CuotaDiferida::getPeriodo)
+                .containsExactly("2025-12", "2026-01", "2026-02");
+    }
+    
+    @Test
+    void copiaLosDatosDelPlanEnCadaCuota() {
+        List<CuotaDiferida> cuotas = PlanDiferidoService.calcularCuotas(
+                plan("90.00", 3, LocalDateTime.of(2025, 6, 15, 10, 0)));
+        
+        assertThat(cuotas).allSatisfy(cuota -> {
+            assertThat(cuota.getCodPlan()).isEqualTo("PLAN-1");
+            assertThat(cuota.getCodigoComercio()).isEqualTo("COM001");
+            assertThat(cuota.getMoneda()).isEqualTo("USD");
+        });
+    }
+    
+    @Test
+    void noRegistraUnPlanConUnPlazoMayorAlMaximo() {
+        ColaEscrituraSqlite colaEscritura = mock(ColaEscrituraSqlite.class);
+        PlanDiferidoService servicio = new PlanDiferidoService(mock(PlanDiferidoRepository.class),
+                mock(CuotaDiferidaRepository.class), colaEscritura);
+        Transaccion resultado = new Transaccion();
+        resultado.setModalidad("DIF");
+        resultado.setCodigoUnicoTransaccion("PLAN-1");
+        TransaccionRequestDTO request = new TransaccionRequestDTO();
+        request.setPlazo(2_000_000_000);
+        
+        servicio.registrar(resultado, request);
+        
+        verify(colaEscritura, never()).ejecutar(any());
+    }
+    
+    private static PlanDiferido plan(String monto, int plazo, LocalDateTime fechaAutorizacion) {
+        PlanDiferido plan = new PlanDiferido("PLAN-1");
+        plan.setCodigoComercio("COM001");
+        plan.setMarca("VISA");
+        plan.setMonto(new BigDecimal(monto));
+        plan.setMoneda("USD");
+        plan.setPlazo(plazo);
+        plan.setFechaAutorizacion(fechaAutorizacion);
+        return plan;
+    }
+}
@@ -0,0 +1,82 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReciboServiceTests {
+
+    private final TransaccionRepository repository = mock(TransaccionRepository.class);
+    private final ColaEscrituraSqlite colaEscritura = mock(ColaEscrituraSqlite.class);
+    private final List<String> marcados = new CopyOnWriteArrayList<>();
+    private final ReciboService servicio = new ReciboService(this.repository, this.colaEscritura,
+            mock(ConfiguracionPosCache.class), new SimpleMeterRegistry(), 10, 10, 10, 20);
+    
+    @BeforeEach
+    void setUp() {
+        when(this.colaEscritura.ejecutar(any())).thenAnswer(invocacion -> ((Supplier<?>) invocacion.getArgument(0)).get());
+        when(this.repository.marcarRecibosImpresos(anyList())).thenAnswer(invocacion -> {
+            List<String> codigos = invocacion.getArgument(0);
+            this.marcados.addAll(codigos);
+            return codigos.size();
+        });
+        this.servicio.iniciar();
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.servicio.detener();
+    }
+    
+    @Test
+    void generarElReciboNoLoMarcaComoImpresoHastaEntregarlo() {
+        this.servicio.registrarResultado(new TransaccionFinalizadaEvent(resultado("TRX0000001")));
+        verify(this.repository, after(300).never()).marcarRecibosImpresos(anyList());
+        
+        ReciboService.Recibo recibo = this.servicio.obtener("TRX0000001");
+        this.servicio.obtener("TRX0000001");
+        
+        assertThat(recibo.texto()).contains("TRX0000001");
+        verify(this.repository, timeout(5_000)).marcarRecibosImpresos(anyList());
+        verify(this.repository, never()).findById("TRX0000001");
+        verify(this.repository, after(300).times(1)).marcarRecibosImpresos(anyList());
+        assertThat(this.marcados).containsExactly("TRX0000001");
+    }
+    
+    private static Transaccion resultado(String codTransaccion) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodTransaccion(codTransaccion);
+        transaccion.setCodigoPos("POS001");
+        transaccion.setFecha(LocalDateTime.of(2026, 3, 1, 9, 0));
+        transaccion.setTipo("PAG");
+        transaccion.setMarca("VISA");
+        transaccion.setModalidad("SIM");
+        transaccion.setMoneda("USD");
+        transaccion.setMonto(new BigDecimal("12.50"));
+        transaccion.setEstado("AUT");
+        transaccion.setEstadoRecibo("PEN");
+        return transaccion;
+    }
+}
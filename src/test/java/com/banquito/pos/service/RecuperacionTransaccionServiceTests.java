@@ -0,0 +1,70 @@
+package com.banquito.pos.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionRepository;
+
+class RecuperacionTransaccionServiceTests {
+
+    private static final String DETALLE = "Sin respuesta del Payment Gateway (recuperada)";
+    
+    private final TransaccionRepository repository = mock(TransaccionRepository.class);
+    private final TransaccionService transaccionService = mock(TransaccionService.class);
+    private final PagosEnCurso pagosEnCurso = new PagosEnCurso();
+    private final RecuperacionTransaccionService servicio = new RecuperacionTransaccionService(this.repository,
+            this.transaccionService, this.pagosEnCurso);
+    
+    private final Transaccion enCurso = enviada("TRX0000001");
+    private final Transaccion abandonada = enviada("TRX0000002");
+    
+    @BeforeEach
+    void setUp() {
+        when(this.repository.findEnviadasSinResultado(any())).thenReturn(List.of(this.enCurso, this.abandonada));
+        when(this.transaccionService.registrarResultado(any(), anyString(), anyString()))
+                .thenAnswer(invocacion -> invocacion.getArgument(0));
+    }
+    
+    @Test
+    void noRecuperaUnPagoQueSigueEnCurso() {
+        this.pagosEnCurso.registrar("TRX0000001");
+        
+        this.servicio.recuperarTransaccionesPendientes();
+        
+        verify(this.transaccionService, never()).registrarResultado(eq(this.enCurso), anyString(), anyString());
+        verify(this.transaccionService).registrarResultado(this.abandonada, "REC", DETALLE);
+    }
+    
+    @Test
+    void recuperaElPagoCuandoQuienLoEnviaLoLibera() {
+        this.pagosEnCurso.registrar("TRX0000001");
+        this.servicio.recuperarTransaccionesPendientes();
+        this.pagosEnCurso.liberar("TRX0000001");
+        
+        this.servicio.recuperarTransaccionesPendientes();
+        
+        verify(this.transaccionService).registrarResultado(this.enCurso, "REC", DETALLE);
+    }
+    
+    private static Transaccion enviada(String codTransaccion) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodTransaccion(codTransaccion);
+        transaccion.setCodigoUnicoTransaccion("REF-" + codTransaccion);
+        transaccion.setCodigoPos("POS001");
+        transaccion.setFecha(LocalDateTime.now().minusMinutes(30));
+        transaccion.setEstado("ENV");
+        return transaccion;
+    }
+}
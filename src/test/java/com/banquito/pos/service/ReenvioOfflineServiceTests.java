@@ -0,0 +1,103 @@
+package com.banquito.pos.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.banquito.pos.client.dto.TransaccionRequestDTO;
+import com.banquito.pos.client.dto.TransaccionResponseDTO;
+import com.banquito.pos.config.ModoOfflineProperties;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.model.TransaccionOffline;
+import com.banquito.pos.repository.TransaccionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReenvioOfflineServiceTests {
+
+    private final TransaccionOfflineService offlineService = mock(TransaccionOfflineService.class);
+    private final TransaccionService transaccionService = mock(TransaccionService.class);
+    private final PaymentGatewayService paymentGatewayService = mock(PaymentGatewayService.class);
+    private final TransaccionRepository transaccionRepository = mock(TransaccionRepository.class);
+    private final ReenvioOfflineService servicio = new ReenvioOfflineService(this.offlineService,
+            this.transaccionService, this.paymentGatewayService, this.transaccionRepository,
+            mock(SuscripcionService.class), mock(PlanDiferidoService.class), new ModoOfflineProperties(),
+            new SimpleMeterRegistry());
+    
+    private final TransaccionOffline ilegible = pendiente("TRX0000001");
+    private final TransaccionOffline valida = pendiente("TRX0000002");
+    
+    @BeforeEach
+    void setUp() {
+        when(this.offlineService.isHabilitado()).thenReturn(true);
+        when(this.offlineService.siguientes()).thenReturn(List.of(this.ilegible, this.valida));
+        when(this.transaccionRepository.findById(anyString()))
+                .thenAnswer(invocacion -> Optional.of(transaccion(invocacion.getArgument(0), "ENV")));
+        when(this.transaccionService.registrando(any(), any()))
+                .thenAnswer(invocacion -> ((Supplier<?>) invocacion.getArgument(1)).get());
+        when(this.transaccionService.resultadoRegistrado(any(), anyString(), anyString(), anyBoolean()))
+                .thenAnswer(invocacion -> transaccion(((Transaccion) invocacion.getArgument(0)).getCodTransaccion(),
+                        invocacion.getArgument(1)));
+        when(this.offlineService.conciliar(any(), anyString(), anyString())).thenReturn(true);
+        when(this.paymentGatewayService.procesarTransaccion(any())).thenReturn(new TransaccionResponseDTO());
+    }
+    
+    @Test
+    void unaSolicitudIlegibleSeConciliaComoRechazadaYNoBloqueaLaCola() {
+        when(this.offlineService.solicitud(this.ilegible))
+                .thenThrow(new IllegalStateException("No se pudo descifrar la solicitud TRX0000001"));
+        when(this.offlineService.solicitud(this.valida)).thenReturn(new TransaccionRequestDTO());
+        
+        this.servicio.reenviarPendientes();
+        
+        verify(this.offlineService).conciliar(this.ilegible, "REC", "Solicitud offline ilegible");
+        verify(this.offlineService).conciliar(eq(this.valida), eq("AUT"), anyString());
+        verify(this.paymentGatewayService, times(1)).procesarTransaccion(any());
+        verify(this.offlineService, never()).registrarIntento(any(), any());
+    }
+    
+    @Test
+    void unFalloAlConciliarRegistraElIntentoYEsperaAntesDeReintentar() {
+        when(this.offlineService.solicitud(any())).thenReturn(new TransaccionRequestDTO());
+        when(this.offlineService.conciliar(eq(this.ilegible), anyString(), anyString()))
+                .thenThrow(new IllegalStateException("Cola de escritura llena"));
+        
+        this.servicio.reenviarPendientes();
+        this.servicio.reenviarPendientes();
+        
+        verify(this.offlineService).registrarIntento(this.ilegible, "Cola de escritura llena");
+        verify(this.offlineService, never()).conciliar(eq(this.valida), anyString(), anyString());
+        verify(this.offlineService, times(1)).siguientes();
+    }
+    
+    private static TransaccionOffline pendiente(String codTransaccion) {
+        TransaccionOffline pendiente = new TransaccionOffline(codTransaccion);
+        pendiente.setCodigoUnicoTransaccion("REF-" + codTransaccion);
+        pendiente.setFecha(LocalDateTime.now());
+        pendiente.setIntentos(0);
+        pendiente.setSolicitud("");
+        return pendiente;
+    }
+    
+    private static Transaccion transaccion(String codTransaccion, String estado) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodTransaccion(codTransaccion);
+        transaccion.setCodigoPos("POS001");
+        transaccion.setEstado(estado);
+        return transaccion;
+    }
+}
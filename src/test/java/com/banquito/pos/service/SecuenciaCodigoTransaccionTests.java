@@ -0,0 +1,159 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SecuenciaCodigoTransaccionTests {
+
+    private final Map<String, String> prefijosAsignados = new HashMap<>();
+    private final Map<String, Long> secuenciasPersistidas = new HashMap<>();
+    private SecuenciaTransaccionService secuenciaService;
+    
+    @BeforeEach
+    void setUp() {
+        this.secuenciaService = mock(SecuenciaTransaccionService.class);
+        when(this.secuenciaService.asignarPrefijo(anyString())).thenAnswer(invocacion -> {
+            synchronized (this.secuenciasPersistidas) {
+                return this.prefijosAsignados.computeIfAbsent(invocacion.getArgument(0), codigoPos -> {
+                    String prefijo = SecuenciaTransaccionService.elegirPrefijo(
+                            GeneradorCodigoTransaccion.prefijoPreferido(codigoPos), this.secuenciasPersistidas.keySet());
+                    this.secuenciasPersistidas.put(prefijo, 0L);
+                    return prefijo;
+                });
+            }
+        });
+        when(this.secuenciaService.reservarBloque(anyString(), anyLong())).thenAnswer(
+                invocacion -> reservar(invocacion.getArgument(0), invocacion.getArgument(1)));
+        when(this.secuenciaService.reservarBloqueAnticipado(anyString(), anyLong())).thenAnswer(
+                invocacion -> CompletableFuture.completedFuture(reservar(invocacion.getArgument(0), invocacion.getArgument(1))));
+    }
+    
+    @Test
+    void reservaElBloqueSiguienteAntesDeAgotarElActual() {
+        SecuenciaCodigoTransaccion generador = new SecuenciaCodigoTransaccion(this.secuenciaService, 8);
+        List<String> codigos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            codigos.add(generador.siguiente("POS001"));
+        }
+        
+        assertThat(codigos).doesNotHaveDuplicates().isSorted();
+        verify(this.secuenciaService, times(1)).reservarBloque("001", 8);
+        verify(this.secuenciaService, times(2)).reservarBloqueAnticipado("001", 8);
+    }
+    
+    @Test
+    void siLaReservaAnticipadaFallaReservaAlAgotarElBloque() {
+        when(this.secuenciaService.reservarBloqueAnticipado(anyString(), anyLong())).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("La cola de escritura SQLite no acepta más operaciones")));
+        SecuenciaCodigoTransaccion generador = new SecuenciaCodigoTransaccion(this.secuenciaService, 4);
+        
+        for (int i = 0; i < 5; i++) {
+            generador.siguiente("POS001");
+        }
+        
+        assertThat(generador.siguiente("POS001")).isEqualTo("0010000005");
+        verify(this.secuenciaService, times(2)).reservarBloque("001", 4);
+    }
+    
+    @Test
+    void generaCodigosUnicosEntreHilosYReinicios() throws Exception {
+        Set<String> codigos = ConcurrentHashMap.newKeySet();
+        int hilos = 8;
+        int codigosPorHilo = 5_000;
+        
+        for (int reinicio = 0; reinicio < 3; reinicio++) {
+            SecuenciaCodigoTransaccion generador = new SecuenciaCodigoTransaccion(this.secuenciaService, 64);
+            ExecutorService executor = Executors.newFixedThreadPool(hilos);
+            CountDownLatch inicio = new CountDownLatch(1);
+            List<Future<List<String>>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                String codigoPos = h % 2 == 0 ? "POS001" : "ABC001";
+                resultados.add(executor.submit(() -> {
+                    inicio.await();
+                    List<String> generados = new ArrayList<>(codigosPorHilo);
+                    for (int i = 0; i < codigosPorHilo; i++) {
+                        generados.add(generador.siguiente(codigoPos));
+                    }
+                    return generados;
+                }));
+            }
+            inicio.countDown();
+            
+            for (Future<List<String>> resultado : resultados) {
+                List<String> generados = resultado.get();
+                for (int i = 0; i < generados.size(); i++) {
+                    String codigo = generados.get(i);
+                    assertThat(codigo).hasSize(10);
+                    assertThat(codigos.add(codigo)).as("código duplicado %s", codigo).isTrue();
+                    if (i > 0) {
+                        assertThat(codigo).isGreaterThan(generados.get(i - 1));
+                    }
+                }
+            }
+            executor.shutdown();
+        }
+        
+        assertThat(codigos).hasSize(3 * hilos * codigosPorHilo);
+        assertThat(codigos).extracting(codigo -> codigo.substring(0, 3)).containsOnly("001", "101");
+    }
+    
+    @Test
+    void formateaEnBaseTreintaYSeis() {
+        assertThat(SecuenciaCodigoTransaccion.formatear("TRX", 0)).isEqualTo("TRX0000000");
+        assertThat(SecuenciaCodigoTransaccion.formatear("TRX", 35)).isEqualTo("TRX000000Z");
+        assertThat(SecuenciaCodigoTransaccion.formatear("TRX", 36)).isEqualTo("TRX0000010");
+        assertThat(SecuenciaCodigoTransaccion.formatear("TRX", SecuenciaCodigoTransaccion.MAXIMO - 1))
+                .isEqualTo("TRXZZZZZZZ");
+        assertThatThrownBy(() -> SecuenciaCodigoTransaccion.formatear("TRX", SecuenciaCodigoTransaccion.MAXIMO))
+                .isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void derivaElPrefijoDelCodigoPos() {
+        assertThat(GeneradorCodigoTransaccion.prefijoPreferido("POS001")).isEqualTo("001");
+        assertThat(GeneradorCodigoTransaccion.prefijoPreferido("p-7")).isEqualTo("TP7");
+    }
+    
+    @Test
+    void eligeOtroPrefijoSiElDerivadoEstaEnUso() {
+        assertThat(SecuenciaTransaccionService.elegirPrefijo("001", Set.of())).isEqualTo("001");
+        assertThat(SecuenciaTransaccionService.elegirPrefijo("001", Set.of("001", "101"))).isEqualTo("201");
+        
+        Set<String> terminadosEn01 = new HashSet<>();
+        for (char c : SecuenciaCodigoTransaccion.BASE36) {
+            terminadosEn01.add(c + "01");
+        }
+        terminadosEn01.add("000");
+        assertThat(SecuenciaTransaccionService.elegirPrefijo("001", terminadosEn01)).isEqualTo("002");
+    }
+    
+    private long reservar(String prefijo, long cantidad) {
+        synchronized (this.secuenciasPersistidas) {
+            long inicio = this.secuenciasPersistidas.getOrDefault(prefijo, 0L);
+            this.secuenciasPersistidas.put(prefijo, inicio + cantidad);
+            return inicio;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.banquito.pos.model.SecuenciaTransaccion;
+import com.banquito.pos.repository.ColaEscrituraSqlite;
+import com.banquito.pos.repository.SecuenciaTransaccionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "spring.datasource.url=jdbc:sqlite:target/secuencia-test.db")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecuenciaTransaccionServiceTests {
+
+    @Autowired
+    private SecuenciaTransaccionRepository repository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private ColaEscrituraSqlite colaEscritura;
+    private SecuenciaTransaccionService secuenciaService;
+    
+    @BeforeEach
+    void setUp() {
+        this.repository.deleteAllInBatch();
+        this.colaEscritura = new ColaEscrituraSqlite(this.transactionManager, new SimpleMeterRegistry(),
+                true, 100, 1000, 2, 16);
+        this.colaEscritura.iniciar();
+        this.secuenciaService = new SecuenciaTransaccionService(this.repository, this.colaEscritura);
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.colaEscritura.detener();
+    }
+    
+    @Test
+    void losTerminalesQueTerminanIgualTienenSecuenciasYPrefijosPropios() {
+        SecuenciaCodigoTransaccion generador = new SecuenciaCodigoTransaccion(this.secuenciaService, 4);
+        Set<String> codigos = new HashSet<>();
+        
+        for (int i = 0; i < 10; i++) {
+            for (String codigoPos : List.of("POS001", "ABC001", "XYZ001")) {
+                assertThat(codigos.add(generador.siguiente(codigoPos))).isTrue();
+            }
+        }
+        
+        assertThat(codigos).hasSize(30);
+        assertThat(codigos).extracting(codigo -> codigo.substring(0, 3)).containsOnly("001", "101", "201");
+        assertThat(this.repository.findByCodigoPos("POS001")).get()
+                .extracting(SecuenciaTransaccion::getPrefijo).isEqualTo("001");
+        assertThat(this.repository.findByCodigoPos("ABC001")).get()
+                .extracting(SecuenciaTransaccion::getSiguiente).isEqualTo(12L);
+    }
+    
+    @Test
+    void alReiniciarContinuaDespuesDelUltimoBloqueReservado() {
+        List<String> codigos = new ArrayList<>();
+        for (int reinicio = 0; reinicio < 3; reinicio++) {
+            SecuenciaCodigoTransaccion generador = new SecuenciaCodigoTransaccion(this.secuenciaService, 4);
+            codigos.add(generador.siguiente("POS001"));
+            codigos.add(generador.siguiente("POS001"));
+        }
+        
+        assertThat(codigos).containsExactly(
+                "0010000000", "0010000001",
+                "0010000004", "0010000005",
+                "0010000008", "0010000009");
+    }
+    
+    @Test
+    void unTerminalContinuaLaSecuenciaAnteriorDeSuPrefijo() {
+        this.repository.saveAndFlush(new SecuenciaTransaccion("001", null, 500L));
+        
+        assertThat(this.secuenciaService.asignarPrefijo("POS001")).isEqualTo("001");
+        assertThat(this.secuenciaService.asignarPrefijo("ABC001")).isEqualTo("101");
+        assertThat(this.secuenciaService.asignarPrefijo("POS001")).isEqualTo("001");
+        assertThat(this.secuenciaService.reservarBloque("001", 10)).isEqualTo(500);
+        assertThat(this.secuenciaService.reservarBloque("101", 10)).isZero();
+    }
+}
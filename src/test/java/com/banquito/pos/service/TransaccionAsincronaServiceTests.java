@@ -0,0 +1,58 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.banquito.pos.exception.SaturacionException;
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+
+class TransaccionAsincronaServiceTests {
+
+    private final TransaccionService transaccionService = mock(TransaccionService.class);
+    private final ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+    private final TransaccionAsincronaService servicio = new TransaccionAsincronaService(this.transaccionService,
+            this.executor, 0, 1);
+    
+    @BeforeEach
+    void setUp() {
+        when(this.transaccionService.obtenerConfiguracionPOS(any())).thenReturn(new ConfiguracionPos("VERIFONE", "POS001"));
+        when(this.transaccionService.registrarEnvio(any(), any())).thenAnswer(invocacion -> {
+            Transaccion transaccion = invocacion.getArgument(0);
+            transaccion.setCodTransaccion("TRX0000001");
+            transaccion.setEstado("ENV");
+            return transaccion;
+        });
+        doThrow(new TaskRejectedException("pagosExecutor lleno")).when(this.executor).execute(any());
+    }
+    
+    @Test
+    void unEnvioRechazadoPorElExecutorSeCierraYLiberaSuCapacidad() {
+        assertThatThrownBy(() -> this.servicio.enviar(pago("REF-1"), "123", "12/30"))
+                .isInstanceOf(SaturacionException.class);
+        assertThatThrownBy(() -> this.servicio.enviar(pago("REF-2"), "123", "12/30"))
+                .isInstanceOf(SaturacionException.class);
+        
+        verify(this.transaccionService, times(2)).registrarEnvio(any(), any());
+        verify(this.transaccionService, times(2)).descartarEnvio(any(), any());
+        
+        this.servicio.esperarResultado("REF-1");
+        verify(this.transaccionService).consultarEstado("REF-1");
+    }
+    
+    private static Transaccion pago(String codigoUnico) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodigoUnicoTransaccion(codigoUnico);
+        return transaccion;
+    }
+}
@@ -0,0 +1,77 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.banquito.pos.model.ConfiguracionPos;
+import com.banquito.pos.model.Transaccion;
+import com.banquito.pos.repository.TransaccionJournal;
+import com.banquito.pos.service.TransaccionLoteService.ResultadoLote;
+import com.banquito.pos.service.TransaccionLoteService.SolicitudLote;
+
+class TransaccionLoteServiceTests {
+
+    private final TransaccionService transaccionService = mock(TransaccionService.class);
+    private final TransaccionJournal journal = mock(TransaccionJournal.class);
+    private final PagosEnCurso pagosEnCurso = new PagosEnCurso();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final Map<Integer, ResultadoLote> resultados = new ConcurrentHashMap<>();
+    
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdown();
+    }
+    
+    @Test
+    void unaTransaccionDuplicadaSeInformaSinRechazarElLote() throws Exception {
+        this.executor.setCorePoolSize(2);
+        this.executor.initialize();
+        TransaccionLoteService servicio = new TransaccionLoteService(this.transaccionService, this.journal,
+                this.pagosEnCurso, this.executor, 2, 10);
+        when(this.transaccionService.obtenerConfiguracionPOS("POS001")).thenReturn(new ConfiguracionPos("VERIFONE", "POS001"));
+        when(this.journal.insertarTodas(anyList()))
+                .thenThrow(new DataIntegrityViolationException("UNIQUE constraint failed: CODIGO_UNICO_TRANSACCION"));
+        when(this.journal.insertar(argThat(transaccion -> "REF-2".equals(transaccion.getCodigoUnicoTransaccion()))))
+                .thenThrow(new DataIntegrityViolationException("UNIQUE constraint failed: CODIGO_UNICO_TRANSACCION"));
+        when(this.transaccionService.completarTransaccion(any(), any(), any(), any())).thenAnswer(invocacion -> {
+            Transaccion transaccion = invocacion.getArgument(0);
+            transaccion.setEstado("AUT");
+            return transaccion;
+        });
+        
+        servicio.procesarLote("POS001", List.of(solicitud(0, "REF-1"), solicitud(1, "REF-2"), solicitud(2, "REF-3")),
+                resultado -> this.resultados.put(resultado.indice(), resultado)).get(5, TimeUnit.SECONDS);
+        
+        assertThat(this.resultados).hasSize(3);
+        assertThat(this.resultados.get(0).transaccion().getEstado()).isEqualTo("AUT");
+        assertThat(this.resultados.get(1).error()).contains("REF-2");
+        assertThat(this.resultados.get(2).transaccion().getEstado()).isEqualTo("AUT");
+        verify(this.transaccionService, never()).completarTransaccion(
+                argThat(transaccion -> "REF-2".equals(transaccion.getCodigoUnicoTransaccion())), any(), any(), any());
+        assertThat(this.pagosEnCurso.contiene("TRX0000000")).isFalse();
+        assertThat(this.pagosEnCurso.contiene("TRX0000001")).isFalse();
+    }
+    
+    private static SolicitudLote solicitud(int indice, String codigoUnico) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setCodigoUnicoTransaccion(codigoUnico);
+        transaccion.setCodTransaccion("TRX000000" + indice);
+        return new SolicitudLote(indice, transaccion, "123", "12/30", null);
+    }
+}
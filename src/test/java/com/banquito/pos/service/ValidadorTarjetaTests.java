@@ -0,0 +1,162 @@
+package com.banquito.pos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.ClassPathResource;
+
+import com.banquito.pos.exception.ValidationException;
+import com.banquito.pos.model.Transaccion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ValidadorTarjetaTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ValidadorTarjeta validador = new ValidadorTarjeta(
+            new ClassPathResource("tarjetas/bines.csv"), this.registry);
+    
+    @ParameterizedTest
+    @CsvSource(nullValues = "-", value = {
+        "4111111111111111,    VISA, VISA",
+        "4222222222222,       -,    VISA",
+        "4000000000000000006, -,    VISA",
+        "378282246310005,     AMEX, AMEX",
+        "371449635398431,     -,    AMEX",
+        "5555555555554444,    MAST, MAST",
+        "2221000000000009,    -,    MAST",
+        "2223003122003222,    MAST, MAST",
+        "2720000000000005,    -,    MAST",
+        "6011111111111117,    DISC, DISC",
+        "6445000000000000001, -,    DISC",
+        "6500000000000002,    -,    DISC"
+    })
+    void aceptaLasTarjetasValidasEInfiereLaMarca(String numero, String marca, String marcaEsperada) {
+        Transaccion transaccion = transaccion(numero, marca);
+        
+        this.validador.validar(transaccion);
+        
+        assertThat(transaccion.getMarca()).isEqualTo(marcaEsperada);
+    }
+    
+    @ParameterizedTest
+    @CsvSource(nullValues = "-", delimiter = '|', value = {
+        "4111111111111112    | VISA | luhn     | El número de tarjeta no es válido",
+        "378282246310006     | -    | luhn     | El número de tarjeta no es válido",
+        "4111-1111-1111-1111 | VISA | formato  | El número de tarjeta solo puede contener dígitos",
+        "5555555555554444    | VISA | marca    | El número de tarjeta no corresponde a la marca VISA",
+        "378282246310005     | DISC | marca    | El número de tarjeta no corresponde a la marca DISC",
+        "2220000000000000    | -    | bin      | El número de tarjeta no corresponde a una marca aceptada",
+        "2721000000000004    | -    | bin      | El número de tarjeta no corresponde a una marca aceptada",
+        "3700000000000007    | AMEX | longitud | El número de tarjeta AMEX debe tener 15 dígitos",
+        "40000000000002      | VISA | longitud | El número de tarjeta VISA debe tener 13, 16 o 19 dígitos",
+        "510000000000003     | -    | longitud | El número de tarjeta MAST debe tener 16 dígitos"
+    })
+    void rechazaLasTarjetasInvalidas(String numero, String marca, String motivo, String mensaje) {
+        assertThatThrownBy(() -> this.validador.validar(transaccion(numero, marca)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage(mensaje);
+        assertThat(this.registry.get("pos.tarjetas.rechazos").tag("motivo", motivo).counter().count())
+                .isEqualTo(1);
+    }
+    
+    @Test
+    void elRangoMasEstrechoPrevaleceSobreElQueLoContiene() throws IOException {
+        TablaBin tabla = tabla("""
+                4;4;VISA;16
+                4571;4571;DISC;16
+                45711234;45711234;MAST;16
+                """);
+        
+        assertThat(marca(tabla, "4000000000000000")).isEqualTo("VISA");
+        assertThat(marca(tabla, "4570999900000000")).isEqualTo("VISA");
+        assertThat(marca(tabla, "4571000000000000")).isEqualTo("DISC");
+        assertThat(marca(tabla, "4571123300000000")).isEqualTo("DISC");
+        assertThat(marca(tabla, "4571123400000000")).isEqualTo("MAST");
+        assertThat(marca(tabla, "4571123500000000")).isEqualTo("DISC");
+        assertThat(marca(tabla, "4572000000000000")).isEqualTo("VISA");
+        assertThat(marca(tabla, "4999999999999999")).isEqualTo("VISA");
+        assertThat(tabla.buscar("3999999999999999")).isNull();
+        assertThat(tabla.buscar("5000000000000000")).isNull();
+        assertThat(tabla.tamanio()).isEqualTo(5);
+    }
+    
+    @Test
+    void enRangosQueSeCruzanPrevaleceElMasEstrechoYEntreIgualesElUltimo() throws IOException {
+        TablaBin tabla = tabla("""
+                # comentario
+                51;55;MAST;16
+                
+                55;56;DISC;16
+                34;34;AMEX;15
+                34;34;VISA;16
+                """);
+        
+        assertThat(marca(tabla, "5100000000000000")).isEqualTo("MAST");
+        assertThat(marca(tabla, "5499999999999999")).isEqualTo("MAST");
+        assertThat(marca(tabla, "5500000000000000")).isEqualTo("DISC");
+        assertThat(marca(tabla, "5699999999999999")).isEqualTo("DISC");
+        assertThat(tabla.buscar("5700000000000000")).isNull();
+        assertThat(marca(tabla, "3400000000000000")).isEqualTo("VISA");
+    }
+    
+    @Test
+    void describeLasLongitudesDelRango() throws IOException {
+        TablaBin tabla = tabla("""
+                4;4;VISA;19,13,16
+                34;34;AMEX;15
+                65;65;DISC;16,19
+                """);
+        
+        assertThat(tabla.buscar("4000000000000000").describirLongitudes()).isEqualTo("13, 16 o 19");
+        assertThat(tabla.buscar("3400000000000000").describirLongitudes()).isEqualTo("15");
+        assertThat(tabla.buscar("6500000000000000").describirLongitudes()).isEqualTo("16 o 19");
+    }
+    
+    @Test
+    void rechazaLineasInvalidasIndicandoLaLinea() {
+        assertThatThrownBy(() -> tabla("4;4;VISA;16\n55;51;MAST;16\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Línea 2 ");
+        assertThatThrownBy(() -> tabla("4;4;VISA\n"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tabla("4;4;VISA;20\n"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tabla("4x;4;VISA;16\n"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @ParameterizedTest
+    @CsvSource({
+        "4111111111111111, true",
+        "4111111111111112, false",
+        "79927398713,      true",
+        "79927398710,      false",
+        "0,                true"
+    })
+    void calculaElDigitoVerificadorLuhn(String numero, boolean valido) {
+        assertThat(ValidadorTarjeta.luhn(numero)).isEqualTo(valido);
+    }
+    
+    private static TablaBin tabla(String contenido) throws IOException {
+        return TablaBin.leer(new BufferedReader(new StringReader(contenido)));
+    }
+    
+    private static String marca(TablaBin tabla, String numero) {
+        return tabla.buscar(numero).marca();
+    }
+    
+    private static Transaccion transaccion(String numero, String marca) {
+        Transaccion transaccion = new Transaccion();
+        transaccion.setNumeroTarjeta(numero);
+        transaccion.setMarca(marca);
+        return transaccion;
+    }
+}